@@ -0,0 +1,131 @@
+package ru.vasilev.selenile.benchmark;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParser;
+import org.openjdk.jmh.annotations.*;
+import org.openqa.selenium.remote.DesiredCapabilities;
+import ru.vasilev.selenile.config.NodeConfig;
+import ru.vasilev.selenile.deserializer.CapabilityDeserializer;
+
+import java.io.IOException;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of parsing a single node configuration.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CapabilityParsingBenchmark {
+    /**
+     * Node configuration JSON.
+     */
+    private String json;
+
+    /**
+     * Capabilities part of node configuration.
+     */
+    private String capabilities;
+
+    /**
+     * Streaming capability deserializer.
+     */
+    private CapabilityDeserializer deserializer;
+
+    /**
+     * Parser with streaming capability deserializer.
+     */
+    private Gson gson;
+
+    /**
+     * Tree based capability deserializer.
+     */
+    private LegacyCapabilityDeserializer legacyDeserializer;
+
+    /**
+     * Parser with tree based capability deserializer.
+     */
+    private Gson legacyGson;
+
+    /**
+     * Parsed node configuration.
+     */
+    private NodeConfig nodeConfig;
+
+    /**
+     * Prepares node configuration.
+     */
+    @Setup(Level.Trial)
+    public void prepare() {
+        json = NodeConfigFiles.json(1, 1);
+        capabilities = new JsonParser().parse(json)
+                                       .getAsJsonObject()
+                                       .get("capabilities")
+                                       .toString();
+        deserializer = new CapabilityDeserializer();
+        gson = new GsonBuilder().registerTypeAdapter(DesiredCapabilities.class, deserializer)
+                                .create();
+        legacyDeserializer = new LegacyCapabilityDeserializer();
+        legacyGson = new GsonBuilder().registerTypeAdapter(DesiredCapabilities.class, legacyDeserializer)
+                                      .create();
+        nodeConfig = gson.fromJson(json, NodeConfig.class);
+    }
+
+    /**
+     * Deserializes capabilities part of node configuration in a single streaming pass.
+     *
+     * @return Capabilities.
+     * @throws IOException If capabilities can't be read.
+     */
+    @Benchmark
+    public DesiredCapabilities deserializeCapabilities() throws IOException {
+        return deserializer.fromJson(capabilities);
+    }
+
+    /**
+     * Deserializes capabilities part of node configuration through Json tree and Jackson map.
+     *
+     * @return Capabilities.
+     */
+    @Benchmark
+    public DesiredCapabilities deserializeCapabilitiesLegacy() {
+        return legacyDeserializer.deserialize(new JsonParser().parse(capabilities), DesiredCapabilities.class, null);
+    }
+
+    /**
+     * Parses the whole node configuration.
+     *
+     * @return Node configuration.
+     */
+    @Benchmark
+    public NodeConfig parseNodeConfig() {
+        return gson.fromJson(json, NodeConfig.class);
+    }
+
+    /**
+     * Parses the whole node configuration with tree based capability deserializer.
+     *
+     * @return Node configuration.
+     */
+    @Benchmark
+    public NodeConfig parseNodeConfigLegacy() {
+        return legacyGson.fromJson(json, NodeConfig.class);
+    }
+
+    /**
+     * Gets Selenium Grid Hub URL of node configuration, URL is built on the first call.
+     *
+     * @return Hub URL.
+     * @throws MalformedURLException If URL can't be built.
+     */
+    @Benchmark
+    public URL hubConfiguration() throws MalformedURLException {
+        return nodeConfig.getHubConfiguration();
+    }
+}
@@ -0,0 +1,72 @@
+package ru.vasilev.selenile.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import ru.vasilev.selenile.DevicePool;
+import ru.vasilev.selenile.device.Device;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of device acquire and release under contention.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DevicePoolBenchmark {
+    /**
+     * Count of pooled devices. With fewer devices than threads requests have to wait for releases.
+     */
+    @Param({"16", "1000"})
+    public int devices;
+
+    /**
+     * Count of hubs devices are spread over.
+     */
+    @Param({"10"})
+    public int hubs;
+
+    /**
+     * Fills pool with synthetic devices.
+     */
+    @Setup(Level.Trial)
+    public void fillPool() {
+        System.setProperty("mobilesystem", "android");
+        for (int i = 0; i < devices; i++) {
+            DevicePool.addDevice(SyntheticDevice.create(i, hubs));
+        }
+    }
+
+    /**
+     * Takes free device without waiting and releases it.
+     *
+     * @return Leased device.
+     */
+    @Benchmark
+    @Threads(256)
+    public Device requestAndFree() {
+        Device device = DevicePool.deviceRequest();
+        if (device != null) {
+            DevicePool.freeDevice(device);
+        }
+        return device;
+    }
+
+    /**
+     * Takes device waiting for it if needed and releases it.
+     *
+     * @return Leased device.
+     * @throws InterruptedException If benchmark thread was interrupted.
+     */
+    @Benchmark
+    @Threads(256)
+    public Device waitingRequestAndFree() throws InterruptedException {
+        Device device = DevicePool.deviceRequest(1, TimeUnit.SECONDS);
+        if (device != null) {
+            DevicePool.freeDevice(device);
+        }
+        return device;
+    }
+}
@@ -0,0 +1,86 @@
+package ru.vasilev.selenile.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+public final class NodeConfigFiles {
+
+    /**
+     * Private constructor.
+     */
+    private NodeConfigFiles() {
+    }
+
+    /**
+     * Generates node configuration in Selenium Grid node format.
+     *
+     * @param index Device number.
+     * @param hubs  Count of hubs devices are spread over.
+     * @return Node configuration JSON.
+     */
+    public static String json(int index, int hubs) {
+        return "{\n"
+                + "  \"capabilities\": [\n"
+                + "    {\n"
+                + "      \"deviceName\": \"synthetic-" + index + "\",\n"
+                + "      \"udid\": \"emulator-" + (5554 + 2 * index) + "\",\n"
+                + "      \"platformName\": \"Android\",\n"
+                + "      \"platformVersion\": \"" + (9 + index % 4) + "\",\n"
+                + "      \"automationName\": \"UiAutomator2\",\n"
+                + "      \"systemPort\": " + (8200 + index) + ",\n"
+                + "      \"maxInstances\": 1,\n"
+                + "      \"rotatable\": true,\n"
+                + "      \"session-override\": true,\n"
+                + "      \"newCommandTimeout\": 600,\n"
+                + "      \"noReset\": false\n"
+                + "    }\n"
+                + "  ],\n"
+                + "  \"configuration\": {\n"
+                + "    \"cleanUpCycle\": 2000,\n"
+                + "    \"timeout\": 30000,\n"
+                + "    \"proxy\": \"org.openqa.grid.selenium.proxy.DefaultRemoteProxy\",\n"
+                + "    \"maxSession\": 1,\n"
+                + "    \"register\": true,\n"
+                + "    \"registerCycle\": 5000,\n"
+                + "    \"hubProtocol\": \"http\",\n"
+                + "    \"hubHost\": \"hub-" + index % hubs + "\",\n"
+                + "    \"hubPort\": 4444\n"
+                + "  }\n"
+                + "}\n";
+    }
+
+    /**
+     * Creates temporary directory with {@code count} node configuration files.
+     *
+     * @param count Count of files.
+     * @param hubs  Count of hubs devices are spread over.
+     * @return Created directory.
+     * @throws IOException If files can't be written.
+     */
+    public static File createDirectory(int count, int hubs) throws IOException {
+        Path directory = Files.createTempDirectory("selenile-node-config");
+        for (int i = 0; i < count; i++) {
+            Files.write(directory.resolve("node-" + i + ".json"), json(i, hubs).getBytes(StandardCharsets.UTF_8));
+        }
+        return directory.toFile();
+    }
+
+    /**
+     * Removes directory with all its files.
+     *
+     * @param directory Directory for removing.
+     * @throws IOException If files can't be removed.
+     */
+    public static void delete(File directory) throws IOException {
+        try (Stream<Path> paths = Files.walk(directory.toPath())) {
+            paths.sorted(Comparator.reverseOrder())
+                 .map(Path::toFile)
+                 .forEach(File::delete);
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package ru.vasilev.selenile.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import ru.vasilev.selenile.DevicePool;
+import ru.vasilev.selenile.config.NodeConfig;
+import ru.vasilev.selenile.config.NodeConfigLoader;
+import ru.vasilev.selenile.config.NodeConfigSnapshot;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time of reading node configuration directory into pool.
+ * Pool is emptied before every loading, so each one reads, parses and adds all devices.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PoolLoadingBenchmark {
+    /**
+     * Count of node configuration files.
+     */
+    @Param({"10", "100", "1000", "10000"})
+    public int files;
+
+    /**
+     * Directory with generated node configuration files.
+     */
+    private File directory;
+
+    /**
+     * Loader parsing node configuration files.
+     */
+    private NodeConfigLoader loader;
+
+    /**
+     * Pool snapshot of generated node configuration files.
+     */
+    private NodeConfigSnapshot snapshot;
+
+    /**
+     * Generates node configuration files.
+     *
+     * @throws IOException If files can't be written.
+     */
+    @Setup(Level.Trial)
+    public void createFiles() throws IOException {
+        System.setProperty("mobilesystem", "android");
+        DevicePool.getUsedEmulatorsList();
+        directory = NodeConfigFiles.createDirectory(files, 10);
+        loader = new NodeConfigLoader(Runtime.getRuntime()
+                                             .availableProcessors());
+        snapshot = new NodeConfigSnapshot(File.createTempFile("selenile-pool", ".bin"));
+        snapshot.save(NodeConfigSnapshot.fingerprint(directory), parseFiles());
+    }
+
+    /**
+     * Removes generated node configuration files.
+     *
+     * @throws IOException If files can't be removed.
+     */
+    @TearDown(Level.Trial)
+    public void deleteFiles() throws IOException {
+        NodeConfigFiles.delete(directory);
+        snapshot.getSnapshotFile()
+                .delete();
+    }
+
+    /**
+     * Reads all node configurations into empty pool.
+     *
+     * @param pool Pool emptied before invocation.
+     */
+    @Benchmark
+    public void loadDevices(EmptyPool pool) {
+        DevicePool.loadDevices(directory);
+    }
+
+    /**
+     * Parses all node configuration files without adding devices into pool.
+     *
+     * @return Node configurations by file.
+     */
+    @Benchmark
+    public Map<File, NodeConfig> parseFiles() {
+        Map<File, NodeConfig> nodeConfigs = new ConcurrentHashMap<>();
+        loader.loadAsync(directory, nodeConfigs::put)
+              .join();
+        return nodeConfigs;
+    }
+
+    /**
+     * Reads all node configurations from pool snapshot, checking that files aren't changed.
+     *
+     * @return Node configurations by file.
+     */
+    @Benchmark
+    public Map<File, NodeConfig> readSnapshot() {
+        return snapshot.load(directory);
+    }
+
+    /**
+     * Pool without devices of generated node configuration files.
+     */
+    @State(Scope.Benchmark)
+    public static class EmptyPool {
+        /**
+         * Removes devices of generated node configuration files from pool before every invocation,
+         * so loading measured isn't reduced to comparing devices pool has yet.
+         *
+         * @param benchmark Benchmark with generated node configuration files.
+         */
+        @Setup(Level.Invocation)
+        public void removeDevices(PoolLoadingBenchmark benchmark) {
+            for (File nodeConfigFile : NodeConfigLoader.listFiles(benchmark.directory)) {
+                DevicePool.removeDevice(nodeConfigFile);
+            }
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package ru.vasilev.selenile.benchmark;
+
+import org.openqa.selenium.remote.DesiredCapabilities;
+import ru.vasilev.selenile.config.NodeConfig;
+import ru.vasilev.selenile.device.Device;
+
+import java.net.MalformedURLException;
+import java.util.HashMap;
+
+public class SyntheticDevice extends Device {
+
+    /**
+     * Creates device that doesn't need any emulator.
+     *
+     * @param nodeConfig Configuration.
+     * @throws MalformedURLException Throws when string connection to Selenium Grid Hub can't be parsed.
+     */
+    public SyntheticDevice(NodeConfig nodeConfig) throws MalformedURLException {
+        super(nodeConfig);
+    }
+
+    /**
+     * Creates device with generated name and hub.
+     *
+     * @param index Device number.
+     * @param hubs  Count of hubs devices are spread over.
+     * @return New device.
+     */
+    public static SyntheticDevice create(int index, int hubs) {
+        try {
+            return new SyntheticDevice(nodeConfig(index, hubs));
+        } catch (MalformedURLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Creates node configuration with generated name and hub.
+     *
+     * @param index Device number.
+     * @param hubs  Count of hubs devices are spread over.
+     * @return Node configuration.
+     */
+    public static NodeConfig nodeConfig(int index, int hubs) {
+        DesiredCapabilities capabilities = new DesiredCapabilities();
+        capabilities.setCapability("deviceName", "synthetic-" + index);
+        capabilities.setCapability("udid", "emulator-" + (5554 + 2 * index));
+        capabilities.setCapability("platformName", "Android");
+        capabilities.setCapability("platformVersion", String.valueOf(9 + index % 4));
+        HashMap<String, Object> configuration = new HashMap<>();
+        configuration.put("hubProtocol", "http");
+        configuration.put("hubHost", "hub-" + index % hubs);
+        configuration.put("hubPort", 4444.0);
+        return new NodeConfig(capabilities, configuration);
+    }
+
+    /**
+     * Synthetic device is never stopped.
+     */
+    @Override
+    public void stopEmulator() {
+    }
+
+    /**
+     * Synthetic device is never started.
+     */
+    @Override
+    public void startEmulator() {
+    }
+
+    /**
+     * Gets Device ID.
+     *
+     * @return Device ID.
+     */
+    @Override
+    protected String getId() {
+        return getCapabilities().getCapability("udid")
+                                .toString();
+    }
+}
@@ -0,0 +1,123 @@
+package ru.vasilev.selenile;
+
+import org.openqa.selenium.Capabilities;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+final class CapabilityIndex {
+    /**
+     * Devices by capability name and value.
+     * Index is changed under pool structure lock and read without locking.
+     */
+    private final ConcurrentHashMap<String, ConcurrentHashMap<String, Set<DeviceSlot>>> index =
+            new ConcurrentHashMap<>();
+
+    /**
+     * Adds device capabilities into index.
+     *
+     * @param slot Device slot.
+     */
+    void add(DeviceSlot slot) {
+        for (Map.Entry<String, ?> capability : slot.getDevice()
+                                                   .getCapabilities()
+                                                   .asMap()
+                                                   .entrySet()) {
+            if (capability.getValue() != null) {
+                index.computeIfAbsent(capability.getKey(), key -> new ConcurrentHashMap<>())
+                     .computeIfAbsent(String.valueOf(capability.getValue()), value -> ConcurrentHashMap.newKeySet())
+                     .add(slot);
+            }
+        }
+    }
+
+    /**
+     * Removes device capabilities from index.
+     *
+     * @param slot Device slot.
+     */
+    void remove(DeviceSlot slot) {
+        for (Map.Entry<String, ?> capability : slot.getDevice()
+                                                   .getCapabilities()
+                                                   .asMap()
+                                                   .entrySet()) {
+            Map<String, Set<DeviceSlot>> values = index.get(capability.getKey());
+            if (values == null || capability.getValue() == null) {
+                continue;
+            }
+            String value = String.valueOf(capability.getValue());
+            Set<DeviceSlot> posting = values.get(value);
+            if (posting != null && posting.remove(slot) && posting.isEmpty()) {
+                values.remove(value);
+                if (values.isEmpty()) {
+                    index.remove(capability.getKey());
+                }
+            }
+        }
+    }
+
+    /**
+     * Builds matching criteria from requested capabilities.
+     * Capabilities no pooled device declares (application path, timeouts and so on) don't restrict matching.
+     *
+     * @param capabilities Requested capabilities.
+     * @return Sorted capability values devices have to match.
+     */
+    Map<String, String> criteriaOf(Capabilities capabilities) {
+        if (capabilities == null) {
+            return Collections.emptyMap();
+        }
+        Map<String, String> criteria = new TreeMap<>();
+        for (Map.Entry<String, ?> capability : capabilities.asMap()
+                                                           .entrySet()) {
+            if (capability.getValue() != null && index.containsKey(capability.getKey())) {
+                criteria.put(capability.getKey(), String.valueOf(capability.getValue()));
+            }
+        }
+        return criteria.isEmpty() ? Collections.emptyMap() : Collections.unmodifiableMap(criteria);
+    }
+
+    /**
+     * Finds devices having all capability values of criteria. Starts from the smallest posting set.
+     *
+     * @param criteria Capability values devices have to match, not empty.
+     * @return Matching devices.
+     */
+    Set<DeviceSlot> match(Map<String, String> criteria) {
+        List<Set<DeviceSlot>> postings = new ArrayList<>(criteria.size());
+        for (Map.Entry<String, String> criterion : criteria.entrySet()) {
+            Set<DeviceSlot> posting = index.getOrDefault(criterion.getKey(), new ConcurrentHashMap<>())
+                                           .get(criterion.getValue());
+            if (posting == null) {
+                return Collections.emptySet();
+            }
+            postings.add(posting);
+        }
+        postings.sort(Comparator.comparingInt(Set::size));
+        Set<DeviceSlot> result = new HashSet<>(postings.get(0));
+        for (int i = 1; i < postings.size() && !result.isEmpty(); i++) {
+            result.retainAll(postings.get(i));
+        }
+        return result;
+    }
+
+    /**
+     * Checks whether device has all capability values of criteria.
+     *
+     * @param slot     Device slot.
+     * @param criteria Capability values device has to match.
+     * @return Is device matching.
+     */
+    static boolean matches(DeviceSlot slot, Map<String, String> criteria) {
+        Capabilities capabilities = slot.getDevice()
+                                        .getCapabilities();
+        for (Map.Entry<String, String> criterion : criteria.entrySet()) {
+            Object value = capabilities.getCapability(criterion.getKey());
+            if (value == null || !criterion.getValue()
+                                           .equals(String.valueOf(value))) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,38 @@
+package ru.vasilev.selenile;
+
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class DaemonThreadFactory implements ThreadFactory {
+    /**
+     * Prefix of thread names.
+     */
+    private final String namePrefix;
+
+    /**
+     * Count of created threads.
+     */
+    private final AtomicInteger counter = new AtomicInteger();
+
+    /**
+     * Creates factory of daemon threads that don't keep JVM alive.
+     *
+     * @param namePrefix Prefix of thread names.
+     */
+    public DaemonThreadFactory(String namePrefix) {
+        this.namePrefix = namePrefix;
+    }
+
+    /**
+     * Creates daemon thread.
+     *
+     * @param runnable Thread task.
+     * @return New thread.
+     */
+    @Override
+    public Thread newThread(Runnable runnable) {
+        Thread thread = new Thread(runnable, namePrefix + "-" + counter.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    }
+}
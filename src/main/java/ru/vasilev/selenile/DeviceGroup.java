@@ -0,0 +1,643 @@
+package ru.vasilev.selenile;
+
+import ru.vasilev.selenile.config.SelenileProperties;
+import ru.vasilev.selenile.selection.DeviceCandidate;
+import ru.vasilev.selenile.selection.DeviceSelectionStrategy;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+final class DeviceGroup {
+    /**
+     * Default maximum count of free devices selection strategy chooses among.
+     */
+    private static final int DEFAULT_SELECTION_CANDIDATES = 32;
+
+    /**
+     * Capabilities every device of group has.
+     */
+    private final Map<String, String> criteria;
+
+    /**
+     * Free devices of group. Queue may hold devices leased after queueing, such devices are skipped on polling.
+     */
+    private final ConcurrentLinkedQueue<Member> freeDevices = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Order of waiters: the earliest effective deadline first, arrival order among equal ones.
+     */
+    static final Comparator<Waiter> WAITER_ORDER = Comparator.<Waiter>comparingLong(waiter -> waiter.rank)
+                                                                     .thenComparingLong(waiter -> waiter.sequence);
+
+    /**
+     * Filter of devices nobody waits for in any of their groups. Requests not waiting yet take only such devices,
+     * so they can't overtake waiters of other groups sharing the device.
+     */
+    private static final Predicate<DeviceSlot> UNWAITED = slot -> !slot.hasWaiters();
+
+    /**
+     * Maximum count of free devices selection strategy chooses among. Set by system property
+     * {@code selectioncandidates}.
+     */
+    private static final int SELECTION_CANDIDATES = Math.max(1, SelenileProperties.getInt(
+            "selectioncandidates", DEFAULT_SELECTION_CANDIDATES));
+
+    /**
+     * Count of waiters in all groups, so release doesn't dispatch pool when nobody waits.
+     */
+    private static final AtomicInteger WAITING = new AtomicInteger();
+
+    /**
+     * Arrival counter of waiters.
+     */
+    private static final AtomicLong ARRIVALS = new AtomicLong();
+
+    /**
+     * Threads waiting for a device of group in order of their effective deadlines.
+     */
+    private final ConcurrentSkipListSet<Waiter> waiters = new ConcurrentSkipListSet<>(WAITER_ORDER);
+
+    /**
+     * Count of pooled devices of group.
+     */
+    private final AtomicInteger size = new AtomicInteger();
+
+    /**
+     * Creates empty group.
+     *
+     * @param criteria Capabilities every device of group has.
+     */
+    DeviceGroup(Map<String, String> criteria) {
+        this.criteria = criteria;
+    }
+
+    /**
+     * Gets capabilities every device of group has.
+     *
+     * @return Group criteria.
+     */
+    Map<String, String> getCriteria() {
+        return criteria;
+    }
+
+    /**
+     * Adds device into group.
+     *
+     * @param slot Device slot.
+     */
+    void join(DeviceSlot slot) {
+        Member member = new Member(this, slot);
+        slot.addMembership(member);
+        size.incrementAndGet();
+        if (slot.isFree()) {
+            member.offer();
+        }
+    }
+
+    /**
+     * Handles removing of device from pool.
+     */
+    void leave() {
+        size.decrementAndGet();
+    }
+
+    /**
+     * Gets count of pooled devices of group.
+     *
+     * @return Count of devices.
+     */
+    int size() {
+        return size.get();
+    }
+
+    /**
+     * Gets free device of group and marks it as leased. Device is chosen by selection strategy of pool,
+     * without strategy the device free for the longest time is taken. Devices some thread is waiting for
+     * in any of their groups are left to waiters.
+     *
+     * @param requester Class requesting device or {@code null} if it is unknown.
+     * @return Lease of device or {@code null} if all devices of group are used or waited for.
+     */
+    DeviceLease poll(String requester) {
+        List<DeviceLease> leases = poll(requester, 1);
+        return leases == null ? null : leases.get(0);
+    }
+
+    /**
+     * Gets free devices of group all at once. Devices some thread is waiting for in any of their groups
+     * are left to waiters.
+     *
+     * @param requester Class requesting devices or {@code null} if it is unknown.
+     * @param count     Count of devices.
+     * @return Leases of {@code count} devices or {@code null} if group has fewer devices nobody waits for.
+     */
+    List<DeviceLease> poll(String requester, int count) {
+        List<DeviceLease> leases;
+        do {
+            List<DeviceSlot> claimed = claim(requester, count, UNWAITED);
+            if (claimed == null) {
+                return null;
+            }
+            leases = open(claimed);
+        } while (leases == null);
+        return leases;
+    }
+
+    /**
+     * Marks free devices of group as leased all at once without leasing them yet, see {@link DeviceSlot#claim()}.
+     * Devices are chosen one by one by selection strategy of pool, without strategy the devices free for
+     * the longest time are taken.
+     *
+     * @param requester Class requesting devices or {@code null} if it is unknown.
+     * @param count     Count of devices.
+     * @param eligible  Filter of devices that may be taken.
+     * @return Claimed devices or {@code null} if group has fewer eligible free devices.
+     */
+    List<DeviceSlot> claim(String requester, int count, Predicate<DeviceSlot> eligible) {
+        if (count > 1 && !hasFree(count, eligible)) {
+            return null;
+        }
+        DeviceSelectionStrategy strategy = DevicePool.getSelectionStrategy();
+        List<DeviceSlot> claimed = new ArrayList<>(count);
+        try {
+            while (claimed.size() < count) {
+                DeviceSlot slot = strategy == null ? claimFirst(eligible)
+                                                   : claimSelected(strategy, requester, eligible);
+                if (slot == null) {
+                    unclaim(claimed);
+                    return null;
+                }
+                claimed.add(slot);
+            }
+        } catch (RuntimeException e) {
+            unclaim(claimed);
+            throw e;
+        }
+        return claimed;
+    }
+
+    /**
+     * Leases claimed devices. If some device is held by another process, it is marked as remote,
+     * the rest are returned to leasing. If lease coordinator fails, all devices are returned to leasing.
+     *
+     * @param claimed Claimed devices.
+     * @return Leases of devices or {@code null} if some device is held by another process.
+     */
+    static List<DeviceLease> open(List<DeviceSlot> claimed) {
+        for (int i = 0; i < claimed.size(); i++) {
+            final boolean acquired;
+            try {
+                acquired = claimed.get(i)
+                                  .acquire();
+            } catch (RuntimeException e) {
+                giveBack(claimed, i, true);
+                throw e;
+            }
+            if (!acquired) {
+                giveBack(claimed, i, false);
+                return null;
+            }
+        }
+        List<DeviceLease> leases = new ArrayList<>(claimed.size());
+        for (DeviceSlot slot : claimed) {
+            leases.add(slot.open());
+        }
+        return leases;
+    }
+
+    /**
+     * Returns devices to leasing when not all of them can be leased.
+     *
+     * @param claimed Claimed devices.
+     * @param failed  Index of device that failed to be acquired, devices before it are acquired.
+     * @param unclaim Return failed device to leasing too, it isn't marked as remote.
+     */
+    private static void giveBack(List<DeviceSlot> claimed, int failed, boolean unclaim) {
+        for (int i = 0; i < claimed.size(); i++) {
+            if (i < failed) {
+                claimed.get(i)
+                       .unacquire();
+            } else if (i > failed || unclaim) {
+                claimed.get(i)
+                       .unclaim();
+            }
+        }
+    }
+
+    /**
+     * Returns claimed devices to leasing.
+     *
+     * @param claimed Claimed devices.
+     */
+    static void unclaim(List<DeviceSlot> claimed) {
+        for (DeviceSlot slot : claimed) {
+            slot.unclaim();
+        }
+    }
+
+    /**
+     * Claims the first eligible free device of queue. Devices are popped from queue head, so device free
+     * for the longest time is taken at once when nobody waits. Leased devices met on the way are dropped,
+     * free devices that aren't eligible are placed back behind the rest.
+     *
+     * @param eligible Filter of devices that may be taken.
+     * @return Claimed device or {@code null} if group has no eligible free device.
+     */
+    private DeviceSlot claimFirst(Predicate<DeviceSlot> eligible) {
+        List<Member> skipped = null;
+        try {
+            Member member;
+            while ((member = freeDevices.poll()) != null) {
+                member.queued.set(false);
+                DeviceSlot slot = member.slot;
+                if (slot.isFree() && !eligible.test(slot)) {
+                    if (skipped == null) {
+                        skipped = new ArrayList<>();
+                    }
+                    skipped.add(member);
+                } else if (slot.claim()) {
+                    return slot;
+                } else if (slot.isFree()) {
+                    member.offer();
+                }
+            }
+            return null;
+        } finally {
+            if (skipped != null) {
+                for (Member member : skipped) {
+                    if (member.slot.isFree()) {
+                        member.offer();
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Claims eligible free device chosen by strategy. Strategy chooses among at most
+     * {@link #SELECTION_CANDIDATES} devices free for the longest time, so choice doesn't cost a pass over
+     * all free devices. If chosen device is taken concurrently, strategy chooses again among the rest.
+     *
+     * @param strategy  Selection strategy.
+     * @param requester Class requesting device or {@code null} if it is unknown.
+     * @param eligible  Filter of devices that may be taken.
+     * @return Claimed device or {@code null} if group has no eligible free device.
+     */
+    private DeviceSlot claimSelected(DeviceSelectionStrategy strategy, String requester,
+                                     Predicate<DeviceSlot> eligible) {
+        dropLeasedHead();
+        final long now = System.nanoTime();
+        List<Member> members = new ArrayList<>();
+        List<DeviceCandidate> candidates = new ArrayList<>();
+        for (Member member : freeDevices) {
+            DeviceSlot slot = member.slot;
+            if (slot.isFree() && eligible.test(slot)) {
+                members.add(member);
+                candidates.add(new DeviceCandidate(slot.getDevice(), slot.getIdleNanos(now), slot.getLeaseCount(),
+                                                   slot.getHubLeaseCount()));
+                if (candidates.size() == SELECTION_CANDIDATES) {
+                    break;
+                }
+            }
+        }
+        while (!candidates.isEmpty()) {
+            int index = indexOf(candidates, strategy.select(candidates, requester));
+            Member member = members.remove(index);
+            candidates.remove(index);
+            if (freeDevices.remove(member)) {
+                member.queued.set(false);
+                if (member.slot.claim()) {
+                    return member.slot;
+                }
+                if (member.slot.isFree()) {
+                    member.offer();
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Drops leased devices from queue head, so they aren't passed again by every selection.
+     */
+    private void dropLeasedHead() {
+        Member head;
+        while ((head = freeDevices.peek()) != null && !head.slot.isFree()) {
+            if (freeDevices.remove(head)) {
+                head.queued.set(false);
+                if (head.slot.isFree()) {
+                    head.offer();
+                }
+            }
+        }
+    }
+
+    /**
+     * Finds candidate chosen by strategy.
+     *
+     * @param candidates Candidates given to strategy.
+     * @param chosen     Chosen candidate.
+     * @return Index of chosen candidate.
+     */
+    private static int indexOf(List<DeviceCandidate> candidates, DeviceCandidate chosen) {
+        for (int i = 0; i < candidates.size(); i++) {
+            if (candidates.get(i) == chosen) {
+                return i;
+            }
+        }
+        throw new IllegalStateException("Selection strategy has chosen unknown device " + chosen);
+    }
+
+    /**
+     * Checks whether some thread is waiting for a device of group.
+     *
+     * @return Has group waiting threads.
+     */
+    boolean hasWaiters() {
+        return !waiters.isEmpty();
+    }
+
+    /**
+     * Registers new waiting thread. Waiters are served by rank: arrival time plus aging periods of priority class
+     * plus the time request can wait, which is its time left if it has deadline, but not more than one aging period.
+     * So at the same arrival higher classes are served first, deadline orders requests only within their class
+     * (earliest deadline first, deadlines further than one aging period don't matter) and can't lift request
+     * above higher class requests waiting with it, and request of lower class waiting long enough outranks new
+     * requests of higher ones.
+     *
+     * @param request    Device request.
+     * @param count      Count of devices waiter needs at once.
+     * @param agingNanos Aging period in nanoseconds.
+     * @return Future completed with leases of devices handed to waiter.
+     */
+    CompletableFuture<List<DeviceLease>> addWaiter(LeaseRequest request, int count, long agingNanos) {
+        long slack = agingNanos;
+        if (request.hasDeadline()) {
+            slack = Math.max(0, Math.min(slack, request.getTimeLeft(TimeUnit.NANOSECONDS)));
+        }
+        long rank = System.nanoTime() + request.getPriority()
+                                               .getAgingPeriods() * agingNanos + slack;
+        Waiter waiter = new Waiter(this, request.getRequester(), count, rank, ARRIVALS.incrementAndGet());
+        waiters.add(waiter);
+        WAITING.incrementAndGet();
+        return waiter;
+    }
+
+    /**
+     * Counts devices needed by waiters served before given one.
+     *
+     * @param waiter Registered waiter.
+     * @return Count of devices needed ahead.
+     */
+    int countDevicesAhead(CompletableFuture<List<DeviceLease>> waiter) {
+        if (!(waiter instanceof Waiter)) {
+            return 0;
+        }
+        int count = 0;
+        for (Waiter ahead : waiters.headSet((Waiter) waiter)) {
+            count += ahead.count;
+        }
+        return count;
+    }
+
+    /**
+     * Removes cancelled waiter.
+     *
+     * @param waiter Cancelled waiter.
+     */
+    void removeWaiter(CompletableFuture<List<DeviceLease>> waiter) {
+        if (waiters.remove(waiter)) {
+            WAITING.decrementAndGet();
+        }
+    }
+
+    /**
+     * Checks whether some thread is waiting for a device of any group.
+     *
+     * @return Has pool waiting threads.
+     */
+    static boolean hasAnyWaiters() {
+        return WAITING.get() > 0;
+    }
+
+    /**
+     * Gets waiters of group in {@link #WAITER_ORDER}.
+     *
+     * @return Weakly consistent iterator over waiters.
+     */
+    Iterator<Waiter> iterateWaiters() {
+        return waiters.iterator();
+    }
+
+    /**
+     * Checks whether group has enough eligible free devices, so devices aren't claimed and returned in vain.
+     *
+     * @param count    Count of devices.
+     * @param eligible Filter of devices that may be taken.
+     * @return Has group at least {@code count} eligible free devices.
+     */
+    private boolean hasFree(int count, Predicate<DeviceSlot> eligible) {
+        int free = 0;
+        for (Member member : freeDevices) {
+            if (member.slot.isFree() && eligible.test(member.slot) && ++free == count) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Adds eligible free devices of group to set, so waiters served later can't take them.
+     *
+     * @param reserved Reserved devices.
+     */
+    void reserveFree(Set<DeviceSlot> reserved) {
+        for (Member member : freeDevices) {
+            if (member.slot.isFree()) {
+                reserved.add(member.slot);
+            }
+        }
+    }
+
+    /**
+     * Gets string of the group criteria.
+     *
+     * @return String of the group criteria.
+     */
+    @Override
+    public String toString() {
+        return String.format("DeviceGroup%s", criteria);
+    }
+
+    static final class Waiter extends CompletableFuture<List<DeviceLease>> {
+        /**
+         * Group waiter is waiting in.
+         */
+        private final DeviceGroup group;
+
+        /**
+         * Class requesting device or {@code null} if it is unknown.
+         */
+        private final String requester;
+
+        /**
+         * Count of devices waiter needs at once.
+         */
+        private final int count;
+
+        /**
+         * Effective deadline in nanoseconds.
+         */
+        private final long rank;
+
+        /**
+         * Arrival number.
+         */
+        private final long sequence;
+
+        /**
+         * Is waiter taken by dispatcher or cancelled. Waiter taken by dispatcher can't be cancelled
+         * until dispatcher completes or returns it, so leases opened for it are never left unclaimed.
+         */
+        private final AtomicBoolean taken = new AtomicBoolean(false);
+
+        /**
+         * Creates waiter.
+         *
+         * @param group     Group waiter is waiting in.
+         * @param requester Class requesting device or {@code null} if it is unknown.
+         * @param count     Count of devices waiter needs at once.
+         * @param rank      Effective deadline in nanoseconds.
+         * @param sequence  Arrival number.
+         */
+        private Waiter(DeviceGroup group, String requester, int count, long rank, long sequence) {
+            this.group = group;
+            this.requester = requester;
+            this.count = count;
+            this.rank = rank;
+            this.sequence = sequence;
+        }
+
+        /**
+         * Gets group waiter is waiting in.
+         *
+         * @return Group of waiter.
+         */
+        DeviceGroup getGroup() {
+            return group;
+        }
+
+        /**
+         * Gets class requesting device.
+         *
+         * @return Class name of requester or {@code null} if it is unknown.
+         */
+        String getRequester() {
+            return requester;
+        }
+
+        /**
+         * Gets count of devices waiter needs at once.
+         *
+         * @return Count of devices.
+         */
+        int getCount() {
+            return count;
+        }
+
+        /**
+         * Takes waiter for serving, so it can't be cancelled meanwhile.
+         *
+         * @return {@code false} if waiter is cancelled or taken by another thread.
+         */
+        boolean take() {
+            return taken.compareAndSet(false, true);
+        }
+
+        /**
+         * Returns waiter that can't be served yet, so it can be served or cancelled again.
+         */
+        void untake() {
+            taken.set(false);
+        }
+
+        /**
+         * Completes waiter taken for serving and removes it from its group.
+         *
+         * @param leases Leases of devices handed to waiter.
+         */
+        void serve(List<DeviceLease> leases) {
+            group.removeWaiter(this);
+            complete(leases);
+        }
+
+        /**
+         * Cancels waiter unless it is taken for serving.
+         *
+         * @param mayInterruptIfRunning Ignored.
+         * @return {@code true} if waiter is cancelled.
+         */
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            return taken.compareAndSet(false, true) && super.cancel(mayInterruptIfRunning);
+        }
+    }
+
+    static final class Member {
+        /**
+         * Device slot.
+         */
+        private final DeviceSlot slot;
+
+        /**
+         * Is device placed in free devices queue of group. Prevents the queue from holding the same device twice.
+         */
+        private final AtomicBoolean queued = new AtomicBoolean(false);
+
+        /**
+         * Group of member.
+         */
+        private final DeviceGroup group;
+
+        /**
+         * Creates member of group.
+         *
+         * @param group Group of member.
+         * @param slot  Device slot.
+         */
+        private Member(DeviceGroup group, DeviceSlot slot) {
+            this.group = group;
+            this.slot = slot;
+        }
+
+        /**
+         * Gets group of member.
+         *
+         * @return Group of member.
+         */
+        DeviceGroup getGroup() {
+            return group;
+        }
+
+        /**
+         * Places device into free devices queue of group if it isn't there yet.
+         */
+        void offer() {
+            if (queued.compareAndSet(false, true)) {
+                group.freeDevices.offer(this);
+            }
+        }
+    }
+}
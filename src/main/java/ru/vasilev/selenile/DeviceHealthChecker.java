@@ -0,0 +1,179 @@
+package ru.vasilev.selenile;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import ru.vasilev.selenile.device.Device;
+import ru.vasilev.selenile.metrics.LifecycleEvent;
+import ru.vasilev.selenile.metrics.LifecycleEvents;
+import ru.vasilev.selenile.metrics.PoolMetrics;
+
+import java.io.Closeable;
+import java.net.URL;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+public class DeviceHealthChecker implements Closeable {
+    /**
+     * Multi thread driver logger.
+     */
+    protected static final Logger LOGGER = LogManager.getLogger("MobileDriverParallel");
+
+    /**
+     * Probe of hubs status.
+     */
+    private final HubStatusProbe probe;
+
+    /**
+     * Checking scheduler.
+     */
+    private final ScheduledExecutorService scheduler;
+
+    /**
+     * Executor of emulator restarts, so that long restart doesn't hold checks of other devices.
+     */
+    private final ExecutorService restarts;
+
+    /**
+     * Devices whose emulators are being restarted or wait for restart.
+     */
+    private final Set<Device> restarting = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Creates checker.
+     *
+     * @param probe              Probe of hubs status.
+     * @param restartParallelism Count of emulators restarted at once.
+     */
+    DeviceHealthChecker(HubStatusProbe probe, int restartParallelism) {
+        if (restartParallelism < 1) {
+            throw new IllegalArgumentException("Wrong emulator restart parallelism: " + restartParallelism);
+        }
+        this.probe = probe;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(new DaemonThreadFactory("device-health-checker"));
+        this.restarts = new ThreadPoolExecutor(restartParallelism, restartParallelism, 0L, TimeUnit.MILLISECONDS,
+                                               new LinkedBlockingQueue<>(),
+                                               new DaemonThreadFactory("device-health-restart"));
+    }
+
+    /**
+     * Starts checking free and quarantined devices every {@code interval}.
+     *
+     * @param interval Period of checks.
+     * @param unit     Time unit of {@code interval}.
+     */
+    void start(long interval, TimeUnit unit) {
+        scheduler.scheduleWithFixedDelay(this::checkSafely, 0, interval, unit);
+        LOGGER.info("Device health checks every {} {}", interval, unit.toString()
+                                                                        .toLowerCase());
+    }
+
+    /**
+     * Checks free and quarantined devices once. Leased devices are checked after release.
+     * Every hub is requested once per check. Free unhealthy device is quarantined,
+     * its emulator is restarted in background if hub is healthy. Quarantined healthy device is restored,
+     * unless it is suspended by {@link DevicePool#suspend(DeviceLease, long, TimeUnit)}.
+     * Devices being restarted are skipped until restart is finished.
+     */
+    public void check() {
+        Map<URL, Boolean> hubs = new HashMap<>();
+        for (DeviceSlot slot : DevicePool.getSlots()) {
+            if (!slot.isFree() && !slot.isQuarantined()) {
+                continue;
+            }
+            Device device = slot.getDevice();
+            if (restarting.contains(device)) {
+                continue;
+            }
+            boolean hubHealthy = hubs.computeIfAbsent(device.getUrlHub(), probe::isHealthy);
+            boolean healthy = hubHealthy && isResponsive(device);
+            if (healthy) {
+                if (slot.isQuarantined() && !slot.isSuspended() && DevicePool.restore(slot)) {
+                    LOGGER.info("Device {} passed health check and is back in pool", device.getDeviceName());
+                }
+                continue;
+            }
+            if (!slot.quarantine()) {
+                continue;
+            }
+            PoolMetrics.increment(PoolMetrics.QUARANTINES);
+            LifecycleEvents.record(LifecycleEvent.Type.QUARANTINE, device, 0,
+                                   hubHealthy ? "device isn't healthy" : "hub isn't healthy");
+            LOGGER.warn("Device {} is quarantined: {} isn't healthy", device.getDeviceName(),
+                        hubHealthy ? "device" : "hub " + device.getUrlHub());
+            if (hubHealthy) {
+                restart(device);
+            }
+        }
+    }
+
+    /**
+     * Stops checking. Started emulator restarts are finished.
+     */
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+        restarts.shutdown();
+    }
+
+    /**
+     * Checks devices and logs unexpected errors, so that scheduling isn't stopped.
+     */
+    private void checkSafely() {
+        try {
+            check();
+        } catch (RuntimeException e) {
+            LOGGER.error("Device health check error", e);
+        }
+    }
+
+    /**
+     * Checks whether device answers.
+     *
+     * @param device Device for checking.
+     * @return Is device responsive.
+     */
+    private static boolean isResponsive(Device device) {
+        try {
+            return device.isResponsive();
+        } catch (RuntimeException e) {
+            LOGGER.debug("Device {} check error {}", device.getDeviceName(), e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Restarts emulator of quarantined device in background, device is restarted once at a time.
+     * Device is restored by the next successful check after restart.
+     *
+     * @param device Quarantined device.
+     */
+    private void restart(Device device) {
+        if (!restarting.add(device)) {
+            return;
+        }
+        try {
+            restarts.execute(() -> {
+                try {
+                    synchronized (device) {
+                        device.restartEmulator();
+                    }
+                } catch (RuntimeException e) {
+                    LOGGER.error("Device {} restart error {}", device.getDeviceName(), e.getMessage());
+                } finally {
+                    restarting.remove(device);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            restarting.remove(device);
+        }
+    }
+}
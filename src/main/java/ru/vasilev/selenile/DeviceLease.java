@@ -0,0 +1,356 @@
+package ru.vasilev.selenile;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import ru.vasilev.selenile.device.Device;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+public final class DeviceLease implements AutoCloseable {
+    /**
+     * Multi thread driver logger.
+     */
+    private static final Logger LOGGER = LogManager.getLogger("MobileDriverParallel");
+
+    /**
+     * Lease bound to code running now. Binding is set for a task or by {@link #attach()},
+     * so lease doesn't depend on thread that took device.
+     */
+    private static final ThreadLocal<DeviceLease> CURRENT = new ThreadLocal<>();
+
+    /**
+     * Leased device slot.
+     */
+    private final DeviceSlot slot;
+
+    /**
+     * Is device returned into pool.
+     */
+    private final AtomicBoolean closed = new AtomicBoolean(false);
+
+    /**
+     * Acquisition time in nanoseconds.
+     */
+    private final long acquiredAt = System.nanoTime();
+
+    /**
+     * Acquisition wall clock time.
+     */
+    private final Instant acquiredInstant = Instant.now();
+
+    /**
+     * Thread acquired lease or attached it the last time.
+     */
+    private volatile Thread holder;
+
+    /**
+     * Class requested device or {@code null} if it is unknown.
+     */
+    private volatile String requester;
+
+    /**
+     * Stack of lease acquisition, captured if system property {@code leasecapturestack} is true.
+     */
+    private volatile Throwable acquisitionStack;
+
+    /**
+     * Handler closing session of lease when lease is reclaimed.
+     */
+    private volatile Runnable reclamationHandler;
+
+    /**
+     * Creates lease of device slot.
+     *
+     * @param slot Leased device slot.
+     */
+    DeviceLease(DeviceSlot slot) {
+        this.slot = slot;
+    }
+
+    /**
+     * Gets lease bound to current task.
+     *
+     * @return Current lease or {@code null} if no open lease is bound.
+     */
+    public static DeviceLease current() {
+        DeviceLease lease = CURRENT.get();
+        if (lease != null && lease.isClosed()) {
+            CURRENT.remove();
+            return null;
+        }
+        return lease;
+    }
+
+    /**
+     * Gets leased device.
+     *
+     * @return Leased device.
+     */
+    public Device getDevice() {
+        return slot.getDevice();
+    }
+
+    /**
+     * Checks whether device is returned into pool.
+     *
+     * @return Is lease closed.
+     */
+    public boolean isClosed() {
+        return closed.get();
+    }
+
+    /**
+     * Returns device into pool. Repeated calls do nothing. Lease may be closed from any thread.
+     */
+    @Override
+    public void close() {
+        if (closed.compareAndSet(false, true)) {
+            DevicePool.release(this);
+        }
+    }
+
+    /**
+     * Binds lease to current thread until another lease is attached or this one is closed.
+     * Current thread becomes lease holder. Prefer {@link #run(Runnable)} or wrappers for tasks moving between threads.
+     */
+    public void attach() {
+        holder = Thread.currentThread();
+        CURRENT.set(this);
+    }
+
+    /**
+     * Gets time since lease acquisition.
+     *
+     * @param unit Time unit of result.
+     * @return Lease age.
+     */
+    public long getAge(TimeUnit unit) {
+        return unit.convert(System.nanoTime() - acquiredAt, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Gets acquisition wall clock time.
+     *
+     * @return Acquisition time.
+     */
+    public Instant getAcquiredAt() {
+        return acquiredInstant;
+    }
+
+    /**
+     * Gets thread acquired lease or attached it the last time.
+     *
+     * @return Holder thread or {@code null} if lease isn't handed to a thread yet.
+     */
+    public Thread getHolder() {
+        return holder;
+    }
+
+    /**
+     * Gets class requested device.
+     *
+     * @return Class name or {@code null} if it is unknown.
+     */
+    public String getRequester() {
+        return requester;
+    }
+
+    /**
+     * Gets stack of lease acquisition.
+     *
+     * @return Stack or {@code null} if it isn't captured.
+     */
+    public StackTraceElement[] getAcquisitionStack() {
+        Throwable stack = acquisitionStack;
+        return stack == null ? null : stack.getStackTrace();
+    }
+
+    /**
+     * Sets handler closing session of lease when lease is reclaimed by pool.
+     * Handler isn't called when lease is closed by its holder.
+     *
+     * @param handler Reclamation handler or {@code null}.
+     */
+    public void onReclaim(Runnable handler) {
+        reclamationHandler = handler;
+    }
+
+    /**
+     * Records lease acquisition by current thread.
+     *
+     * @param requester    Class requested device or {@code null} if it is unknown.
+     * @param captureStack Capture acquisition stack.
+     */
+    void acquired(String requester, boolean captureStack) {
+        this.holder = Thread.currentThread();
+        this.requester = requester;
+        if (captureStack) {
+            acquisitionStack = new Throwable("Device lease acquisition");
+        }
+    }
+
+    /**
+     * Marks lease as closed without returning device, so device can be returned in another way.
+     *
+     * @return {@code true} if lease was open.
+     */
+    boolean markClosed() {
+        return closed.compareAndSet(false, true);
+    }
+
+    /**
+     * Takes device back from holder: runs reclamation handler and closes lease.
+     *
+     * @return {@code true} if lease was open.
+     */
+    boolean reclaim() {
+        if (isClosed()) {
+            return false;
+        }
+        Runnable handler = reclamationHandler;
+        if (handler != null) {
+            try {
+                handler.run();
+            } catch (RuntimeException e) {
+                LOGGER.warn("Session of {} closing error {}", this, e.getMessage());
+            }
+        }
+        if (!closed.compareAndSet(false, true)) {
+            return false;
+        }
+        DevicePool.release(this);
+        return true;
+    }
+
+    /**
+     * Describes lease for leak reports: device, age, holder, requester and acquisition stack if it is captured.
+     *
+     * @return Lease description.
+     */
+    public String describe() {
+        Thread currentHolder = holder;
+        StringBuilder description = new StringBuilder(String.format(
+                "Device %s is leased for %d s since %s by thread %s, requester %s",
+                getDevice().getDeviceName(), getAge(TimeUnit.SECONDS), acquiredInstant,
+                currentHolder == null ? "unknown" : currentHolder.getName()
+                        + (currentHolder.isAlive() ? "" : " (finished)"),
+                requester == null ? "unknown" : requester));
+        StackTraceElement[] stack = getAcquisitionStack();
+        if (stack != null) {
+            description.append(System.lineSeparator())
+                       .append("Acquired at:");
+            int first = 0;
+            while (first < stack.length - 1 && isPoolFrame(stack[first])) {
+                first++;
+            }
+            for (StackTraceElement element : Arrays.copyOfRange(stack, first, stack.length)) {
+                description.append(System.lineSeparator())
+                           .append("\tat ")
+                           .append(element);
+            }
+        }
+        return description.toString();
+    }
+
+    /**
+     * Runs task with lease bound as current one. Previous binding is restored after task.
+     *
+     * @param task Task for running.
+     */
+    public void run(Runnable task) {
+        DeviceLease previous = CURRENT.get();
+        CURRENT.set(this);
+        try {
+            task.run();
+        } finally {
+            restore(previous);
+        }
+    }
+
+    /**
+     * Gets result of task with lease bound as current one. Previous binding is restored after task.
+     *
+     * @param task Task for running.
+     * @param <T>  Result type.
+     * @return Task result.
+     */
+    public <T> T get(Supplier<T> task) {
+        DeviceLease previous = CURRENT.get();
+        CURRENT.set(this);
+        try {
+            return task.get();
+        } finally {
+            restore(previous);
+        }
+    }
+
+    /**
+     * Wraps task so that lease is current one on whatever thread task runs:
+     * executors, {@code CompletableFuture} stages or virtual threads.
+     *
+     * @param task Task for wrapping.
+     * @return Wrapped task.
+     */
+    public Runnable wrapRunnable(Runnable task) {
+        return () -> run(task);
+    }
+
+    /**
+     * Wraps task so that lease is current one on whatever thread task runs.
+     *
+     * @param task Task for wrapping.
+     * @param <T>  Result type.
+     * @return Wrapped task.
+     */
+    public <T> Supplier<T> wrapSupplier(Supplier<T> task) {
+        return () -> get(task);
+    }
+
+    /**
+     * Gets leased device slot.
+     *
+     * @return Leased device slot.
+     */
+    DeviceSlot getSlot() {
+        return slot;
+    }
+
+    /**
+     * Restores previous binding.
+     *
+     * @param previous Lease bound before task or {@code null}.
+     */
+    private static void restore(DeviceLease previous) {
+        if (previous == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(previous);
+        }
+    }
+
+    /**
+     * Checks whether stack frame belongs to pool internals.
+     *
+     * @param element Stack frame.
+     * @return Is frame of lease or pool.
+     */
+    private static boolean isPoolFrame(StackTraceElement element) {
+        return element.getClassName()
+                      .equals(DeviceLease.class.getName()) || element.getClassName()
+                                                                     .equals(DevicePool.class.getName());
+    }
+
+    /**
+     * Gets string of the lease.
+     *
+     * @return String of the lease.
+     */
+    @Override
+    public String toString() {
+        return String.format("DeviceLease{device='%s', closed=%s}", getDevice().getDeviceName(), isClosed());
+    }
+}
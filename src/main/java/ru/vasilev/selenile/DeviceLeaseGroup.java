@@ -0,0 +1,85 @@
+package ru.vasilev.selenile;
+
+import ru.vasilev.selenile.device.Device;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+public final class DeviceLeaseGroup implements AutoCloseable, Iterable<DeviceLease> {
+    /**
+     * Leases granted together.
+     */
+    private final List<DeviceLease> leases;
+
+    /**
+     * Creates group of leases granted together.
+     *
+     * @param leases Leases.
+     */
+    DeviceLeaseGroup(List<DeviceLease> leases) {
+        this.leases = Collections.unmodifiableList(new ArrayList<>(leases));
+    }
+
+    /**
+     * Gets leases of group.
+     *
+     * @return Unmodifiable list of leases.
+     */
+    public List<DeviceLease> getLeases() {
+        return leases;
+    }
+
+    /**
+     * Gets leased devices.
+     *
+     * @return Devices in order of leases.
+     */
+    public List<Device> getDevices() {
+        List<Device> devices = new ArrayList<>(leases.size());
+        for (DeviceLease lease : leases) {
+            devices.add(lease.getDevice());
+        }
+        return devices;
+    }
+
+    /**
+     * Gets count of leased devices.
+     *
+     * @return Count of devices.
+     */
+    public int size() {
+        return leases.size();
+    }
+
+    /**
+     * Gets iterator over leases of group.
+     *
+     * @return Iterator.
+     */
+    @Override
+    public Iterator<DeviceLease> iterator() {
+        return leases.iterator();
+    }
+
+    /**
+     * Returns all devices into pool. Leases closed before are skipped, repeated calls do nothing.
+     */
+    @Override
+    public void close() {
+        for (DeviceLease lease : leases) {
+            lease.close();
+        }
+    }
+
+    /**
+     * Gets string of the leases.
+     *
+     * @return String of the leases.
+     */
+    @Override
+    public String toString() {
+        return String.format("DeviceLeaseGroup%s", leases);
+    }
+}
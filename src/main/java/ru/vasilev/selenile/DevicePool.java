@@ -1,25 +1,44 @@
 package ru.vasilev.selenile;
 
-import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
 import com.google.gson.JsonIOException;
 import com.google.gson.JsonSyntaxException;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
-import org.openqa.selenium.remote.DesiredCapabilities;
+import org.openqa.selenium.Capabilities;
 import ru.vasilev.selenile.config.NodeConfig;
-import ru.vasilev.selenile.deserializer.CapabilityDeserializer;
+import ru.vasilev.selenile.config.NodeConfigLoader;
+import ru.vasilev.selenile.config.NodeConfigSnapshot;
+import ru.vasilev.selenile.config.SelenileProperties;
 import ru.vasilev.selenile.device.AndroidDevice;
 import ru.vasilev.selenile.device.Device;
 import ru.vasilev.selenile.device.IOSDevice;
 import ru.vasilev.selenile.driver.MobileDriverProvider;
+import ru.vasilev.selenile.driver.SessionPool;
+import ru.vasilev.selenile.metrics.DeviceStats;
+import ru.vasilev.selenile.metrics.HistogramSnapshot;
+import ru.vasilev.selenile.metrics.LifecycleEvent;
+import ru.vasilev.selenile.metrics.LifecycleEvents;
+import ru.vasilev.selenile.metrics.PoolMetrics;
+import ru.vasilev.selenile.selection.AffinityStrategy;
+import ru.vasilev.selenile.selection.DeviceSelectionStrategy;
+import ru.vasilev.selenile.selection.LeastLoadedHubStrategy;
+import ru.vasilev.selenile.selection.LeastRecentlyUsedStrategy;
 
 import java.io.File;
-import java.io.FileReader;
 import java.io.IOException;
-import java.io.Reader;
+import java.net.MalformedURLException;
+import java.net.URL;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 
 public abstract class DevicePool {
     /**
@@ -33,9 +52,63 @@ public abstract class DevicePool {
     private static final String NODES_CONFIG_PATH = "./src/test/resources/node-config/";
 
     /**
-     * Devices pool with availability flags.
+     * Default directory of pool snapshots.
      */
-    private static final ConcurrentHashMap<Device, Boolean> POOL = new ConcurrentHashMap<>();
+    private static final String POOL_SNAPSHOT_PATH = "./target/selenile";
+
+    /**
+     * Devices pool with availability states.
+     */
+    private static final ConcurrentHashMap<Device, DeviceSlot> POOL = new ConcurrentHashMap<>();
+
+    /**
+     * Inverted index of device capabilities.
+     */
+    private static final CapabilityIndex INDEX = new CapabilityIndex();
+
+    /**
+     * Group of all pooled devices.
+     */
+    private static final DeviceGroup ALL_DEVICES = new DeviceGroup(Collections.emptyMap());
+
+    /**
+     * Dispatcher handing free devices to waiting threads of all groups.
+     */
+    private static final LeaseDispatcher DISPATCHER = new LeaseDispatcher(ALL_DEVICES);
+
+    /**
+     * Device groups by matching criteria. Group is created on the first request with its criteria.
+     */
+    private static final ConcurrentHashMap<Map<String, String>, DeviceGroup> GROUPS = new ConcurrentHashMap<>();
+
+    /**
+     * Lock guarding changes of pool structure: adding devices, indexing and creating groups.
+     * Leasing and releasing don't use it.
+     */
+    private static final Object STRUCTURE_LOCK = new Object();
+
+    /**
+     * Count of sessions pooled devices accept at once by hub: sum of their {@code maxInstances}.
+     * Changed with pool structure, so that session throttling doesn't scan pool.
+     */
+    private static final ConcurrentHashMap<String, AtomicInteger> HUB_CAPACITIES = new ConcurrentHashMap<>();
+
+    /**
+     * Lock guarding changes of node configuration files mapping.
+     */
+    private static final Object FILES_LOCK = new Object();
+
+    /**
+     * Devices by absolute path of their node configuration file.
+     */
+    private static final ConcurrentHashMap<String, Device> DEVICE_FILES = new ConcurrentHashMap<>();
+
+    /**
+     * Node configurations loader.
+     */
+    private static final NodeConfigLoader LOADER = new NodeConfigLoader(
+            SelenileProperties.getInt("nodeconfigthreads", Runtime.getRuntime()
+                                                                  .availableProcessors()));
 
     /**
      * Devices allowed for using.
@@ -47,6 +120,107 @@ public abstract class DevicePool {
      */
     private static boolean poolIsReady = false;
 
+    /**
+     * Watcher of node configurations directory. Started if system property {@code nodeconfigwatch} is true.
+     */
+    private static NodeConfigWatcher watcher;
+
+    /**
+     * Default timeout of hub status request in milliseconds.
+     */
+    private static final int DEFAULT_HEALTH_CHECK_TIMEOUT = 5000;
+
+    /**
+     * Default count of emulators restarted by health checks at once.
+     */
+    private static final int DEFAULT_HEALTH_CHECK_RESTARTS = 2;
+
+    /**
+     * Default period in milliseconds of checking devices held by other processes.
+     */
+    private static final long DEFAULT_LEASE_POLL_INTERVAL = 500;
+
+    /**
+     * Coordinator of leases between processes sharing devices. Set by system property {@code leasecoordinator}:
+     * {@code local} (default) for single process, {@code file} for lock files in directory {@code leasedir}.
+     */
+    private static final LeaseCoordinator COORDINATOR = createCoordinator();
+
+    /**
+     * Default count of devices booting at once during pre-warm.
+     */
+    private static final int DEFAULT_PREWARM_CONCURRENCY = 4;
+
+    /**
+     * Default time in seconds to wait for device boot during pre-warm.
+     */
+    private static final long DEFAULT_PREWARM_TIMEOUT = 300;
+
+    /**
+     * Booter of added devices. Created if system property {@code prewarm} is true.
+     */
+    private static final DevicePrewarmer PREWARMER = SelenileProperties.getBoolean("prewarm", false)
+            ? new DevicePrewarmer(SelenileProperties.getInt("prewarmconcurrency", DEFAULT_PREWARM_CONCURRENCY),
+                                  SelenileProperties.getLong("emulatorboottimeout", DEFAULT_PREWARM_TIMEOUT),
+                                  TimeUnit.SECONDS)
+            : null;
+
+    /**
+     * Packages of framework and library classes skipped while looking for class requesting device.
+     */
+    private static final String[] FRAMEWORK_PACKAGES = {"ru.vasilev.selenile.", "java.", "javax.", "jdk.", "sun.",
+            "org.openqa.", "io.appium.", "com.codeborne.", "org.junit.", "junit.", "org.testng.", "org.apache.maven.",
+            "org.gradle.", "com.intellij."};
+
+    /**
+     * Strategy choosing free device for request, {@code null} takes the device free for the longest time.
+     */
+    private static volatile DeviceSelectionStrategy selectionStrategy = createSelectionStrategy(
+            SelenileProperties.getString("deviceselection", "fifo"));
+
+    /**
+     * Count of default aging periods in device waiting timeout.
+     */
+    private static final long LEASE_AGING_PERIODS_PER_WAIT = 4;
+
+    /**
+     * Aging period of waiting requests in nanoseconds: request waiting so long outranks new request of the next
+     * higher priority class. Set in seconds by system property {@code leaseagingperiod}, by default it is a quarter
+     * of device waiting timeout {@code devicewaittimeout}, so normal request outranks new high priority ones after
+     * a quarter of the timeout and low one after half of it. Aging period not shorter than waiting timeout
+     * starves lower classes: their requests time out before they outrank new requests of higher ones.
+     * Deadline of request shorter than aging period orders it within its class, see {@link LeaseRequest}.
+     */
+    private static final long LEASE_AGING_PERIOD = TimeUnit.SECONDS.toNanos(SelenileProperties.getLong(
+            "leaseagingperiod",
+            Math.max(1, MobileDriverProvider.getDeviceWaitTimeout() / LEASE_AGING_PERIODS_PER_WAIT)));
+
+    /**
+     * Count of finished leases needed to estimate waiting time of request with deadline.
+     */
+    private static final long MIN_LEASE_SAMPLES = 10;
+
+    /**
+     * Is stack of every lease acquisition captured for leak reports. Set by system property {@code leasecapturestack}.
+     */
+    private static final boolean CAPTURE_LEASE_STACK = SelenileProperties.getBoolean("leasecapturestack", false);
+
+    /**
+     * Reclaimer of expired leases. Started if system property {@code leasemaxduration} is positive.
+     */
+    private static LeaseReaper leaseReaper;
+
+    /**
+     * Scheduler returning suspended devices to leasing.
+     */
+    private static final ScheduledExecutorService SUSPENSIONS = Executors.newSingleThreadScheduledExecutor(
+            new DaemonThreadFactory("device-suspension"));
+
+    /**
+     * Background checker of devices health. Started if system property {@code healthcheckinterval} is positive.
+     */
+    private static DeviceHealthChecker healthChecker;
+
     /**
      * Private constructor
      */
@@ -55,93 +229,1039 @@ public abstract class DevicePool {
 
     /**
      * Prepares devices pool. Reads all configurations and creates {@link Device}s.
+     * Configurations are read in background, method returns as soon as the first device is in pool.
+     * If system property {@code nodeconfigwatch} is true, pool follows changes of configurations directory.
+     * If system property {@code healthcheckinterval} is positive, devices are checked every so many seconds.
+     * If system property {@code prewarm} is true, devices are booted in background, {@code prewarmconcurrency}
+     * at once (4 by default), and can be leased only when boot is finished.
+     * System property {@code deviceselection} sets how free device is chosen: {@code fifo} (default),
+     * {@code lru}, {@code hub}, {@code affinity} or class name of {@link DeviceSelectionStrategy}.
+     * Parsed configurations are cached in pool snapshot in directory {@code poolsnapshotdir}
+     * ({@code ./target/selenile} by default) and read from it while configuration files aren't changed.
+     * Snapshot is turned off by system property {@code poolsnapshot=false}.
+     * If system property {@code leasemaxduration} is positive, leases held longer than so many seconds
+     * are reclaimed with their sessions and reported as leaks.
      */
     public static synchronized void prepareDevicesPool() {
         if (poolIsReady) {
             return;
         }
         getUsedEmulatorsList();
-        String filePath = getNodeFilesPath();
-        File[] nodeConfigFiles = (new File(filePath)).listFiles((dir, name) -> name.toLowerCase()
-                                                                                   .endsWith(".json"));
-        for (File nodeConfigFile : Objects.requireNonNull(nodeConfigFiles)) {
-            LOGGER.info("Node config file processing:{}{}", filePath, nodeConfigFile.getAbsolutePath());
-            try (Reader nodeConfigFileReader = new FileReader(nodeConfigFile)) {
-                final Gson gson = new GsonBuilder().registerTypeAdapter(DesiredCapabilities.class,
-                                                                        new CapabilityDeserializer())
-                                                   .create();
-                NodeConfig nodeConfig = gson.fromJson(nodeConfigFileReader, NodeConfig.class);
-                LOGGER.info("Node configuration:{}", nodeConfig);
-                LOGGER.info("Selenium grid hub: {}", nodeConfig.getHubConfiguration());
-                Device device;
-                switch (MobileDriverProvider.getMobileSystemType()) {
-                    case IOS:
-                        device = new IOSDevice(nodeConfig);
-                        break;
-                    case ANDROID:
-                        device = new AndroidDevice(nodeConfig);
-                        break;
-                    default:
-                        continue;
+        final File directory = new File(getNodeFilesPath());
+        if (SelenileProperties.getBoolean("nodeconfigwatch", false)) {
+            watcher = NodeConfigWatcher.start(directory);
+        }
+        final long healthCheckInterval = SelenileProperties.getLong("healthcheckinterval", 0);
+        if (healthCheckInterval > 0) {
+            startHealthChecks(healthCheckInterval, TimeUnit.SECONDS);
+        }
+        final long leaseMaxDuration = SelenileProperties.getLong("leasemaxduration", 0);
+        if (leaseMaxDuration > 0) {
+            startLeaseReaper(leaseMaxDuration, TimeUnit.SECONDS);
+        }
+        final NodeConfigSnapshot snapshot = SelenileProperties.getBoolean("poolsnapshot", true)
+                ? new NodeConfigSnapshot(new File(SelenileProperties.getString("poolsnapshotdir", POOL_SNAPSHOT_PATH),
+                                                  "pool-" + directory.getName() + ".bin"))
+                : null;
+        final CompletableFuture<Device> firstDevice = new CompletableFuture<>();
+        final CompletableFuture<Void> loading = snapshot == null
+                ? loadDevicesAsync(directory, firstDevice::complete)
+                : loadDevicesAsync(directory, snapshot, firstDevice::complete);
+        loading.whenComplete((result, e) -> LOGGER.info("Node configurations are loaded. {}", POOL.keySet()));
+        try {
+            CompletableFuture.anyOf(firstDevice, loading)
+                             .join();
+        } catch (CompletionException e) {
+            throw new IllegalStateException("Node configurations loading failed", e.getCause());
+        }
+        if (POOL.size() == 0) {
+            throw new IllegalStateException("Pool is empty");
+        }
+        LOGGER.info("Pool is ready to work.");
+        poolIsReady = true;
+    }
+
+    /**
+     * Stops following changes of node configurations directory.
+     */
+    public static synchronized void stopWatching() {
+        if (watcher == null) {
+            return;
+        }
+        try {
+            watcher.close();
+        } catch (IOException e) {
+            LOGGER.error("Node configurations watcher closing error {}", e.getMessage());
+        }
+        watcher = null;
+    }
+
+    /**
+     * Starts background health checks of free devices. Device whose hub doesn't answer {@code /status}
+     * or which isn't responsive is quarantined and can't be leased until it passes a check.
+     * Hub status timeout is set in milliseconds by system property {@code healthchecktimeout}.
+     * Emulators of quarantined devices are restarted in background, {@code healthcheckrestarts} at once
+     * (2 by default).
+     *
+     * @param interval Period of checks.
+     * @param unit     Time unit of {@code interval}.
+     */
+    public static synchronized void startHealthChecks(long interval, TimeUnit unit) {
+        stopHealthChecks();
+        healthChecker = new DeviceHealthChecker(new HubStatusProbe(
+                SelenileProperties.getInt("healthchecktimeout", DEFAULT_HEALTH_CHECK_TIMEOUT)),
+                SelenileProperties.getInt("healthcheckrestarts", DEFAULT_HEALTH_CHECK_RESTARTS));
+        healthChecker.start(interval, unit);
+    }
+
+    /**
+     * Stops background health checks. Quarantined devices stay quarantined.
+     */
+    public static synchronized void stopHealthChecks() {
+        if (healthChecker != null) {
+            healthChecker.close();
+            healthChecker = null;
+        }
+    }
+
+    /**
+     * Starts background reclaiming of leases held longer than {@code maxDuration}. Session of reclaimed lease
+     * is closed, device is returned into pool and lease is reported as leak with its holder, requester
+     * and acquisition stack if system property {@code leasecapturestack} is true.
+     *
+     * @param maxDuration Maximum lease duration.
+     * @param unit        Time unit of {@code maxDuration}.
+     */
+    public static synchronized void startLeaseReaper(long maxDuration, TimeUnit unit) {
+        stopLeaseReaper();
+        leaseReaper = new LeaseReaper(maxDuration, unit);
+        leaseReaper.start();
+    }
+
+    /**
+     * Stops background reclaiming of leases.
+     */
+    public static synchronized void stopLeaseReaper() {
+        if (leaseReaper != null) {
+            leaseReaper.close();
+            leaseReaper = null;
+        }
+    }
+
+    /**
+     * Gets open leases of all pooled devices.
+     *
+     * @return Open leases.
+     */
+    public static List<DeviceLease> getOpenLeases() {
+        List<DeviceLease> leases = new ArrayList<>();
+        for (DeviceSlot slot : POOL.values()) {
+            DeviceLease lease = slot.getLease();
+            if (lease != null && !lease.isClosed()) {
+                leases.add(lease);
+            }
+        }
+        return leases;
+    }
+
+    /**
+     * Reads all configurations from {@code directory} and adds allowed {@link Device}s into pool.
+     * Devices that pool has yet are not replaced.
+     *
+     * @param directory Directory with node configurations.
+     */
+    public static void loadDevices(File directory) {
+        loadDevicesAsync(directory, device -> {
+        }).join();
+    }
+
+    /**
+     * Reads all configurations from {@code directory} in parallel and adds allowed {@link Device}s into pool
+     * as soon as each of them is read.
+     *
+     * @param directory Directory with node configurations.
+     * @param listener  Handler of every added device.
+     * @return Future completed when all configurations are handled.
+     */
+    public static CompletableFuture<Void> loadDevicesAsync(File directory, Consumer<Device> listener) {
+        return LOADER.loadAsync(directory, (nodeConfigFile, nodeConfig) -> {
+            Device device = loadDevice(nodeConfigFile, nodeConfig);
+            if (device != null) {
+                listener.accept(device);
+            }
+        });
+    }
+
+    /**
+     * Adds devices of directory from pool snapshot if directory isn't changed since snapshot was saved.
+     * Otherwise reads all configurations in parallel and saves new snapshot when they are read.
+     *
+     * @param directory Directory with node configurations.
+     * @param snapshot  Pool snapshot.
+     * @param listener  Handler of every added device.
+     * @return Future completed when all configurations are handled.
+     */
+    private static CompletableFuture<Void> loadDevicesAsync(File directory, NodeConfigSnapshot snapshot,
+                                                            Consumer<Device> listener) {
+        final long start = System.nanoTime();
+        final Map<File, NodeConfig> snapshotConfigs = snapshot.load(directory);
+        if (snapshotConfigs != null) {
+            snapshotConfigs.forEach((nodeConfigFile, nodeConfig) -> {
+                Device device = loadDevice(nodeConfigFile, nodeConfig);
+                if (device != null) {
+                    listener.accept(device);
+                }
+            });
+            LOGGER.info("{} node configurations are loaded from pool snapshot {} in {} ms", snapshotConfigs.size(),
+                        snapshot.getSnapshotFile()
+                                .getPath(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            return CompletableFuture.completedFuture(null);
+        }
+        final byte[] fingerprint = NodeConfigSnapshot.fingerprint(directory);
+        final Map<File, NodeConfig> nodeConfigs = new ConcurrentHashMap<>();
+        return LOADER.loadAsync(directory, (nodeConfigFile, nodeConfig) -> {
+                         nodeConfigs.put(nodeConfigFile, nodeConfig);
+                         Device device = loadDevice(nodeConfigFile, nodeConfig);
+                         if (device != null) {
+                             listener.accept(device);
+                         }
+                     })
+                     .thenRun(() -> snapshot.save(fingerprint, nodeConfigs));
+    }
+
+    /**
+     * Rereads node configuration file and updates its device in pool.
+     * Pool keeps current device if file can't be read or is empty, e.g. it is just created and isn't written yet.
+     *
+     * @param nodeConfigFile Node configuration file.
+     */
+    public static void reloadDevice(File nodeConfigFile) {
+        LOGGER.info("Node config file reloading:{}", nodeConfigFile.getAbsolutePath());
+        try {
+            NodeConfig nodeConfig = NodeConfigLoader.read(nodeConfigFile);
+            if (nodeConfig == null) {
+                LOGGER.error("Reading configuration error <{}> file is empty", nodeConfigFile.getName());
+                return;
+            }
+            loadDevice(nodeConfigFile, nodeConfig);
+        } catch (IOException | JsonSyntaxException | JsonIOException e) {
+            LOGGER.error("Reading configuration error <{}> {}", nodeConfigFile.getName(), e.getMessage());
+        } catch (RuntimeException e) {
+            LOGGER.error("Node configuration handling error <{}>", nodeConfigFile.getName(), e);
+        }
+    }
+
+    /**
+     * Removes device of node configuration file from pool. Leased device is removed when it is released.
+     *
+     * @param nodeConfigFile Removed node configuration file.
+     */
+    public static void removeDevice(File nodeConfigFile) {
+        synchronized (FILES_LOCK) {
+            Device device = DEVICE_FILES.remove(nodeConfigFile.getAbsolutePath());
+            if (device != null) {
+                drain(device, null);
+            }
+        }
+    }
+
+    /**
+     * Rereads all configurations of directory and removes devices whose files are deleted.
+     *
+     * @param directory Directory with node configurations.
+     */
+    public static void reloadDevices(File directory) {
+        Set<String> existingFiles = new HashSet<>();
+        for (File nodeConfigFile : NodeConfigLoader.listFiles(directory)) {
+            existingFiles.add(nodeConfigFile.getAbsolutePath());
+            reloadDevice(nodeConfigFile);
+        }
+        for (String path : DEVICE_FILES.keySet()) {
+            if (!existingFiles.contains(path)) {
+                removeDevice(new File(path));
+            }
+        }
+    }
+
+    /**
+     * Adds, replaces or removes device of node configuration file.
+     *
+     * @param nodeConfigFile Node configuration file.
+     * @param nodeConfig     Node configuration.
+     * @return Device added into pool or {@code null} if pool isn't changed, device is rejected or removed.
+     */
+    private static Device loadDevice(File nodeConfigFile, NodeConfig nodeConfig) {
+        Device device = createDevice(nodeConfig);
+        if (device != null && !(emulatorForUse.isEmpty() || emulatorForUse.contains(device.getDeviceName()))) {
+            device = null;
+        }
+        final String path = nodeConfigFile.getAbsolutePath();
+        synchronized (FILES_LOCK) {
+            final Device previous = device == null ? DEVICE_FILES.remove(path) : DEVICE_FILES.put(path, device);
+            if (previous == null) {
+                if (device == null) {
+                    return null;
                 }
-                if (emulatorForUse.isEmpty() || emulatorForUse.contains(device.getDeviceName())) {
-                    LOGGER.info("Found device: {}", device);
-                    addDevice(device);
+                LOGGER.info("Found device: {}", device);
+                return addDevice(device) ? device : null;
+            }
+            if (device == null) {
+                drain(previous, null);
+                return null;
+            }
+            if (previous.equals(device)) {
+                if (previous.getCapabilities()
+                            .equals(device.getCapabilities()) && previous.getMaxInstances() == device.getMaxInstances()) {
+                    DEVICE_FILES.put(path, previous);
+                    return null;
                 }
+                LOGGER.info("Device {} is updated", device);
+                drain(previous, device);
+                return POOL.containsKey(device) ? device : null;
+            }
+            LOGGER.info("Device {} is replaced by {}", previous, device);
+            final boolean added = addDevice(device);
+            drain(previous, null);
+            return added ? device : null;
+        }
+    }
+
+    /**
+     * Removes device from pool. Leased device is removed when it is released, so current session isn't broken.
+     *
+     * @param device Device for removing.
+     */
+    public static void removeDevice(Device device) {
+        drain(device, null);
+    }
 
-            } catch (IOException | JsonSyntaxException | JsonIOException e) {
-                LOGGER.error("Reading configuration error <{}> {}", nodeConfigFile.getName(), e.getMessage());
-                e.printStackTrace();
+    /**
+     * Starts device removing.
+     *
+     * @param device      Device for removing.
+     * @param replacement Device added into pool when removed one is retired, may be {@code null}.
+     */
+    private static void drain(Device device, Device replacement) {
+        DeviceSlot slot = POOL.get(device);
+        if (slot == null) {
+            if (replacement != null) {
+                addDevice(replacement);
             }
+            return;
         }
-        if (POOL.size() == 0) {
-            throw new IllegalStateException("Pool is empty");
+        LOGGER.info("Device {} is draining", device.getDeviceName());
+        slot.drain(replacement);
+    }
+
+    /**
+     * Removes retired device from pool, closes its warm session and adds its replacement.
+     *
+     * @param slot Retired device slot.
+     */
+    private static void retire(DeviceSlot slot) {
+        synchronized (STRUCTURE_LOCK) {
+            if (!POOL.remove(slot.getDevice(), slot)) {
+                return;
+            }
+            INDEX.remove(slot);
+            HUB_CAPACITIES.get(slot.getDevice()
+                                   .getUrlHub()
+                                   .toString())
+                          .addAndGet(-slot.getDevice()
+                                          .getMaxInstances());
+        }
+        for (DeviceGroup group : slot.getGroups()) {
+            group.leave();
+        }
+        SessionPool.evict(slot.getDevice());
+        LOGGER.info("Device {} is removed from pool", slot.getDevice()
+                                                          .getDeviceName());
+        if (slot.getReplacement() != null) {
+            addDevice(slot.getReplacement());
+        }
+    }
+
+    /**
+     * Creates device of current mobile platform.
+     *
+     * @param nodeConfig Device configuration.
+     * @return New device or {@code null} if configuration is wrong.
+     */
+    private static Device createDevice(NodeConfig nodeConfig) {
+        try {
+            LOGGER.info("Selenium grid hub: {}", nodeConfig.getHubConfiguration());
+            switch (MobileDriverProvider.getMobileSystemType()) {
+                case IOS:
+                    return new IOSDevice(nodeConfig);
+                case ANDROID:
+                    return new AndroidDevice(nodeConfig);
+                default:
+                    return null;
+            }
+        } catch (MalformedURLException e) {
+            LOGGER.error("Wrong Selenium grid hub in configuration {}: {}", nodeConfig, e.getMessage());
+            return null;
         }
-        LOGGER.info("Pool is ready to work. {}", POOL);
-        poolIsReady = true;
     }
 
     /**
      * Gets free device from pool.
      *
-     * @return Free device from pool.
+     * @return Free device from pool or {@code null} if all devices are used.
      */
-    public static synchronized Device deviceRequest() {
-        LOGGER.info("Getting available device from pool: {}", POOL);
-        for (Map.Entry<Device, Boolean> entry : POOL.entrySet()) {
-            if (Boolean.TRUE.equals(entry.getValue())) {
-                LOGGER.info("Available device is found {}.", entry.getKey().getDeviceName());
-                POOL.replace(entry.getKey(), false);
-                LOGGER.info("Device {} is unavailable", entry.getKey().getDeviceName());
-                return entry.getKey();
+    public static Device deviceRequest() {
+        final String requester = getRequester();
+        final DeviceLease lease = ALL_DEVICES.poll(requester);
+        if (lease != null) {
+            PoolMetrics.LEASE_WAIT.record(0);
+        }
+        return deviceOf(acquired(lease, requester, 0));
+    }
+
+    /**
+     * Gets free device from pool waiting for it up to {@code timeout}.
+     * Waiting threads are served in arrival order, released device is handed to the first of them at once.
+     *
+     * @param timeout Maximum time to wait for a device.
+     * @param unit    Time unit of {@code timeout}.
+     * @return Free device from pool or {@code null} if no device was released during {@code timeout}.
+     * @throws InterruptedException If current thread was interrupted while waiting.
+     */
+    public static Device deviceRequest(long timeout, TimeUnit unit) throws InterruptedException {
+        return deviceOf(lease(ALL_DEVICES, new LeaseRequest(null).withRequester(getRequester()), timeout, unit));
+    }
+
+    /**
+     * Gets free device matching {@code capabilities} waiting for it up to {@code timeout}.
+     * Only capabilities some pooled device declares are matched, values are compared as strings.
+     * Thread waits only for matching devices, waiting threads are served in arrival order.
+     *
+     * @param capabilities Requested capabilities, {@code null} matches any device.
+     * @param timeout      Maximum time to wait for a device.
+     * @param unit         Time unit of {@code timeout}.
+     * @return Matching device from pool or {@code null} if no matching device was released during {@code timeout}.
+     * @throws InterruptedException If current thread was interrupted while waiting.
+     */
+    public static Device deviceRequest(Capabilities capabilities, long timeout, TimeUnit unit)
+            throws InterruptedException {
+        return deviceOf(lease(capabilities, timeout, unit));
+    }
+
+    /**
+     * Leases free device matching {@code capabilities} waiting for it up to {@code timeout}.
+     * Lease isn't tied to calling thread: it may be closed from any thread and bound to tasks
+     * running on executors with {@link DeviceLease#wrapRunnable(Runnable)}.
+     *
+     * @param capabilities Requested capabilities, {@code null} matches any device.
+     * @param timeout      Maximum time to wait for a device.
+     * @param unit         Time unit of {@code timeout}.
+     * @return Lease of matching device or {@code null} if no matching device was released during {@code timeout}.
+     * @throws InterruptedException If current thread was interrupted while waiting.
+     */
+    public static DeviceLease lease(Capabilities capabilities, long timeout, TimeUnit unit)
+            throws InterruptedException {
+        return lease(capabilities, getRequester(), timeout, unit);
+    }
+
+    /**
+     * Leases free device matching {@code capabilities} for requester waiting for it up to {@code timeout}.
+     * Used when device is leased on behalf of another thread, e.g. by executor creating driver for a test.
+     *
+     * @param capabilities Requested capabilities, {@code null} matches any device.
+     * @param requester    Class requesting device, see {@link #getRequester()}.
+     * @param timeout      Maximum time to wait for a device.
+     * @param unit         Time unit of {@code timeout}.
+     * @return Lease of matching device or {@code null} if no matching device was released during {@code timeout}.
+     * @throws InterruptedException If current thread was interrupted while waiting.
+     */
+    public static DeviceLease lease(Capabilities capabilities, String requester, long timeout, TimeUnit unit)
+            throws InterruptedException {
+        return lease(new LeaseRequest(capabilities).withRequester(requester), timeout, unit);
+    }
+
+    /**
+     * Leases free device for request waiting for it up to {@code timeout} or request deadline, whichever is earlier.
+     * When devices are busy, waiting requests are served by priority class and deadline, see {@link LeaseRequest}.
+     * Request with deadline is rejected at once if so many requests are ahead of it that, at average lease
+     * duration, no matching device can be freed in time.
+     *
+     * @param request Device request.
+     * @param timeout Maximum time to wait for a device.
+     * @param unit    Time unit of {@code timeout}.
+     * @return Lease of matching device or {@code null} if request is rejected or no matching device was
+     * released in time.
+     * @throws InterruptedException If current thread was interrupted while waiting.
+     */
+    public static DeviceLease lease(LeaseRequest request, long timeout, TimeUnit unit) throws InterruptedException {
+        return lease(getGroup(INDEX.criteriaOf(request.getCapabilities())), request, timeout, unit);
+    }
+
+    /**
+     * Gets current lease of device.
+     *
+     * @param device Pooled device.
+     * @return Lease or {@code null} if device isn't leased.
+     */
+    public static DeviceLease getLease(Device device) {
+        DeviceSlot slot = POOL.get(device);
+        return slot == null ? null : slot.getLease();
+    }
+
+    /**
+     * Leases free device of group waiting for it up to {@code timeout} or request deadline.
+     *
+     * @param group   Group of suitable devices.
+     * @param request Device request.
+     * @param timeout Maximum time to wait for a device.
+     * @param unit    Time unit of {@code timeout}.
+     * @return Lease of device or {@code null} if request is rejected or no device was released in time.
+     * @throws InterruptedException If current thread was interrupted while waiting.
+     */
+    private static DeviceLease lease(DeviceGroup group, LeaseRequest request, long timeout, TimeUnit unit)
+            throws InterruptedException {
+        final long start = System.nanoTime();
+        final String requester = request.getRequester();
+        if (!group.hasWaiters()) {
+            DeviceLease lease = group.poll(requester);
+            if (lease != null) {
+                final long waited = System.nanoTime() - start;
+                PoolMetrics.LEASE_WAIT.record(waited);
+                return acquired(lease, requester, waited);
+            }
+        }
+        List<DeviceLease> leases = await(group, request, 1, start, unit.toNanos(timeout));
+        return leases == null ? null : leases.get(0);
+    }
+
+    /**
+     * Leases {@code count} free devices matching {@code criteria} at once waiting for them up to {@code timeout}.
+     * Devices are granted all together or not at all: while waiting, no device is held, so tests needing
+     * several devices can't deadlock each other holding part of them. Request needing several devices is served
+     * when enough of them are free, requests behind it wait meanwhile, so it isn't starved by single-device ones.
+     *
+     * @param count    Count of devices.
+     * @param criteria Requested capabilities, {@code null} matches any device.
+     * @param timeout  Maximum time to wait for devices.
+     * @param unit     Time unit of {@code timeout}.
+     * @return Leases of devices or {@code null} if devices weren't released during {@code timeout}.
+     * @throws InterruptedException     If current thread was interrupted while waiting.
+     * @throws IllegalArgumentException If pool has fewer matching devices than requested.
+     */
+    public static DeviceLeaseGroup leaseMany(int count, Capabilities criteria, long timeout, TimeUnit unit)
+            throws InterruptedException {
+        return leaseMany(count, new LeaseRequest(criteria).withRequester(getRequester()), timeout, unit);
+    }
+
+    /**
+     * Leases {@code count} free devices for request at once waiting for them up to {@code timeout}
+     * or request deadline, whichever is earlier. See {@link #leaseMany(int, Capabilities, long, TimeUnit)}.
+     *
+     * @param count   Count of devices.
+     * @param request Device request.
+     * @param timeout Maximum time to wait for devices.
+     * @param unit    Time unit of {@code timeout}.
+     * @return Leases of devices or {@code null} if request is rejected or devices weren't released in time.
+     * @throws InterruptedException     If current thread was interrupted while waiting.
+     * @throws IllegalArgumentException If pool has fewer matching devices than requested.
+     */
+    public static DeviceLeaseGroup leaseMany(int count, LeaseRequest request, long timeout, TimeUnit unit)
+            throws InterruptedException {
+        final long start = System.nanoTime();
+        DeviceGroup group = getGroup(INDEX.criteriaOf(request.getCapabilities()));
+        if (count < 1 || count > group.size()) {
+            throw new IllegalArgumentException(
+                    String.format("Can't lease %d of %d devices of %s", count, group.size(), group));
+        }
+        List<DeviceLease> leases = null;
+        if (!group.hasWaiters()) {
+            leases = group.poll(request.getRequester(), count);
+            if (leases != null) {
+                final long waited = System.nanoTime() - start;
+                PoolMetrics.LEASE_WAIT.record(waited);
+                acquired(leases, request.getRequester(), waited);
+            }
+        }
+        if (leases == null) {
+            leases = await(group, request, count, start, unit.toNanos(timeout));
+        }
+        return leases == null ? null : new DeviceLeaseGroup(leases);
+    }
+
+    /**
+     * Waits for free devices of group up to {@code timeout} or request deadline.
+     *
+     * @param group   Group of suitable devices.
+     * @param request Device request.
+     * @param count   Count of devices granted at once.
+     * @param start   Time of request in nanoseconds.
+     * @param timeout Maximum time to wait in nanoseconds.
+     * @return Leases of devices or {@code null} if request is rejected or devices weren't released in time.
+     * @throws InterruptedException If current thread was interrupted while waiting.
+     */
+    private static List<DeviceLease> await(DeviceGroup group, LeaseRequest request, int count, long start,
+                                           long timeout) throws InterruptedException {
+        final String requester = request.getRequester();
+        final long wait = Math.min(timeout, request.getTimeLeft(TimeUnit.NANOSECONDS));
+        final CompletableFuture<List<DeviceLease>> waiter = group.addWaiter(request, count, LEASE_AGING_PERIOD);
+        DISPATCHER.dispatch();
+        if (request.hasDeadline() && !canServeInTime(group, waiter, count, wait)) {
+            List<DeviceLease> leases = cancelWaiting(group, waiter);
+            if (leases == null) {
+                PoolMetrics.increment(PoolMetrics.LEASE_REJECTIONS);
+                LOGGER.warn("Device request is rejected, its deadline can't be met: {}", request);
+            }
+            return acquired(leases, requester, System.nanoTime() - start);
+        }
+        try {
+            List<DeviceLease> leases = waiter.get(wait, TimeUnit.NANOSECONDS);
+            final long waited = System.nanoTime() - start;
+            PoolMetrics.LEASE_WAIT.record(waited);
+            return acquired(leases, requester, waited);
+        } catch (TimeoutException e) {
+            List<DeviceLease> leases = cancelWaiting(group, waiter);
+            if (leases == null) {
+                PoolMetrics.increment(PoolMetrics.LEASE_TIMEOUTS);
+            }
+            final long waited = System.nanoTime() - start;
+            PoolMetrics.LEASE_WAIT.record(waited);
+            return acquired(leases, requester, waited);
+        } catch (InterruptedException e) {
+            List<DeviceLease> leases = cancelWaiting(group, waiter);
+            if (leases != null) {
+                for (DeviceLease lease : leases) {
+                    lease.close();
+                }
+            }
+            throw e;
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * Estimates whether waiter can get devices in time. Every device of group serves devices requested ahead
+     * one by one, so waiter gets devices not earlier than after so many average leases as there are full rounds
+     * of devices requested ahead. Without enough finished leases estimation isn't made.
+     *
+     * @param group  Group waiter is waiting in.
+     * @param waiter Registered waiter.
+     * @param count  Count of devices waiter needs.
+     * @param wait   Time left to wait in nanoseconds.
+     * @return {@code false} if waiter can't get devices in time.
+     */
+    private static boolean canServeInTime(DeviceGroup group, CompletableFuture<List<DeviceLease>> waiter, int count,
+                                          long wait) {
+        if (wait <= 0) {
+            return waiter.isDone();
+        }
+        HistogramSnapshot leases = PoolMetrics.LEASE_DURATION.snapshot();
+        if (leases.getCount() < MIN_LEASE_SAMPLES) {
+            return true;
+        }
+        long rounds = (group.countDevicesAhead(waiter) + count - 1) / Math.max(1, group.size());
+        return rounds * leases.getMeanMillis() <= TimeUnit.NANOSECONDS.toMillis(wait);
+    }
+
+    /**
+     * Sets strategy choosing free device for request.
+     *
+     * @param strategy Selection strategy, {@code null} takes the device free for the longest time.
+     */
+    public static void setSelectionStrategy(DeviceSelectionStrategy strategy) {
+        selectionStrategy = strategy;
+    }
+
+    /**
+     * Gets strategy choosing free device for request.
+     *
+     * @return Selection strategy or {@code null} if the device free for the longest time is taken.
+     */
+    public static DeviceSelectionStrategy getSelectionStrategy() {
+        return selectionStrategy;
+    }
+
+    /**
+     * Gets class requesting device: the nearest caller outside of framework and library packages.
+     * Stack is walked only if selection strategy needs requester.
+     *
+     * @return Class name of requester or {@code null} if strategy doesn't need it or it isn't found.
+     */
+    public static String getRequester() {
+        DeviceSelectionStrategy strategy = selectionStrategy;
+        if (strategy == null || !strategy.needsRequester()) {
+            return null;
+        }
+        for (StackTraceElement element : Thread.currentThread()
+                                               .getStackTrace()) {
+            String className = element.getClassName();
+            if (!isFrameworkClass(className)) {
+                int nested = className.indexOf('$');
+                return nested < 0 ? className : className.substring(0, nested);
             }
         }
         return null;
     }
 
     /**
-     * Releases device in pool.
+     * Checks whether class belongs to framework or library package.
+     *
+     * @param className Class name.
+     * @return Is class of framework or library.
+     */
+    private static boolean isFrameworkClass(String className) {
+        for (String framework : FRAMEWORK_PACKAGES) {
+            if (className.startsWith(framework)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Creates selection strategy by name: {@code fifo}, {@code lru}, {@code hub}, {@code affinity}
+     * or class name of {@link DeviceSelectionStrategy} implementation with public no-argument constructor.
+     * Wrong name is reported and replaced by {@code fifo}, so misconfigured pool still works.
+     *
+     * @param name Strategy name.
+     * @return Selection strategy or {@code null} for {@code fifo}.
+     */
+    private static DeviceSelectionStrategy createSelectionStrategy(String name) {
+        LOGGER.info("Device selection strategy is {}.", name);
+        switch (name.toLowerCase()) {
+            case "fifo":
+                return null;
+            case "lru":
+                return new LeastRecentlyUsedStrategy();
+            case "hub":
+                return new LeastLoadedHubStrategy();
+            case "affinity":
+                return new AffinityStrategy();
+            default:
+                try {
+                    return Class.forName(name)
+                                .asSubclass(DeviceSelectionStrategy.class)
+                                .getDeclaredConstructor()
+                                .newInstance();
+                } catch (ReflectiveOperationException | ClassCastException | LinkageError e) {
+                    LOGGER.warn("Wrong device selection strategy {}, fifo is used instead: {}", name, e.toString());
+                    return null;
+                }
+        }
+    }
+
+    /**
+     * Records lease acquisition by current thread and reports it to selection strategy.
+     * Called only for leases requester has actually got.
+     *
+     * @param lease     Acquired lease or {@code null}.
+     * @param requester Class requested device or {@code null} if it is unknown.
+     * @param waited    Time requester waited for lease in nanoseconds.
+     * @return {@code lease}.
+     */
+    private static DeviceLease acquired(DeviceLease lease, String requester, long waited) {
+        if (lease != null) {
+            DeviceSelectionStrategy strategy = selectionStrategy;
+            if (strategy != null) {
+                strategy.onLeased(lease.getDevice(), requester);
+            }
+            lease.acquired(requester, CAPTURE_LEASE_STACK);
+            LifecycleEvents.record(LifecycleEvent.Type.LEASE_ACQUIRE, lease.getDevice(), waited, requester);
+        }
+        return lease;
+    }
+
+    /**
+     * Records acquisition of several leases by current thread.
+     *
+     * @param leases    Acquired leases or {@code null}.
+     * @param requester Class requested devices or {@code null} if it is unknown.
+     * @param waited    Time requester waited for leases in nanoseconds.
+     * @return {@code leases}.
+     */
+    private static List<DeviceLease> acquired(List<DeviceLease> leases, String requester, long waited) {
+        if (leases != null) {
+            for (DeviceLease lease : leases) {
+                acquired(lease, requester, waited);
+            }
+        }
+        return leases;
+    }
+
+    /**
+     * Gets leased device.
+     *
+     * @param lease Lease or {@code null}.
+     * @return Leased device or {@code null}.
+     */
+    private static Device deviceOf(DeviceLease lease) {
+        return lease == null ? null : lease.getDevice();
+    }
+
+    /**
+     * Gets group of devices matching criteria. Creates group if it doesn't exist yet.
+     *
+     * @param criteria Capability values devices have to match.
+     * @return Group of matching devices.
+     */
+    private static DeviceGroup getGroup(Map<String, String> criteria) {
+        if (criteria.isEmpty()) {
+            return ALL_DEVICES;
+        }
+        DeviceGroup group = GROUPS.get(criteria);
+        if (group != null) {
+            return group;
+        }
+        synchronized (STRUCTURE_LOCK) {
+            group = GROUPS.get(criteria);
+            if (group == null) {
+                group = new DeviceGroup(criteria);
+                for (DeviceSlot slot : INDEX.match(criteria)) {
+                    group.join(slot);
+                }
+                DISPATCHER.register(group);
+                GROUPS.put(criteria, group);
+                LOGGER.info("Device group {} is created", criteria);
+            }
+            return group;
+        }
+    }
+
+    /**
+     * Cancels waiting and removes waiter from queue. Waiter being served by dispatcher can't be cancelled,
+     * cancelling is retried until dispatcher completes or returns it.
+     *
+     * @param group  Group waiter is waiting in.
+     * @param waiter Waiter for cancelling.
+     * @return Leases handed to waiter before it was cancelled or {@code null}.
+     */
+    private static List<DeviceLease> cancelWaiting(DeviceGroup group, CompletableFuture<List<DeviceLease>> waiter) {
+        while (!waiter.cancel(false)) {
+            if (waiter.isDone()) {
+                return waiter.join();
+            }
+            Thread.yield();
+        }
+        group.removeWaiter(waiter);
+        return null;
+    }
+
+    /**
+     * Releases device in pool. If some thread is waiting for device, device is handed to it.
+     * Same as closing current lease of device.
      *
      * @param usedDevice Device for releasing in pool.
      */
-    public static synchronized void freeDevice(Device usedDevice) {
-        LOGGER.info("Device {} releasing", usedDevice.getDeviceName());
-        POOL.replace(usedDevice, false, true);
-        LOGGER.info("Device {} released", usedDevice.getDeviceName());
+    public static void freeDevice(Device usedDevice) {
+        DeviceLease lease = getLease(usedDevice);
+        if (lease == null) {
+            LOGGER.warn("Device {} isn't leased from pool", usedDevice.getDeviceName());
+            return;
+        }
+        lease.close();
+    }
+
+    /**
+     * Releases device of closed lease. If some thread is waiting for device, device is handed to it.
+     *
+     * @param lease Closed lease.
+     */
+    static void release(DeviceLease lease) {
+        DeviceSlot slot = lease.getSlot();
+        if (!slot.release(lease)) {
+            LOGGER.warn("Device {} isn't leased by {}", lease.getDevice()
+                                                            .getDeviceName(), lease);
+            return;
+        }
+        LifecycleEvents.record(LifecycleEvent.Type.LEASE_RELEASE, lease.getDevice(),
+                               lease.getAge(TimeUnit.NANOSECONDS), null);
+        if (!slot.isRetired()) {
+            DISPATCHER.dispatch();
+        }
+    }
+
+    /**
+     * Closes lease and takes device out of leasing for {@code duration}, e.g. while circuit breaker of device
+     * is open. Health checks don't return suspended device, it is returned when suspension is over.
+     *
+     * @param lease    Lease of device.
+     * @param duration Suspension duration.
+     * @param unit     Time unit of {@code duration}.
+     */
+    public static void suspend(DeviceLease lease, long duration, TimeUnit unit) {
+        if (!lease.markClosed()) {
+            return;
+        }
+        DeviceSlot slot = lease.getSlot();
+        if (!slot.suspend(lease, System.nanoTime() + unit.toNanos(duration))) {
+            LOGGER.warn("Device {} isn't leased by {}", lease.getDevice()
+                                                            .getDeviceName(), lease);
+            return;
+        }
+        PoolMetrics.increment(PoolMetrics.SUSPENSIONS);
+        LifecycleEvents.record(LifecycleEvent.Type.QUARANTINE, lease.getDevice(), 0,
+                               "suspended for " + unit.toMillis(duration) + " ms");
+        LOGGER.warn("Device {} is suspended for {} ms", lease.getDevice()
+                                                             .getDeviceName(), unit.toMillis(duration));
+        if (!slot.isRetired()) {
+            SUSPENSIONS.schedule(() -> {
+                if (restore(slot)) {
+                    LOGGER.info("Device {} suspension is over, it is back in pool", slot.getDevice()
+                                                                                        .getDeviceName());
+                }
+            }, duration, unit);
+        }
     }
 
     /**
-     * Marks device as unavailable.
+     * Returns quarantined device to leasing. If some thread is waiting for device, device is handed to it.
      *
-     * @param device Device for marking.
+     * @param slot Quarantined device slot.
+     * @return {@code true} if device was quarantined.
      */
-    public static synchronized void addDevice(Device device) {
+    static boolean restore(DeviceSlot slot) {
+        if (!slot.restore()) {
+            return false;
+        }
+        if (!slot.isRetired()) {
+            DISPATCHER.dispatch();
+        }
+        return true;
+    }
+
+    /**
+     * Creates coordinator of leases between processes. Devices held by other processes are checked
+     * every {@code leasepollinterval} milliseconds and returned to leasing when they are released.
+     *
+     * @return Lease coordinator.
+     */
+    private static LeaseCoordinator createCoordinator() {
+        String type = SelenileProperties.getString("leasecoordinator", "local");
+        switch (type.toLowerCase()) {
+            case "local":
+                return new LocalLeaseCoordinator();
+            case "file":
+                File directory = new File(SelenileProperties.getString(
+                        "leasedir", new File(System.getProperty("java.io.tmpdir"), "selenile-leases").getPath()));
+                LeaseCoordinator coordinator = new FileLeaseCoordinator(directory);
+                long interval = SelenileProperties.getLong("leasepollinterval", DEFAULT_LEASE_POLL_INTERVAL);
+                Executors.newSingleThreadScheduledExecutor(new DaemonThreadFactory("lease-coordinator"))
+                         .scheduleWithFixedDelay(DevicePool::pollRemoteDevices, interval, interval,
+                                                 TimeUnit.MILLISECONDS);
+                return coordinator;
+            default:
+                throw new IllegalArgumentException("Wrong lease coordinator " + type);
+        }
+    }
+
+    /**
+     * Returns devices released by other processes to leasing and hands them to waiting threads.
+     */
+    private static void pollRemoteDevices() {
+        try {
+            for (DeviceSlot slot : POOL.values()) {
+                if (slot.isRemote() && COORDINATOR.isAvailable(slot.getDevice()) && slot.returnFromRemote()
+                        && !slot.isRetired()) {
+                    DISPATCHER.dispatch();
+                }
+            }
+        } catch (RuntimeException e) {
+            LOGGER.error("Remote devices checking error", e);
+        }
+    }
+
+    /**
+     * Gets slots of all pooled devices.
+     *
+     * @return Device slots.
+     */
+    static Collection<DeviceSlot> getSlots() {
+        return POOL.values();
+    }
+
+    /**
+     * Finishes device boot. Ready device is handed to waiting threads or becomes free, failed one is quarantined.
+     *
+     * @param slot  Booting device slot.
+     * @param ready Is device ready.
+     */
+    static void finishBooting(DeviceSlot slot, boolean ready) {
+        if (!slot.finishBooting(ready)) {
+            return;
+        }
+        if (!ready) {
+            LifecycleEvents.record(LifecycleEvent.Type.QUARANTINE, slot.getDevice(), 0, "boot failed");
+        } else if (!slot.isRetired()) {
+            DISPATCHER.dispatch();
+        }
+    }
+
+    /**
+     * Adds device into pool as free. If pre-warm is turned on, device is booted first
+     * and becomes free when it is ready.
+     *
+     * @param device Device for adding.
+     * @return {@code true} if device is added, {@code false} if it is rejected or pool has it yet.
+     */
+    public static boolean addDevice(Device device) {
+        if (device.getMaxInstances() < 1) {
+            LOGGER.warn("Device {} isn't added into pool, its node accepts no sessions (maxInstances {})", device,
+                        device.getMaxInstances());
+            return false;
+        }
         LOGGER.info("Adding device {} into pool.", device);
-        if (Objects.isNull(POOL.putIfAbsent(device, true))) {
-            LOGGER.info("Device {} added into pool ", device.getDeviceName());
-        } else {
-            LOGGER.info("Pool has device {} yet", device.getDeviceName());
+        DeviceSlot slot = new DeviceSlot(device, DevicePool::retire, COORDINATOR);
+        if (PREWARMER != null) {
+            slot.startBooting();
+        }
+        synchronized (STRUCTURE_LOCK) {
+            if (Objects.nonNull(POOL.putIfAbsent(device, slot))) {
+                LOGGER.info("Pool has device {} yet", device.getDeviceName());
+                return false;
+            }
+            INDEX.add(slot);
+            HUB_CAPACITIES.computeIfAbsent(device.getUrlHub()
+                                                 .toString(), hub -> new AtomicInteger())
+                          .addAndGet(device.getMaxInstances());
+            ALL_DEVICES.join(slot);
+            for (DeviceGroup group : GROUPS.values()) {
+                if (CapabilityIndex.matches(slot, group.getCriteria())) {
+                    group.join(slot);
+                }
+            }
+        }
+        if (PREWARMER != null) {
+            LOGGER.info("Device {} added into pool, it is booting", device.getDeviceName());
+            PREWARMER.submit(slot);
+            return true;
+        }
+        slot.activate();
+        LOGGER.info("Device {} added into pool ", device.getDeviceName());
+        DISPATCHER.dispatch();
+        return true;
+    }
+
+    /**
+     * Gets count of sessions pooled devices of hub accept at once: sum of their {@code maxInstances}.
+     *
+     * @param hub Selenium Grid Hub URL.
+     * @return Count of sessions, zero if hub has no pooled devices.
+     */
+    public static int getHubCapacity(URL hub) {
+        final AtomicInteger capacity = HUB_CAPACITIES.get(hub.toString());
+        return capacity == null ? 0 : capacity.get();
+    }
+
+    /**
+     * Gets statistics of all pooled devices.
+     *
+     * @return Device statistics.
+     */
+    public static List<DeviceStats> getDeviceStats() {
+        List<DeviceStats> stats = new ArrayList<>(POOL.size());
+        for (DeviceSlot slot : POOL.values()) {
+            stats.add(slot.getStats());
         }
+        return stats;
     }
 
     /**
@@ -0,0 +1,112 @@
+package ru.vasilev.selenile;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import ru.vasilev.selenile.device.Device;
+import ru.vasilev.selenile.metrics.PoolMetrics;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+final class DevicePrewarmer {
+    /**
+     * Multi thread driver logger.
+     */
+    private static final Logger LOGGER = LogManager.getLogger("MobileDriverParallel");
+
+    /**
+     * Threads booting devices. Pool size limits count of devices booting at once.
+     */
+    private final ExecutorService executor;
+
+    /**
+     * Time to wait for every device boot.
+     */
+    private final long timeout;
+
+    /**
+     * Time unit of {@code timeout}.
+     */
+    private final TimeUnit unit;
+
+    /**
+     * Count of devices waiting for boot or booting now.
+     */
+    private final AtomicInteger pending = new AtomicInteger();
+
+    /**
+     * Count of booted devices since pre-warm became idle the last time.
+     */
+    private final AtomicInteger ready = new AtomicInteger();
+
+    /**
+     * Count of devices failed to boot since pre-warm became idle the last time.
+     */
+    private final AtomicInteger failed = new AtomicInteger();
+
+    /**
+     * The longest boot in milliseconds since pre-warm became idle the last time.
+     */
+    private final AtomicLong slowestBoot = new AtomicLong();
+
+    /**
+     * Creates pre-warmer.
+     *
+     * @param concurrency Maximum count of devices booting at once.
+     * @param timeout     Time to wait for every device boot.
+     * @param unit        Time unit of {@code timeout}.
+     */
+    DevicePrewarmer(int concurrency, long timeout, TimeUnit unit) {
+        this.executor = Executors.newFixedThreadPool(Math.max(1, concurrency),
+                                                     new DaemonThreadFactory("device-prewarm"));
+        this.timeout = timeout;
+        this.unit = unit;
+    }
+
+    /**
+     * Boots device in background. Device becomes leasable when it is ready, device failed to boot is quarantined.
+     *
+     * @param slot Booting device slot.
+     */
+    void submit(DeviceSlot slot) {
+        pending.incrementAndGet();
+        executor.execute(() -> boot(slot));
+    }
+
+    /**
+     * Boots device, reports boot time and finishes device booting in pool.
+     *
+     * @param slot Booting device slot.
+     */
+    private void boot(DeviceSlot slot) {
+        final Device device = slot.getDevice();
+        final long start = System.nanoTime();
+        boolean isReady = false;
+        try {
+            synchronized (device) {
+                isReady = device.prewarm(timeout, unit);
+            }
+        } catch (RuntimeException e) {
+            LOGGER.error("Device {} boot error {}", device.getDeviceName(), e.getMessage());
+        }
+        final long duration = System.nanoTime() - start;
+        final long millis = TimeUnit.NANOSECONDS.toMillis(duration);
+        if (isReady) {
+            PoolMetrics.DEVICE_BOOT.record(duration);
+            ready.incrementAndGet();
+            slowestBoot.accumulateAndGet(millis, Math::max);
+            LOGGER.info("Device {} is ready in {} ms", device.getDeviceName(), millis);
+        } else {
+            failed.incrementAndGet();
+            LOGGER.warn("Device {} isn't ready in {} ms, it is quarantined", device.getDeviceName(), millis);
+        }
+        DevicePool.finishBooting(slot, isReady);
+        if (pending.decrementAndGet() == 0) {
+            LOGGER.info("Devices pre-warm is finished: {} ready, {} failed, the slowest boot {} ms",
+                        ready.getAndSet(0), failed.getAndSet(0), slowestBoot.getAndSet(0));
+        }
+    }
+}
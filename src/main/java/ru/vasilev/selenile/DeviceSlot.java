@@ -0,0 +1,545 @@
+package ru.vasilev.selenile;
+
+import ru.vasilev.selenile.device.Device;
+import ru.vasilev.selenile.metrics.DeviceStats;
+import ru.vasilev.selenile.metrics.PoolMetrics;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+final class DeviceSlot {
+    /**
+     * Device can be leased.
+     */
+    static final int FREE = 0;
+
+    /**
+     * Device is used by some test.
+     */
+    static final int LEASED = 1;
+
+    /**
+     * Device is removed from pool.
+     */
+    static final int RETIRED = 2;
+
+    /**
+     * Device failed health check and can't be leased until it passes one.
+     */
+    static final int QUARANTINED = 3;
+
+    /**
+     * Device is booting and can't be leased until it is ready.
+     */
+    static final int BOOTING = 4;
+
+    /**
+     * Device is held by another process sharing the pool.
+     */
+    static final int REMOTE = 5;
+
+    /**
+     * Lease of device is finishing: lease coordinator is being released, so device can't be leased yet.
+     */
+    static final int RELEASING = 6;
+
+    /**
+     * Count of leased devices by hub.
+     */
+    private static final ConcurrentHashMap<String, AtomicInteger> HUB_LEASES = new ConcurrentHashMap<>();
+
+    /**
+     * Pooled device.
+     */
+    private final Device device;
+
+    /**
+     * Device state.
+     */
+    private final AtomicInteger state = new AtomicInteger(LEASED);
+
+    /**
+     * Is device removing from pool. Draining device is retired instead of releasing.
+     */
+    private volatile boolean draining = false;
+
+    /**
+     * Is device suspended by {@link #suspend(DeviceLease, long)}.
+     */
+    private volatile boolean suspended = false;
+
+    /**
+     * Suspension end in nanoseconds.
+     */
+    private volatile long suspendedUntil;
+
+    /**
+     * Device added into pool when this one is retired.
+     */
+    private volatile Device replacement;
+
+    /**
+     * Handler called once when device is retired.
+     */
+    private final Consumer<DeviceSlot> retirementHandler;
+
+    /**
+     * Coordinator of leases between processes.
+     */
+    private final LeaseCoordinator coordinator;
+
+    /**
+     * Time device was added into pool in nanoseconds.
+     */
+    private final long addedAt = System.nanoTime();
+
+    /**
+     * Start time of current lease in nanoseconds.
+     */
+    private volatile long leasedSince = addedAt;
+
+    /**
+     * Time of the last release in nanoseconds.
+     */
+    private volatile long releasedAt = addedAt;
+
+    /**
+     * Total time of finished leases in nanoseconds.
+     */
+    private final AtomicLong leasedNanos = new AtomicLong();
+
+    /**
+     * Count of leases.
+     */
+    private final AtomicLong leaseCount = new AtomicLong();
+
+    /**
+     * Current lease or {@code null} if device isn't leased by a test.
+     */
+    private final AtomicReference<DeviceLease> lease = new AtomicReference<>();
+
+    /**
+     * Groups device belongs to.
+     */
+    private final CopyOnWriteArrayList<DeviceGroup.Member> memberships = new CopyOnWriteArrayList<>();
+
+    /**
+     * Creates leased slot for device. Slot becomes free on the first release.
+     *
+     * @param device            Pooled device.
+     * @param retirementHandler Handler called once when device is retired.
+     * @param coordinator       Coordinator of leases between processes.
+     */
+    DeviceSlot(Device device, Consumer<DeviceSlot> retirementHandler, LeaseCoordinator coordinator) {
+        this.device = device;
+        this.retirementHandler = retirementHandler;
+        this.coordinator = coordinator;
+    }
+
+    /**
+     * Gets pooled device.
+     *
+     * @return Pooled device.
+     */
+    Device getDevice() {
+        return device;
+    }
+
+    /**
+     * Marks free device as leased without leasing it yet, so it can be taken together with other devices
+     * or returned by {@link #unclaim()} without any trace in statistics.
+     *
+     * @return {@code true} if device was free.
+     */
+    boolean claim() {
+        return state.compareAndSet(FREE, LEASED);
+    }
+
+    /**
+     * Returns claimed device to leasing. Unlike {@link #release(DeviceLease)}, lease statistics, selection strategy
+     * and lease coordinator aren't touched.
+     */
+    void unclaim() {
+        if (state.compareAndSet(LEASED, FREE)) {
+            offer();
+        }
+    }
+
+    /**
+     * Acquires claimed device from lease coordinator. Device held by another process is marked as remote.
+     *
+     * @return {@code false} if device is held by another process.
+     */
+    boolean acquire() {
+        if (coordinator.tryAcquire(device)) {
+            return true;
+        }
+        state.set(REMOTE);
+        if (draining && state.compareAndSet(REMOTE, RETIRED)) {
+            retirementHandler.accept(this);
+        }
+        return false;
+    }
+
+    /**
+     * Releases acquired device in lease coordinator and returns it to leasing, when devices taken with it
+     * can't be leased.
+     */
+    void unacquire() {
+        coordinator.release(device);
+        unclaim();
+    }
+
+    /**
+     * Leases acquired device.
+     *
+     * @return Lease of caller.
+     */
+    DeviceLease open() {
+        leasedSince = System.nanoTime();
+        leaseCount.incrementAndGet();
+        getHubLeases(device).incrementAndGet();
+        DeviceLease newLease = new DeviceLease(this);
+        lease.set(newLease);
+        return newLease;
+    }
+
+    /**
+     * Gets current lease.
+     *
+     * @return Current lease or {@code null} if device isn't leased.
+     */
+    DeviceLease getLease() {
+        return lease.get();
+    }
+
+    /**
+     * Makes new device free and places it into free devices queues of all its groups. Slot is created leased,
+     * so device can't be leased before it joins all its groups.
+     */
+    void activate() {
+        unclaim();
+    }
+
+    /**
+     * Finishes lease, marks device as free and places it into free devices queues of all its groups.
+     * Draining device is retired instead.
+     *
+     * @param finished Finishing lease.
+     * @return {@code true} if device was leased by {@code finished} and now it is free or retired.
+     */
+    boolean release(DeviceLease finished) {
+        return finishLease(finished, FREE, 0);
+    }
+
+    /**
+     * Finishes lease and takes device out of leasing until {@code until}, e.g. while circuit breaker of device
+     * is open. Draining device is retired instead.
+     *
+     * @param finished Finishing lease.
+     * @param until    Suspension end in nanoseconds.
+     * @return {@code true} if device was leased by {@code finished} and now it is quarantined or retired.
+     */
+    boolean suspend(DeviceLease finished, long until) {
+        return finishLease(finished, QUARANTINED, until);
+    }
+
+    /**
+     * Checks whether device is suspended, so health check doesn't return it to leasing.
+     *
+     * @return Is device suspension in progress.
+     */
+    boolean isSuspended() {
+        return suspended && System.nanoTime() - suspendedUntil < 0;
+    }
+
+    /**
+     * Finishes lease. Only one of concurrent finishers of lease wins, e.g. lease reaper or its owner.
+     * Device stays {@link #RELEASING} until lease coordinator is released, so lock of the next lease
+     * can't be released by this one.
+     *
+     * @param finished Finishing lease.
+     * @param next     State of device after lease, {@link #FREE} or {@link #QUARANTINED}.
+     * @param until    Suspension end in nanoseconds for {@link #QUARANTINED}.
+     * @return {@code true} if device was leased by {@code finished}.
+     */
+    private boolean finishLease(DeviceLease finished, int next, long until) {
+        if (finished == null || !lease.compareAndSet(finished, null) || !state.compareAndSet(LEASED, RELEASING)) {
+            return false;
+        }
+        long duration = System.nanoTime() - leasedSince;
+        coordinator.release(device);
+        releasedAt = System.nanoTime();
+        getHubLeases(device).decrementAndGet();
+        leasedNanos.addAndGet(duration);
+        PoolMetrics.LEASE_DURATION.record(duration);
+        if (next == QUARANTINED) {
+            suspendedUntil = until;
+            suspended = true;
+        }
+        state.set(next);
+        if (next == FREE) {
+            offer();
+        } else if (draining && state.compareAndSet(QUARANTINED, RETIRED)) {
+            retirementHandler.accept(this);
+        }
+        return true;
+    }
+
+    /**
+     * Gets time since the last release or adding into pool.
+     *
+     * @param now Current time in nanoseconds.
+     * @return Idle time in nanoseconds.
+     */
+    long getIdleNanos(long now) {
+        return now - releasedAt;
+    }
+
+    /**
+     * Gets count of leases.
+     *
+     * @return Count of leases.
+     */
+    long getLeaseCount() {
+        return leaseCount.get();
+    }
+
+    /**
+     * Gets count of leased devices of device hub.
+     *
+     * @return Count of leased devices of hub.
+     */
+    int getHubLeaseCount() {
+        return getHubLeases(device).get();
+    }
+
+    /**
+     * Gets counter of leased devices of device hub. Hub is keyed by string, URL equality resolves host names.
+     *
+     * @param device Device of hub.
+     * @return Counter of leased devices.
+     */
+    private static AtomicInteger getHubLeases(Device device) {
+        return HUB_LEASES.computeIfAbsent(device.getUrlHub()
+                                                .toString(), hub -> new AtomicInteger());
+    }
+
+    /**
+     * Checks whether device can be leased.
+     *
+     * @return Is device free.
+     */
+    boolean isFree() {
+        return state.get() == FREE;
+    }
+
+    /**
+     * Checks whether device failed health check.
+     *
+     * @return Is device quarantined.
+     */
+    boolean isQuarantined() {
+        return state.get() == QUARANTINED;
+    }
+
+    /**
+     * Takes free device out of leasing. Stale entries of free devices queues are skipped on polling.
+     *
+     * @return {@code true} if device was free and now it is quarantined.
+     */
+    boolean quarantine() {
+        return state.compareAndSet(FREE, QUARANTINED);
+    }
+
+    /**
+     * Returns quarantined device to leasing. Draining device is retired instead.
+     *
+     * @return {@code true} if device was quarantined and now it is free or retired.
+     */
+    boolean restore() {
+        if (!state.compareAndSet(QUARANTINED, FREE)) {
+            return false;
+        }
+        suspended = false;
+        offer();
+        return true;
+    }
+
+    /**
+     * Checks whether device is held by another process.
+     *
+     * @return Is device remote.
+     */
+    boolean isRemote() {
+        return state.get() == REMOTE;
+    }
+
+    /**
+     * Returns device released by another process to leasing. Draining device is retired instead.
+     *
+     * @return {@code true} if device was remote.
+     */
+    boolean returnFromRemote() {
+        if (!state.compareAndSet(REMOTE, FREE)) {
+            return false;
+        }
+        offer();
+        return true;
+    }
+
+    /**
+     * Marks new device as booting. Has to be called before the first release.
+     */
+    void startBooting() {
+        state.set(BOOTING);
+    }
+
+    /**
+     * Finishes device boot. Ready device becomes free, failed one is quarantined. Draining device is retired.
+     *
+     * @param ready Is device ready.
+     * @return {@code true} if device was booting.
+     */
+    boolean finishBooting(boolean ready) {
+        if (!state.compareAndSet(BOOTING, ready ? FREE : QUARANTINED)) {
+            return false;
+        }
+        if (ready) {
+            offer();
+        } else if (draining && state.compareAndSet(QUARANTINED, RETIRED)) {
+            retirementHandler.accept(this);
+        }
+        return true;
+    }
+
+    /**
+     * Places free device into free devices queues of all its groups. Draining device is retired instead.
+     */
+    private void offer() {
+        if (draining && state.compareAndSet(FREE, RETIRED)) {
+            retirementHandler.accept(this);
+            return;
+        }
+        for (DeviceGroup.Member membership : memberships) {
+            membership.offer();
+        }
+    }
+
+    /**
+     * Checks whether device is removed from pool.
+     *
+     * @return Is device retired.
+     */
+    boolean isRetired() {
+        return state.get() == RETIRED;
+    }
+
+    /**
+     * Starts device removing. Free, quarantined and remote devices are retired at once,
+     * leased and booting ones are retired when they are released or booted.
+     *
+     * @param replacement Device added into pool when this one is retired, may be {@code null}.
+     */
+    void drain(Device replacement) {
+        this.replacement = replacement;
+        draining = true;
+        if (state.compareAndSet(FREE, RETIRED) || state.compareAndSet(QUARANTINED, RETIRED)
+                || state.compareAndSet(REMOTE, RETIRED)) {
+            retirementHandler.accept(this);
+        }
+    }
+
+    /**
+     * Gets device added into pool when this one is retired.
+     *
+     * @return Replacement device or {@code null}.
+     */
+    Device getReplacement() {
+        return replacement;
+    }
+
+    /**
+     * Adds group membership.
+     *
+     * @param membership Group membership.
+     */
+    void addMembership(DeviceGroup.Member membership) {
+        memberships.add(membership);
+    }
+
+    /**
+     * Checks whether some thread is waiting for device in any of its groups.
+     *
+     * @return Has device waiting threads.
+     */
+    boolean hasWaiters() {
+        for (DeviceGroup.Member membership : memberships) {
+            if (membership.getGroup()
+                          .hasWaiters()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Gets groups device belongs to.
+     *
+     * @return Groups of device.
+     */
+    List<DeviceGroup> getGroups() {
+        List<DeviceGroup> groups = new ArrayList<>(memberships.size());
+        for (DeviceGroup.Member membership : memberships) {
+            groups.add(membership.getGroup());
+        }
+        return groups;
+    }
+
+    /**
+     * Gets device statistics.
+     *
+     * @return Device statistics.
+     */
+    DeviceStats getStats() {
+        long now = System.nanoTime();
+        int currentState = state.get();
+        long leased = leasedNanos.get() + (currentState == LEASED && lease.get() != null ? now - leasedSince : 0);
+        long lifetime = Math.max(1, now - addedAt);
+        Map<String, Long> recoveries = new LinkedHashMap<>();
+        device.getRecoveryStats()
+              .forEach((tier, count) -> recoveries.put(tier.name(), count));
+        return new DeviceStats(device.getDeviceName(), device.getUrlHub()
+                                                             .toString(), getStateName(currentState),
+                               leaseCount.get(), Math.min(1.0, (double) leased / lifetime), recoveries);
+    }
+
+    /**
+     * Gets state name.
+     *
+     * @param state Device state.
+     * @return State name.
+     */
+    private static String getStateName(int state) {
+        String[] states = {"free", "leased", "retired", "quarantined", "booting", "remote", "releasing"};
+        return states[state];
+    }
+
+    /**
+     * Gets string of the slot state.
+     *
+     * @return String of the slot state.
+     */
+    @Override
+    public String toString() {
+        return String.format("%s=%s", device.getDeviceName(), getStateName(state.get()));
+    }
+}
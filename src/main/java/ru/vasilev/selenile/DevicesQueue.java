@@ -2,14 +2,7 @@ package ru.vasilev.selenile;
 
 import ru.vasilev.selenile.device.Device;
 
-import java.util.concurrent.ConcurrentHashMap;
-
 public abstract class DevicesQueue {
-    /**
-     * Devices list with thread ids.
-     */
-    private static final ConcurrentHashMap<Long, Device> DEVICES = new ConcurrentHashMap<>();
-
     /**
      * Private constructor.
      */
@@ -17,22 +10,25 @@ public abstract class DevicesQueue {
     }
 
     /**
-     * Gets device for current thread.
+     * Gets device of lease bound to current task. Lease is bound by {@link DeviceLease#attach()}
+     * or for the time of task wrapped by {@link DeviceLease#wrapRunnable(Runnable)}.
      *
-     * @return Current thread.
+     * @return Device of current lease or {@code null} if no open lease is bound.
      */
-    public static synchronized Device getDevice() {
-        return DEVICES.get(Thread.currentThread()
-                                 .getId());
+    public static Device getDevice() {
+        DeviceLease lease = DeviceLease.current();
+        return lease == null ? null : lease.getDevice();
     }
 
     /**
-     * Adds device for current thread.
+     * Binds current lease of device to current thread.
      *
-     * @param device Device for current thread.
+     * @param device Leased device.
      */
-    public static synchronized void addDevice(Device device) {
-        DEVICES.put(Thread.currentThread()
-                          .getId(), device);
+    public static void addDevice(Device device) {
+        DeviceLease lease = DevicePool.getLease(device);
+        if (lease != null) {
+            lease.attach();
+        }
     }
 }
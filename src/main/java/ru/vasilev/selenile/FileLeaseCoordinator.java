@@ -0,0 +1,144 @@
+package ru.vasilev.selenile;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import ru.vasilev.selenile.device.Device;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ConcurrentHashMap;
+
+public class FileLeaseCoordinator implements LeaseCoordinator {
+    /**
+     * Multi thread driver logger.
+     */
+    protected static final Logger LOGGER = LogManager.getLogger("MobileDriverParallel");
+
+    /**
+     * Directory of lock files shared by processes.
+     */
+    private final File directory;
+
+    /**
+     * Name of this process written into lock files.
+     */
+    private final String processName = ManagementFactory.getRuntimeMXBean()
+                                                        .getName();
+
+    /**
+     * Locks held by this process.
+     */
+    private final ConcurrentHashMap<Device, FileLock> locks = new ConcurrentHashMap<>();
+
+    /**
+     * Creates coordinator over lock files. Every device has its own lock file, operating system releases
+     * locks of crashed process.
+     *
+     * @param directory Directory of lock files shared by processes.
+     */
+    public FileLeaseCoordinator(File directory) {
+        this.directory = directory;
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IllegalStateException("Can't create lease directory " + directory.getAbsolutePath());
+        }
+        LOGGER.info("Device leases are coordinated in {}", directory.getAbsolutePath());
+    }
+
+    /**
+     * Locks device file.
+     *
+     * @param device Leased device.
+     * @return {@code true} if no other process holds device.
+     */
+    @Override
+    public boolean tryAcquire(Device device) {
+        FileChannel channel = null;
+        try {
+            channel = FileChannel.open(getLockFile(device).toPath(), StandardOpenOption.CREATE,
+                                       StandardOpenOption.WRITE);
+            FileLock lock = channel.tryLock();
+            if (lock == null) {
+                channel.close();
+                return false;
+            }
+            channel.truncate(0);
+            channel.write(ByteBuffer.wrap(processName.getBytes(StandardCharsets.UTF_8)));
+            locks.put(device, lock);
+            return true;
+        } catch (IOException | OverlappingFileLockException e) {
+            LOGGER.warn("Device {} lock error {}", device.getDeviceName(), e.toString());
+            closeQuietly(channel);
+            return false;
+        }
+    }
+
+    /**
+     * Unlocks device file.
+     *
+     * @param device Released device.
+     */
+    @Override
+    public void release(Device device) {
+        FileLock lock = locks.remove(device);
+        if (lock != null) {
+            closeQuietly(lock.channel());
+        }
+    }
+
+    /**
+     * Checks whether device file can be locked.
+     *
+     * @param device Device for checking.
+     * @return Is device free in all processes.
+     */
+    @Override
+    public boolean isAvailable(Device device) {
+        try (FileChannel channel = FileChannel.open(getLockFile(device).toPath(), StandardOpenOption.CREATE,
+                                                    StandardOpenOption.WRITE)) {
+            FileLock lock = channel.tryLock();
+            if (lock == null) {
+                return false;
+            }
+            lock.release();
+            return true;
+        } catch (IOException | OverlappingFileLockException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Gets lock file of device.
+     *
+     * @param device Device.
+     * @return Lock file.
+     */
+    private File getLockFile(Device device) {
+        String name = device.getDeviceName() + "@" + device.getUrlHub()
+                                                          .getHost() + "_" + device.getUrlHub()
+                                                                                   .getPort();
+        return new File(directory, name.replaceAll("[^A-Za-z0-9._@-]", "_") + ".lock");
+    }
+
+    /**
+     * Closes channel, releasing its lock.
+     *
+     * @param channel Channel or {@code null}.
+     */
+    private static void closeQuietly(FileChannel channel) {
+        if (channel == null) {
+            return;
+        }
+        try {
+            channel.close();
+        } catch (IOException e) {
+            LOGGER.warn("Lock file closing error {}", e.getMessage());
+        }
+    }
+}
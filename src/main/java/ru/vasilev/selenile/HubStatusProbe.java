@@ -0,0 +1,105 @@
+package ru.vasilev.selenile;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.net.HttpURLConnection;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+
+public class HubStatusProbe {
+    /**
+     * Multi thread driver logger.
+     */
+    protected static final Logger LOGGER = LogManager.getLogger("MobileDriverParallel");
+
+    /**
+     * Connect and read timeout in milliseconds.
+     */
+    private final int timeout;
+
+    /**
+     * Creates probe of Selenium Grid Hub status.
+     *
+     * @param timeout Connect and read timeout in milliseconds.
+     */
+    public HubStatusProbe(int timeout) {
+        this.timeout = timeout;
+    }
+
+    /**
+     * Requests {@code /status} of hub. Hub is healthy if it answers with 2xx code and JSON object body
+     * which doesn't report {@code value.ready} as false.
+     *
+     * @param hub Selenium Grid Hub URL.
+     * @return Is hub healthy.
+     */
+    public boolean isHealthy(URL hub) {
+        HttpURLConnection connection = null;
+        try {
+            connection = (HttpURLConnection) getStatusUrl(hub).openConnection();
+            connection.setConnectTimeout(timeout);
+            connection.setReadTimeout(timeout);
+            connection.setRequestMethod("GET");
+            if (connection.getResponseCode() / 100 != 2) {
+                LOGGER.debug("Hub {} status code {}", hub, connection.getResponseCode());
+                return false;
+            }
+            try (Reader reader = new InputStreamReader(connection.getInputStream(), StandardCharsets.UTF_8)) {
+                return isReady(JsonParser.parseReader(reader));
+            }
+        } catch (IOException | JsonParseException e) {
+            LOGGER.debug("Hub {} status request error {}", hub, e.getMessage());
+            return false;
+        } finally {
+            if (connection != null) {
+                connection.disconnect();
+            }
+        }
+    }
+
+    /**
+     * Gets status URL of hub.
+     *
+     * @param hub Selenium Grid Hub URL.
+     * @return Status URL.
+     * @throws MalformedURLException If status URL can't be built.
+     */
+    public static URL getStatusUrl(URL hub) throws MalformedURLException {
+        String path = hub.toString();
+        return new URL(path.endsWith("/") ? path + "status" : path + "/status");
+    }
+
+    /**
+     * Checks readiness reported by status body. Body without readiness flag means ready hub,
+     * body which isn't JSON object or has readiness flag of wrong type means hub isn't ready.
+     *
+     * @param status Status body.
+     * @return Is hub ready.
+     */
+    private static boolean isReady(JsonElement status) {
+        if (!status.isJsonObject()) {
+            LOGGER.debug("Hub status isn't JSON object: {}", status);
+            return false;
+        }
+        JsonElement value = status.getAsJsonObject()
+                                  .get("value");
+        if (value == null || !value.isJsonObject()) {
+            return true;
+        }
+        JsonObject valueObject = value.getAsJsonObject();
+        if (!valueObject.has("ready")) {
+            return true;
+        }
+        JsonElement ready = valueObject.get("ready");
+        return ready.isJsonPrimitive() && ready.getAsBoolean();
+    }
+}
@@ -0,0 +1,29 @@
+package ru.vasilev.selenile;
+
+import ru.vasilev.selenile.device.Device;
+
+public interface LeaseCoordinator {
+    /**
+     * Claims device for this process. Called after device is leased inside the process.
+     *
+     * @param device Leased device.
+     * @return {@code true} if no other process holds device.
+     */
+    boolean tryAcquire(Device device);
+
+    /**
+     * Gives up claim of device. Called before device is released inside the process.
+     * Device not claimed by this process is ignored.
+     *
+     * @param device Released device.
+     */
+    void release(Device device);
+
+    /**
+     * Checks whether device held by another process became available.
+     *
+     * @param device Device for checking.
+     * @return Is device free in all processes.
+     */
+    boolean isAvailable(Device device);
+}
@@ -0,0 +1,202 @@
+package ru.vasilev.selenile;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+
+final class LeaseDispatcher {
+    /**
+     * Multi thread driver logger.
+     */
+    private static final Logger LOGGER = LogManager.getLogger("MobileDriverParallel");
+
+    /**
+     * Groups of pool.
+     */
+    private final CopyOnWriteArrayList<DeviceGroup> groups = new CopyOnWriteArrayList<>();
+
+    /**
+     * Count of dispatch calls not served yet. Thread increasing it from zero dispatches pool.
+     */
+    private final AtomicInteger dispatchRequests = new AtomicInteger();
+
+    /**
+     * Creates dispatcher.
+     *
+     * @param group Group of all pooled devices.
+     */
+    LeaseDispatcher(DeviceGroup group) {
+        register(group);
+    }
+
+    /**
+     * Registers new group. Has to be called before group is available for waiting.
+     *
+     * @param group New group.
+     */
+    void register(DeviceGroup group) {
+        groups.add(group);
+    }
+
+    /**
+     * Hands free devices to waiting threads of all groups while both are present. Waiters are served in
+     * {@link DeviceGroup#WAITER_ORDER} across groups, so device shared by several groups goes to the waiter
+     * with the earliest effective deadline whichever group it waits in. Waiter needing several devices gets
+     * them all at once; until it can, free devices of its group are reserved for it, so waiters behind it
+     * in any group can't starve it. Called after every release and every new waiter, so a device released
+     * concurrently with waiter arrival can't be missed by both sides. Only one thread dispatches pool at once,
+     * calls made meanwhile are served by that thread, so concurrent dispatches don't split free devices
+     * between them. If dispatching fails, pending calls are dropped, so the next call dispatches pool again.
+     * When nobody waits, call returns at once: new waiter dispatches pool itself after it is counted,
+     * so a device freed meanwhile isn't missed.
+     */
+    void dispatch() {
+        if (!DeviceGroup.hasAnyWaiters() || dispatchRequests.getAndIncrement() != 0) {
+            return;
+        }
+        int requests = 1;
+        boolean finished = false;
+        try {
+            do {
+                dispatchWaiters();
+                requests = dispatchRequests.addAndGet(-requests);
+            } while (requests != 0);
+            finished = true;
+        } finally {
+            if (!finished) {
+                dispatchRequests.set(0);
+            }
+        }
+    }
+
+    /**
+     * Serves waiters of all groups in order. Waiter queues of groups are kept ordered, so they are merged
+     * by their heads instead of sorting all waiters on every call.
+     */
+    private void dispatchWaiters() {
+        PriorityQueue<Cursor> heads = new PriorityQueue<>();
+        for (DeviceGroup group : groups) {
+            Cursor cursor = new Cursor(group.iterateWaiters());
+            if (cursor.next()) {
+                heads.add(cursor);
+            }
+        }
+        final Set<DeviceSlot> reserved = new HashSet<>();
+        final Predicate<DeviceSlot> unreserved = slot -> !reserved.contains(slot);
+        Cursor cursor;
+        while ((cursor = heads.poll()) != null) {
+            DeviceGroup.Waiter waiter = cursor.waiter;
+            if (!waiter.isDone() && !serveSafely(waiter, unreserved)) {
+                waiter.getGroup()
+                      .reserveFree(reserved);
+            }
+            if (cursor.next()) {
+                heads.add(cursor);
+            }
+        }
+    }
+
+    /**
+     * Hands devices to waiter and logs unexpected errors, e.g. of selection strategy or lease coordinator,
+     * so that one failing waiter doesn't stop serving the rest.
+     *
+     * @param waiter   Waiter.
+     * @param eligible Filter of devices that may be taken.
+     * @return {@code false} if waiter isn't served.
+     */
+    private static boolean serveSafely(DeviceGroup.Waiter waiter, Predicate<DeviceSlot> eligible) {
+        try {
+            return serve(waiter, eligible);
+        } catch (RuntimeException e) {
+            LOGGER.error("Devices can't be handed to waiter of {}", waiter.getGroup(), e);
+            return false;
+        }
+    }
+
+    /**
+     * Hands devices to waiter. Devices are claimed before waiter is taken, so devices aren't opened
+     * for cancelled waiter and waiter isn't held while devices are missing.
+     *
+     * @param waiter   Waiter.
+     * @param eligible Filter of devices that may be taken.
+     * @return {@code false} if waiter's group lacks eligible free devices.
+     */
+    private static boolean serve(DeviceGroup.Waiter waiter, Predicate<DeviceSlot> eligible) {
+        while (true) {
+            List<DeviceSlot> claimed = waiter.getGroup()
+                                             .claim(waiter.getRequester(), waiter.getCount(), eligible);
+            if (claimed == null) {
+                return false;
+            }
+            if (!waiter.take()) {
+                DeviceGroup.unclaim(claimed);
+                return true;
+            }
+            final List<DeviceLease> leases;
+            try {
+                leases = DeviceGroup.open(claimed);
+            } catch (RuntimeException e) {
+                waiter.untake();
+                throw e;
+            }
+            if (leases != null) {
+                waiter.serve(leases);
+                return true;
+            }
+            waiter.untake();
+        }
+    }
+
+    private static final class Cursor implements Comparable<Cursor> {
+        /**
+         * Waiters of group in order.
+         */
+        private final Iterator<DeviceGroup.Waiter> waiters;
+
+        /**
+         * Current waiter.
+         */
+        private DeviceGroup.Waiter waiter;
+
+        /**
+         * Creates cursor before the first waiter of group.
+         *
+         * @param waiters Waiters of group in order.
+         */
+        private Cursor(Iterator<DeviceGroup.Waiter> waiters) {
+            this.waiters = waiters;
+        }
+
+        /**
+         * Moves to the next waiter.
+         *
+         * @return {@code false} if group has no more waiters.
+         */
+        private boolean next() {
+            if (!waiters.hasNext()) {
+                return false;
+            }
+            waiter = waiters.next();
+            return true;
+        }
+
+        /**
+         * Compares current waiters of cursors.
+         *
+         * @param other Another cursor.
+         * @return Comparison result of waiters in {@link DeviceGroup#WAITER_ORDER}.
+         */
+        @Override
+        public int compareTo(Cursor other) {
+            return DeviceGroup.WAITER_ORDER.compare(waiter, other.waiter);
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package ru.vasilev.selenile;
+
+public enum LeasePriority {
+    /**
+     * Requests gating deploys, e.g. smoke suites. Served first.
+     */
+    HIGH(0),
+
+    /**
+     * Regular requests.
+     */
+    NORMAL(1),
+
+    /**
+     * Background requests, e.g. nightly regression. Served when they waited long enough.
+     */
+    LOW(2);
+
+    /**
+     * Count of aging periods request of this class waits before it outranks a new high priority request.
+     */
+    private final int agingPeriods;
+
+    /**
+     * Creates priority class.
+     *
+     * @param agingPeriods Count of aging periods request waits before it outranks a new high priority request.
+     */
+    LeasePriority(int agingPeriods) {
+        this.agingPeriods = agingPeriods;
+    }
+
+    /**
+     * Gets count of aging periods request of this class waits before it outranks a new high priority request.
+     *
+     * @return Count of aging periods.
+     */
+    int getAgingPeriods() {
+        return agingPeriods;
+    }
+}
@@ -0,0 +1,99 @@
+package ru.vasilev.selenile;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import ru.vasilev.selenile.metrics.PoolMetrics;
+
+import java.io.Closeable;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+public class LeaseReaper implements Closeable {
+    /**
+     * Multi thread driver logger.
+     */
+    protected static final Logger LOGGER = LogManager.getLogger("MobileDriverParallel");
+
+    /**
+     * The shortest period of checks in milliseconds.
+     */
+    private static final long MIN_CHECK_INTERVAL = 1000;
+
+    /**
+     * The longest period of checks in milliseconds.
+     */
+    private static final long MAX_CHECK_INTERVAL = 60000;
+
+    /**
+     * Maximum lease duration in nanoseconds.
+     */
+    private final long maxDuration;
+
+    /**
+     * Checking scheduler.
+     */
+    private final ScheduledExecutorService scheduler;
+
+    /**
+     * Creates reaper.
+     *
+     * @param maxDuration Maximum lease duration.
+     * @param unit        Time unit of {@code maxDuration}.
+     */
+    LeaseReaper(long maxDuration, TimeUnit unit) {
+        this.maxDuration = unit.toNanos(maxDuration);
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(new DaemonThreadFactory("lease-reaper"));
+    }
+
+    /**
+     * Starts checking leases. Leases are checked four times per maximum duration, but not more often than
+     * every second and not less often than every minute.
+     */
+    void start() {
+        long interval = Math.max(MIN_CHECK_INTERVAL, Math.min(MAX_CHECK_INTERVAL,
+                                                              TimeUnit.NANOSECONDS.toMillis(maxDuration) / 4));
+        scheduler.scheduleWithFixedDelay(this::reapSafely, interval, interval, TimeUnit.MILLISECONDS);
+        LOGGER.info("Device leases longer than {} s are reclaimed", TimeUnit.NANOSECONDS.toSeconds(maxDuration));
+    }
+
+    /**
+     * Reclaims expired leases once: reports leak, closes session of lease and returns device into pool.
+     *
+     * @return Count of reclaimed leases.
+     */
+    public int reap() {
+        int reclaimed = 0;
+        for (DeviceLease lease : DevicePool.getOpenLeases()) {
+            if (lease.getAge(TimeUnit.NANOSECONDS) < maxDuration) {
+                continue;
+            }
+            String report = lease.describe();
+            if (lease.reclaim()) {
+                reclaimed++;
+                PoolMetrics.increment(PoolMetrics.LEASES_RECLAIMED);
+                LOGGER.warn("Device lease leak is reclaimed. {}", report);
+            }
+        }
+        return reclaimed;
+    }
+
+    /**
+     * Stops checking.
+     */
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * Reclaims leases and logs unexpected errors, so that scheduling isn't stopped.
+     */
+    private void reapSafely() {
+        try {
+            reap();
+        } catch (RuntimeException e) {
+            LOGGER.error("Device leases reclaiming error", e);
+        }
+    }
+}
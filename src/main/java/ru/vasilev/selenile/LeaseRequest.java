@@ -0,0 +1,153 @@
+package ru.vasilev.selenile;
+
+import org.openqa.selenium.Capabilities;
+
+import java.util.concurrent.TimeUnit;
+
+public final class LeaseRequest {
+    /**
+     * Requested capabilities, {@code null} matches any device.
+     */
+    private final Capabilities capabilities;
+
+    /**
+     * Class requesting device or {@code null} if it is unknown.
+     */
+    private final String requester;
+
+    /**
+     * Priority class.
+     */
+    private final LeasePriority priority;
+
+    /**
+     * Time in nanoseconds device is needed by or {@code null} if request has no deadline.
+     */
+    private final Long deadline;
+
+    /**
+     * Creates request of normal priority without deadline.
+     *
+     * @param capabilities Requested capabilities, {@code null} matches any device.
+     */
+    public LeaseRequest(Capabilities capabilities) {
+        this(capabilities, null, LeasePriority.NORMAL, null);
+    }
+
+    /**
+     * Creates request.
+     *
+     * @param capabilities Requested capabilities, {@code null} matches any device.
+     * @param requester    Class requesting device or {@code null} if it is unknown.
+     * @param priority     Priority class.
+     * @param deadline     Time in nanoseconds device is needed by or {@code null} if request has no deadline.
+     */
+    private LeaseRequest(Capabilities capabilities, String requester, LeasePriority priority, Long deadline) {
+        this.capabilities = capabilities;
+        this.requester = requester;
+        this.priority = priority;
+        this.deadline = deadline;
+    }
+
+    /**
+     * Creates copy of request with capabilities.
+     *
+     * @param capabilities Requested capabilities, {@code null} matches any device.
+     * @return New request.
+     */
+    public LeaseRequest withCapabilities(Capabilities capabilities) {
+        return new LeaseRequest(capabilities, requester, priority, deadline);
+    }
+
+    /**
+     * Creates copy of request with requester.
+     *
+     * @param requester Class requesting device, see {@link DevicePool#getRequester()}.
+     * @return New request.
+     */
+    public LeaseRequest withRequester(String requester) {
+        return new LeaseRequest(capabilities, requester, priority, deadline);
+    }
+
+    /**
+     * Creates copy of request with priority class.
+     *
+     * @param priority Priority class.
+     * @return New request.
+     */
+    public LeaseRequest withPriority(LeasePriority priority) {
+        return new LeaseRequest(capabilities, requester, priority, deadline);
+    }
+
+    /**
+     * Creates copy of request that has to be served within {@code timeout} from now. Request with deadline is
+     * served before requests of its class with later deadlines and is rejected at once if pool can't serve it in time.
+     * Deadline doesn't lift request above requests of higher classes waiting with it, and deadline further than
+     * one lease aging period orders request as if it had none.
+     *
+     * @param timeout Time device is needed within.
+     * @param unit    Time unit of {@code timeout}.
+     * @return New request.
+     */
+    public LeaseRequest withDeadline(long timeout, TimeUnit unit) {
+        return new LeaseRequest(capabilities, requester, priority, System.nanoTime() + unit.toNanos(timeout));
+    }
+
+    /**
+     * Gets requested capabilities.
+     *
+     * @return Requested capabilities, {@code null} matches any device.
+     */
+    public Capabilities getCapabilities() {
+        return capabilities;
+    }
+
+    /**
+     * Gets class requesting device.
+     *
+     * @return Class name or {@code null} if it is unknown.
+     */
+    public String getRequester() {
+        return requester;
+    }
+
+    /**
+     * Gets priority class.
+     *
+     * @return Priority class.
+     */
+    public LeasePriority getPriority() {
+        return priority;
+    }
+
+    /**
+     * Checks whether request has deadline.
+     *
+     * @return Has request deadline.
+     */
+    public boolean hasDeadline() {
+        return deadline != null;
+    }
+
+    /**
+     * Gets time left until deadline.
+     *
+     * @param unit Time unit of result.
+     * @return Time left, negative if deadline is passed, {@link Long#MAX_VALUE} if request has no deadline.
+     */
+    public long getTimeLeft(TimeUnit unit) {
+        return deadline == null ? Long.MAX_VALUE : unit.convert(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Gets string of the request.
+     *
+     * @return String of the request.
+     */
+    @Override
+    public String toString() {
+        return String.format("LeaseRequest{priority=%s, deadline=%s, requester=%s, capabilities=%s}", priority,
+                             deadline == null ? "none" : getTimeLeft(TimeUnit.MILLISECONDS) + "ms", requester,
+                             capabilities);
+    }
+}
@@ -0,0 +1,36 @@
+package ru.vasilev.selenile;
+
+import ru.vasilev.selenile.device.Device;
+
+final class LocalLeaseCoordinator implements LeaseCoordinator {
+    /**
+     * Claims device. Pool of single process has no one to share with.
+     *
+     * @param device Leased device.
+     * @return Always {@code true}.
+     */
+    @Override
+    public boolean tryAcquire(Device device) {
+        return true;
+    }
+
+    /**
+     * Does nothing.
+     *
+     * @param device Released device.
+     */
+    @Override
+    public void release(Device device) {
+    }
+
+    /**
+     * Checks device availability.
+     *
+     * @param device Device for checking.
+     * @return Always {@code true}.
+     */
+    @Override
+    public boolean isAvailable(Device device) {
+        return true;
+    }
+}
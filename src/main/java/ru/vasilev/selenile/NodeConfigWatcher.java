@@ -0,0 +1,152 @@
+package ru.vasilev.selenile;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import ru.vasilev.selenile.config.SelenileProperties;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import static java.nio.file.StandardWatchEventKinds.*;
+
+public class NodeConfigWatcher implements Closeable {
+    /**
+     * Multi thread driver logger.
+     */
+    protected static final Logger LOGGER = LogManager.getLogger("MobileDriverParallel");
+
+    /**
+     * Default time in milliseconds to collect changes before applying them.
+     * Editors and copying tools write files in several steps.
+     */
+    private static final long DEFAULT_SETTLE_TIME = 500;
+
+    /**
+     * Watched directory.
+     */
+    private final File directory;
+
+    /**
+     * Directory watch service.
+     */
+    private final WatchService watchService;
+
+    /**
+     * Time in milliseconds to collect changes before applying them.
+     */
+    private final long settleTime;
+
+    /**
+     * Thread applying changes.
+     */
+    private final Thread thread;
+
+    /**
+     * Creates watcher of directory.
+     *
+     * @param directory Directory with node configurations.
+     * @throws IOException If directory can't be watched.
+     */
+    private NodeConfigWatcher(File directory) throws IOException {
+        this.directory = directory;
+        this.watchService = FileSystems.getDefault()
+                                       .newWatchService();
+        this.settleTime = SelenileProperties.getLong("nodeconfigsettletime", DEFAULT_SETTLE_TIME);
+        directory.toPath()
+                 .register(watchService, ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE);
+        this.thread = new DaemonThreadFactory("node-config-watcher").newThread(this::watch);
+    }
+
+    /**
+     * Starts watching node configurations directory. Created and changed files are reloaded into pool,
+     * devices of deleted files are removed from pool.
+     *
+     * @param directory Directory with node configurations.
+     * @return Started watcher.
+     * @throws IllegalStateException If directory can't be watched.
+     */
+    public static NodeConfigWatcher start(File directory) {
+        try {
+            NodeConfigWatcher watcher = new NodeConfigWatcher(directory);
+            watcher.thread.start();
+            LOGGER.info("Watching node configurations in {}", directory.getAbsolutePath());
+            return watcher;
+        } catch (IOException e) {
+            throw new IllegalStateException("Can't watch node configurations directory " + directory.getPath(), e);
+        }
+    }
+
+    /**
+     * Stops watching.
+     *
+     * @throws IOException If watch service can't be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        thread.interrupt();
+        watchService.close();
+    }
+
+    /**
+     * Waits for directory changes and applies them to pool.
+     */
+    private void watch() {
+        try {
+            while (!Thread.currentThread()
+                          .isInterrupted()) {
+                WatchKey key = watchService.take();
+                Thread.sleep(settleTime);
+                Set<String> changedFiles = new LinkedHashSet<>();
+                boolean overflow = false;
+                while (key != null) {
+                    for (WatchEvent<?> event : key.pollEvents()) {
+                        if (event.kind() == OVERFLOW) {
+                            overflow = true;
+                        } else {
+                            changedFiles.add(event.context()
+                                                  .toString());
+                        }
+                    }
+                    key.reset();
+                    key = watchService.poll();
+                }
+                apply(changedFiles, overflow);
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            LOGGER.info("Node configurations watching is stopped");
+        }
+    }
+
+    /**
+     * Applies collected changes to pool.
+     *
+     * @param changedFiles Names of changed files.
+     * @param overflow     Are some changes lost, so whole directory has to be reread.
+     */
+    private void apply(Set<String> changedFiles, boolean overflow) {
+        try {
+            if (overflow) {
+                DevicePool.reloadDevices(directory);
+                return;
+            }
+            for (String name : changedFiles) {
+                if (!name.toLowerCase()
+                         .endsWith(".json")) {
+                    continue;
+                }
+                File nodeConfigFile = new File(directory, name);
+                if (nodeConfigFile.isFile()) {
+                    DevicePool.reloadDevice(nodeConfigFile);
+                } else {
+                    DevicePool.removeDevice(nodeConfigFile);
+                }
+            }
+        } catch (RuntimeException e) {
+            LOGGER.error("Node configurations changes applying error", e);
+        }
+    }
+}
@@ -4,9 +4,21 @@ import org.openqa.selenium.remote.DesiredCapabilities;
 
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.Map;
 
 public class NodeConfig {
+    /**
+     * Node capability limiting count of concurrent sessions of node.
+     */
+    public static final String MAX_INSTANCES = "maxInstances";
+
+    /**
+     * Count of concurrent sessions of node which doesn't declare {@code maxInstances}.
+     */
+    private static final int DEFAULT_MAX_INSTANCES = 1;
+
     /**
      * Desired capabilities.
      */
@@ -17,6 +29,11 @@ public class NodeConfig {
      */
     private final HashMap<String, Object> configuration;
 
+    /**
+     * URL connection to Selenium Grid Hub built from configuration. Built on the first request, URL is immutable.
+     */
+    private transient URL hubConfiguration;
+
     /**
      * Configuration constructor.
      *
@@ -24,8 +41,20 @@ public class NodeConfig {
      * @param configuration Configuration connecting to Selenium Grid Hub.
      */
     public NodeConfig(DesiredCapabilities capabilities, HashMap<String, Object> configuration) {
+        this(capabilities, configuration, null);
+    }
+
+    /**
+     * Configuration constructor with hub URL built before, e.g. read from pool snapshot.
+     *
+     * @param capabilities     Device capability.
+     * @param configuration    Configuration connecting to Selenium Grid Hub.
+     * @param hubConfiguration URL connection to Selenium Grid Hub or {@code null} to build it from configuration.
+     */
+    public NodeConfig(DesiredCapabilities capabilities, HashMap<String, Object> configuration, URL hubConfiguration) {
         this.capabilities = capabilities;
         this.configuration = configuration;
+        this.hubConfiguration = hubConfiguration;
     }
 
     /**
@@ -37,6 +66,35 @@ public class NodeConfig {
         return capabilities;
     }
 
+    /**
+     * Gets capabilities passed to driver: node capabilities without node limits.
+     *
+     * @return Driver capabilities.
+     */
+    public DesiredCapabilities getDriverCapabilities() {
+        if (capabilities.getCapability(MAX_INSTANCES) == null) {
+            return capabilities;
+        }
+        DesiredCapabilities driverCapabilities = new DesiredCapabilities();
+        capabilities.asMap()
+                    .forEach((name, value) -> {
+                        if (!MAX_INSTANCES.equals(name)) {
+                            driverCapabilities.setCapability(name, value);
+                        }
+                    });
+        return driverCapabilities;
+    }
+
+    /**
+     * Gets count of concurrent sessions node accepts from capability {@code maxInstances}.
+     *
+     * @return Maximum count of concurrent sessions, 1 if node doesn't declare it.
+     */
+    public int getMaxInstances() {
+        Object maxInstances = capabilities.getCapability(MAX_INSTANCES);
+        return maxInstances instanceof Number ? ((Number) maxInstances).intValue() : DEFAULT_MAX_INSTANCES;
+    }
+
     /**
      * Gets configuration value on {@code key}.
      *
@@ -47,6 +105,15 @@ public class NodeConfig {
         return configuration.get(key);
     }
 
+    /**
+     * Gets configuration connecting to Selenium Grid Hub.
+     *
+     * @return Configuration connecting to Selenium Grid Hub.
+     */
+    public Map<String, Object> getConfiguration() {
+        return Collections.unmodifiableMap(configuration);
+    }
+
     /**
      * Converts object to string.
      *
@@ -65,10 +132,15 @@ public class NodeConfig {
      * @return URL connection to Selenium Grid Hub.
      */
     public URL getHubConfiguration() throws MalformedURLException {
-        return new URL(String.format("%s://%s:%s/wd/hub",
-                                     getValueOf("hubProtocol"),
-                                     getValueOf("hubHost"),
-                                     getValueOf("hubPort").toString()
-                                                          .replace(".0", "")));
+        URL hub = hubConfiguration;
+        if (hub == null) {
+            hub = new URL(String.format("%s://%s:%s/wd/hub",
+                                        getValueOf("hubProtocol"),
+                                        getValueOf("hubHost"),
+                                        getValueOf("hubPort").toString()
+                                                             .replace(".0", "")));
+            hubConfiguration = hub;
+        }
+        return hub;
     }
 }
@@ -0,0 +1,138 @@
+package ru.vasilev.selenile.config;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonIOException;
+import com.google.gson.JsonSyntaxException;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.openqa.selenium.remote.DesiredCapabilities;
+import ru.vasilev.selenile.DaemonThreadFactory;
+import ru.vasilev.selenile.deserializer.CapabilityDeserializer;
+
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+
+public class NodeConfigLoader {
+    /**
+     * Multi thread driver logger.
+     */
+    protected static final Logger LOGGER = LogManager.getLogger("MobileDriverParallel");
+
+    /**
+     * Node configuration parser. Parser is thread safe and shared by all loadings.
+     */
+    private static final Gson GSON = new GsonBuilder().registerTypeAdapter(DesiredCapabilities.class,
+                                                                           new CapabilityDeserializer())
+                                                      .create();
+
+    /**
+     * Count of files parsed at the same time.
+     */
+    private final int parallelism;
+
+    /**
+     * Creates loader.
+     *
+     * @param parallelism Count of files parsed at the same time.
+     */
+    public NodeConfigLoader(int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Wrong node configuration loading parallelism: " + parallelism);
+        }
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Reads node configuration from file.
+     *
+     * @param nodeConfigFile Node configuration file.
+     * @return Node configuration or {@code null} if file is empty.
+     * @throws IOException         If file can't be read.
+     * @throws JsonSyntaxException If file has wrong format.
+     */
+    public static NodeConfig read(File nodeConfigFile) throws IOException {
+        try (Reader nodeConfigFileReader = new FileReader(nodeConfigFile)) {
+            return GSON.fromJson(nodeConfigFileReader, NodeConfig.class);
+        }
+    }
+
+    /**
+     * Lists node configuration files of directory.
+     *
+     * @param directory Directory with node configurations.
+     * @return Node configuration files.
+     * @throws IllegalStateException If directory can't be read.
+     */
+    public static File[] listFiles(File directory) {
+        File[] nodeConfigFiles = directory.listFiles((dir, name) -> name.toLowerCase()
+                                                                        .endsWith(".json"));
+        if (nodeConfigFiles == null) {
+            throw new IllegalStateException("Can't read node configurations directory " + directory.getPath());
+        }
+        return nodeConfigFiles;
+    }
+
+    /**
+     * Reads all node configurations of directory in parallel.
+     * Every configuration is given to {@code consumer} as soon as it is parsed, so consumer has to be thread safe.
+     * Empty files and files with wrong format are skipped.
+     *
+     * @param directory Directory with node configurations.
+     * @param consumer  Handler of parsed configuration and its file.
+     * @return Future completed when all files are handled.
+     */
+    public CompletableFuture<Void> loadAsync(File directory, BiConsumer<File, NodeConfig> consumer) {
+        final File[] nodeConfigFiles = listFiles(directory);
+        final ExecutorService executor = createExecutor(Math.min(parallelism, Math.max(1, nodeConfigFiles.length)));
+        final CompletableFuture<?>[] tasks = new CompletableFuture<?>[nodeConfigFiles.length];
+        for (int i = 0; i < nodeConfigFiles.length; i++) {
+            final File nodeConfigFile = nodeConfigFiles[i];
+            tasks[i] = CompletableFuture.runAsync(() -> load(nodeConfigFile, consumer), executor);
+        }
+        return CompletableFuture.allOf(tasks)
+                                .whenComplete((result, e) -> executor.shutdown());
+    }
+
+    /**
+     * Reads node configuration and gives it to consumer.
+     *
+     * @param nodeConfigFile Node configuration file.
+     * @param consumer       Handler of parsed configuration and its file.
+     */
+    private static void load(File nodeConfigFile, BiConsumer<File, NodeConfig> consumer) {
+        LOGGER.info("Node config file processing:{}", nodeConfigFile.getAbsolutePath());
+        try {
+            NodeConfig nodeConfig = read(nodeConfigFile);
+            if (nodeConfig == null) {
+                LOGGER.error("Reading configuration error <{}> file is empty", nodeConfigFile.getName());
+                return;
+            }
+            LOGGER.info("Node configuration:{}", nodeConfig);
+            consumer.accept(nodeConfigFile, nodeConfig);
+        } catch (IOException | JsonSyntaxException | JsonIOException e) {
+            LOGGER.error("Reading configuration error <{}> {}", nodeConfigFile.getName(), e.getMessage());
+        } catch (RuntimeException e) {
+            LOGGER.error("Node configuration handling error <{}>", nodeConfigFile.getName(), e);
+        }
+    }
+
+    /**
+     * Creates executor with daemon threads that doesn't keep JVM alive.
+     *
+     * @param threads Count of threads.
+     * @return New executor.
+     */
+    private static ExecutorService createExecutor(int threads) {
+        return new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(),
+                                      new DaemonThreadFactory("node-config-loader"));
+    }
+}
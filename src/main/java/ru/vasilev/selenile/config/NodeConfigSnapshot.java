@@ -0,0 +1,405 @@
+package ru.vasilev.selenile.config;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.openqa.selenium.remote.DesiredCapabilities;
+
+import java.io.*;
+import java.math.BigInteger;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.*;
+
+public class NodeConfigSnapshot {
+    /**
+     * Multi thread driver logger.
+     */
+    protected static final Logger LOGGER = LogManager.getLogger("MobileDriverParallel");
+
+    /**
+     * Marker of snapshot file.
+     */
+    private static final int MAGIC = 0x53454C4E;
+
+    /**
+     * Snapshot format version. Snapshot of other version is ignored.
+     */
+    private static final int VERSION = 2;
+
+    /**
+     * Tag of {@code null} value.
+     */
+    private static final byte NULL = 0;
+
+    /**
+     * Tag of string value.
+     */
+    private static final byte STRING = 1;
+
+    /**
+     * Tag of integer value.
+     */
+    private static final byte INTEGER = 2;
+
+    /**
+     * Tag of long value.
+     */
+    private static final byte LONG = 3;
+
+    /**
+     * Tag of double value.
+     */
+    private static final byte DOUBLE = 4;
+
+    /**
+     * Tag of boolean value.
+     */
+    private static final byte BOOLEAN = 5;
+
+    /**
+     * Tag of map value.
+     */
+    private static final byte MAP = 6;
+
+    /**
+     * Tag of list value.
+     */
+    private static final byte LIST = 7;
+
+    /**
+     * Tag of big integer value.
+     */
+    private static final byte BIG_INTEGER = 8;
+
+    /**
+     * Index of string written the first time. Such string is followed by its text, next times only its index is written.
+     */
+    private static final int NEW_STRING = -1;
+
+    /**
+     * Snapshot file.
+     */
+    private final File snapshotFile;
+
+    /**
+     * Creates snapshot stored in file.
+     *
+     * @param snapshotFile Snapshot file.
+     */
+    public NodeConfigSnapshot(File snapshotFile) {
+        this.snapshotFile = snapshotFile;
+    }
+
+    /**
+     * Gets snapshot file.
+     *
+     * @return Snapshot file.
+     */
+    public File getSnapshotFile() {
+        return snapshotFile;
+    }
+
+    /**
+     * Computes fingerprint of node configurations directory: path, names, sizes and modification times of its files.
+     *
+     * @param directory Directory with node configurations.
+     * @return Directory fingerprint.
+     * @throws IllegalStateException If directory can't be read.
+     */
+    public static byte[] fingerprint(File directory) {
+        File[] nodeConfigFiles = NodeConfigLoader.listFiles(directory);
+        Arrays.sort(nodeConfigFiles);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeUTF(directory.toPath()
+                                  .toAbsolutePath()
+                                  .normalize()
+                                  .toString());
+            out.writeInt(nodeConfigFiles.length);
+            for (File nodeConfigFile : nodeConfigFiles) {
+                BasicFileAttributes attributes = Files.readAttributes(nodeConfigFile.toPath(),
+                                                                      BasicFileAttributes.class);
+                out.writeUTF(nodeConfigFile.getName());
+                out.writeLong(attributes.size());
+                out.writeLong(attributes.lastModifiedTime()
+                                        .toMillis());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Reads node configurations of directory from snapshot.
+     *
+     * @param directory Directory with node configurations.
+     * @return Node configurations by file or {@code null} if snapshot is missing, broken or directory is changed.
+     */
+    public Map<File, NodeConfig> load(File directory) {
+        if (!snapshotFile.isFile()) {
+            return null;
+        }
+        final byte[] fingerprint = fingerprint(directory);
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(snapshotFile)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                return null;
+            }
+            byte[] savedFingerprint = new byte[in.readInt()];
+            in.readFully(savedFingerprint);
+            if (!Arrays.equals(fingerprint, savedFingerprint)) {
+                return null;
+            }
+            int count = in.readInt();
+            List<String> strings = new ArrayList<>();
+            Map<File, NodeConfig> nodeConfigs = new LinkedHashMap<>();
+            for (int i = 0; i < count; i++) {
+                File nodeConfigFile = new File(directory, readString(in, strings));
+                URL hub = new URL(readString(in, strings));
+                HashMap<String, Object> configuration = new HashMap<>(readMap(in, strings));
+                DesiredCapabilities capabilities = new DesiredCapabilities();
+                readMap(in, strings).forEach(capabilities::setCapability);
+                nodeConfigs.put(nodeConfigFile, new NodeConfig(capabilities, configuration, hub));
+            }
+            return nodeConfigs;
+        } catch (IOException | RuntimeException e) {
+            LOGGER.warn("Pool snapshot {} can't be read: {}", snapshotFile.getPath(), e.toString());
+            return null;
+        }
+    }
+
+    /**
+     * Writes node configurations of directory into snapshot. Snapshot file is replaced atomically,
+     * so concurrent processes never read partly written snapshot. Empty configurations and configurations
+     * with wrong hub are skipped, pool doesn't have their devices either.
+     *
+     * @param fingerprint Directory fingerprint taken before configurations were read.
+     * @param nodeConfigs Node configurations by file.
+     */
+    public void save(byte[] fingerprint, Map<File, NodeConfig> nodeConfigs) {
+        Map<File, String> hubs = new LinkedHashMap<>();
+        for (Map.Entry<File, NodeConfig> entry : nodeConfigs.entrySet()) {
+            String hub = getHub(entry.getValue());
+            if (hub == null) {
+                LOGGER.warn("Node configuration {} isn't saved into pool snapshot, it has no valid hub",
+                            entry.getKey()
+                                 .getName());
+                continue;
+            }
+            hubs.put(entry.getKey(), hub);
+        }
+        File directory = snapshotFile.getAbsoluteFile()
+                                     .getParentFile();
+        File temporary = null;
+        try {
+            if (!directory.isDirectory() && !directory.mkdirs()) {
+                throw new IOException("Can't create directory " + directory.getPath());
+            }
+            temporary = File.createTempFile(snapshotFile.getName(), ".tmp", directory);
+            try (DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(new FileOutputStream(temporary)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeInt(fingerprint.length);
+                out.write(fingerprint);
+                out.writeInt(hubs.size());
+                Map<String, Integer> strings = new HashMap<>();
+                for (Map.Entry<File, String> entry : hubs.entrySet()) {
+                    NodeConfig nodeConfig = nodeConfigs.get(entry.getKey());
+                    writeString(out, strings, entry.getKey()
+                                                   .getName());
+                    writeString(out, strings, entry.getValue());
+                    writeValue(out, strings, nodeConfig.getConfiguration());
+                    writeValue(out, strings, nodeConfig.getCapabilities()
+                                                       .asMap());
+                }
+            }
+            Files.move(temporary.toPath(), snapshotFile.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                       StandardCopyOption.ATOMIC_MOVE);
+            LOGGER.info("Pool snapshot {} is saved with {} node configurations", snapshotFile.getPath(),
+                        hubs.size());
+        } catch (IOException | RuntimeException e) {
+            LOGGER.warn("Pool snapshot {} can't be saved: {}", snapshotFile.getPath(), e.toString());
+            if (temporary != null && !temporary.delete()) {
+                temporary.deleteOnExit();
+            }
+        }
+    }
+
+    /**
+     * Gets hub URL of node configuration.
+     *
+     * @param nodeConfig Node configuration or {@code null}.
+     * @return Hub URL or {@code null} if configuration is empty or its hub is wrong.
+     */
+    private static String getHub(NodeConfig nodeConfig) {
+        if (nodeConfig == null) {
+            return null;
+        }
+        try {
+            return nodeConfig.getHubConfiguration()
+                             .toString();
+        } catch (IOException | RuntimeException e) {
+            LOGGER.debug("Wrong Selenium grid hub in configuration {}: {}", nodeConfig, e.toString());
+            return null;
+        }
+    }
+
+    /**
+     * Reads string written by {@link #writeString(DataOutputStream, Map, String)}.
+     *
+     * @param in      Snapshot stream.
+     * @param strings Strings read before in reading order.
+     * @return String.
+     * @throws IOException If stream can't be read or string index is wrong.
+     */
+    private static String readString(DataInputStream in, List<String> strings) throws IOException {
+        int index = in.readInt();
+        if (index == NEW_STRING) {
+            String string = in.readUTF();
+            strings.add(string);
+            return string;
+        }
+        if (index < 0 || index >= strings.size()) {
+            throw new IOException("Wrong string index " + index);
+        }
+        return strings.get(index);
+    }
+
+    /**
+     * Writes string. Repeated capability names and values are written as index of their first writing.
+     *
+     * @param out     Snapshot stream.
+     * @param strings Indexes of strings written before.
+     * @param string  String.
+     * @throws IOException If stream can't be written.
+     */
+    private static void writeString(DataOutputStream out, Map<String, Integer> strings, String string)
+            throws IOException {
+        Integer index = strings.get(string);
+        if (index != null) {
+            out.writeInt(index);
+            return;
+        }
+        out.writeInt(NEW_STRING);
+        out.writeUTF(string);
+        strings.put(string, strings.size());
+    }
+
+    /**
+     * Reads map value.
+     *
+     * @param in      Snapshot stream.
+     * @param strings Strings read before in reading order.
+     * @return Map.
+     * @throws IOException If stream can't be read or has no map.
+     */
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> readMap(DataInputStream in, List<String> strings) throws IOException {
+        Object value = readValue(in, strings);
+        if (!(value instanceof Map)) {
+            throw new IOException("Map is expected");
+        }
+        return (Map<String, Object>) value;
+    }
+
+    /**
+     * Reads tagged value.
+     *
+     * @param in      Snapshot stream.
+     * @param strings Strings read before in reading order.
+     * @return Value.
+     * @throws IOException If stream can't be read or has unknown tag.
+     */
+    private static Object readValue(DataInputStream in, List<String> strings) throws IOException {
+        byte tag = in.readByte();
+        switch (tag) {
+            case NULL:
+                return null;
+            case STRING:
+                return readString(in, strings);
+            case INTEGER:
+                return in.readInt();
+            case LONG:
+                return in.readLong();
+            case DOUBLE:
+                return in.readDouble();
+            case BOOLEAN:
+                return in.readBoolean();
+            case BIG_INTEGER:
+                return new BigInteger(in.readUTF());
+            case MAP:
+                int size = in.readInt();
+                Map<String, Object> map = new LinkedHashMap<>();
+                for (int i = 0; i < size; i++) {
+                    map.put(readString(in, strings), readValue(in, strings));
+                }
+                return map;
+            case LIST:
+                int length = in.readInt();
+                List<Object> list = new ArrayList<>(length);
+                for (int i = 0; i < length; i++) {
+                    list.add(readValue(in, strings));
+                }
+                return list;
+            default:
+                throw new IOException("Unknown value tag " + tag);
+        }
+    }
+
+    /**
+     * Writes tagged value. Enumerations are written as their names.
+     *
+     * @param out     Snapshot stream.
+     * @param strings Indexes of strings written before.
+     * @param value   Value.
+     * @throws IOException If stream can't be written or value type isn't supported.
+     */
+    private static void writeValue(DataOutputStream out, Map<String, Integer> strings, Object value)
+            throws IOException {
+        if (value == null) {
+            out.writeByte(NULL);
+        } else if (value instanceof String) {
+            out.writeByte(STRING);
+            writeString(out, strings, (String) value);
+        } else if (value instanceof Enum) {
+            out.writeByte(STRING);
+            writeString(out, strings, ((Enum<?>) value).name());
+        } else if (value instanceof Integer) {
+            out.writeByte(INTEGER);
+            out.writeInt((Integer) value);
+        } else if (value instanceof Long) {
+            out.writeByte(LONG);
+            out.writeLong((Long) value);
+        } else if (value instanceof Double) {
+            out.writeByte(DOUBLE);
+            out.writeDouble((Double) value);
+        } else if (value instanceof Boolean) {
+            out.writeByte(BOOLEAN);
+            out.writeBoolean((Boolean) value);
+        } else if (value instanceof BigInteger) {
+            out.writeByte(BIG_INTEGER);
+            out.writeUTF(value.toString());
+        } else if (value instanceof Map) {
+            Map<?, ?> map = (Map<?, ?>) value;
+            out.writeByte(MAP);
+            out.writeInt(map.size());
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                writeString(out, strings, String.valueOf(entry.getKey()));
+                writeValue(out, strings, entry.getValue());
+            }
+        } else if (value instanceof Collection) {
+            Collection<?> collection = (Collection<?>) value;
+            out.writeByte(LIST);
+            out.writeInt(collection.size());
+            for (Object element : collection) {
+                writeValue(out, strings, element);
+            }
+        } else {
+            throw new IOException("Unsupported value type " + value.getClass()
+                                                                   .getName());
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package ru.vasilev.selenile.config;
+
+public abstract class SelenileProperties {
+
+    /**
+     * Private constructor.
+     */
+    private SelenileProperties() {
+    }
+
+    /**
+     * Gets system property as number.
+     *
+     * @param name         Property name.
+     * @param defaultValue Value used when property isn't set.
+     * @return Property value.
+     */
+    public static long getLong(String name, long defaultValue) {
+        String customProperty = System.getProperty(name);
+        if (customProperty == null || customProperty.trim()
+                                                    .isEmpty()) {
+            return defaultValue;
+        }
+        try {
+            return Long.parseLong(customProperty.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(String.format("Wrong value of property %s: %s", name, customProperty));
+        }
+    }
+
+    /**
+     * Gets system property as integer number.
+     *
+     * @param name         Property name.
+     * @param defaultValue Value used when property isn't set.
+     * @return Property value.
+     */
+    public static int getInt(String name, int defaultValue) {
+        return (int) getLong(name, defaultValue);
+    }
+
+    /**
+     * Gets system property as flag.
+     *
+     * @param name         Property name.
+     * @param defaultValue Value used when property isn't set.
+     * @return Property value.
+     */
+    public static boolean getBoolean(String name, boolean defaultValue) {
+        String customProperty = System.getProperty(name);
+        if (customProperty == null || customProperty.trim()
+                                                    .isEmpty()) {
+            return defaultValue;
+        }
+        return Boolean.parseBoolean(customProperty.trim());
+    }
+
+    /**
+     * Gets system property as string.
+     *
+     * @param name         Property name.
+     * @param defaultValue Value used when property isn't set.
+     * @return Property value.
+     */
+    public static String getString(String name, String defaultValue) {
+        String customProperty = System.getProperty(name);
+        if (customProperty == null || customProperty.trim()
+                                                    .isEmpty()) {
+            return defaultValue;
+        }
+        return customProperty.trim();
+    }
+}
@@ -1,54 +1,172 @@
 package ru.vasilev.selenile.deserializer;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.google.gson.*;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
 import org.openqa.selenium.remote.DesiredCapabilities;
 
-import java.lang.reflect.Type;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Map;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.util.*;
 
-public class CapabilityDeserializer implements JsonDeserializer<DesiredCapabilities> {
+public class CapabilityDeserializer extends TypeAdapter<DesiredCapabilities> {
     /**
-     * Deserializes Json object into {@link DesiredCapabilities} object.
+     * Node capabilities that aren't used by pool. Node limits as {@code maxInstances} are kept in node configuration
+     * and removed from driver capabilities by {@link ru.vasilev.selenile.config.NodeConfig#getDriverCapabilities()}.
+     */
+    private static final Set<String> IGNORED_CAPABILITIES = new HashSet<>(Arrays.asList(
+            "rotatable", "session-override", "wdaLocalPort", "simulatorStartupTimeout"));
+
+    /**
+     * Reads capabilities array of node configuration into {@link DesiredCapabilities} object in a single pass.
+     * Only the first capabilities object is used, fractional numbers of its top level are truncated to integers.
      *
-     * @param json    Json object for deserializing into {@link DesiredCapabilities} object.
-     * @param typeOfT The type to deserialize to.
-     * @return Deserialized object.
-     * @throws JsonParseException If {@code json} has wrong format.
+     * @param in Reader positioned at capabilities array.
+     * @return Deserialized object or {@code null} for Json null.
+     * @throws IOException         If reading failed.
+     * @throws JsonSyntaxException If capabilities have wrong format.
      */
     @Override
-    public DesiredCapabilities deserialize(JsonElement json, Type typeOfT, JsonDeserializationContext context)
-            throws JsonParseException {
-        DesiredCapabilities resultMap = new DesiredCapabilities();
-        try {
-            final JsonArray jsonArray = json.getAsJsonArray();
-            if (jsonArray.size() > 0) {
-                final Map<String, Object> map = new ObjectMapper().readValue(jsonArray.get(0)
-                                                                                      .toString(), Map.class);
-                List<String> ignoreCaps = new ArrayList<>();
-                ignoreCaps.add("maxInstances");
-                ignoreCaps.add("rotatable");
-                ignoreCaps.add("session-override");
-                ignoreCaps.add("wdaLocalPort");
-                ignoreCaps.add("simulatorStartupTimeout");
-                for (Map.Entry<String, Object> entry : map.entrySet()) {
-                    if (ignoreCaps.contains(entry.getKey())) {
-                        continue;
-                    }
-                    if (entry.getValue() instanceof Double) {
-                        resultMap.setCapability(entry.getKey(), ((Double) entry.getValue()).intValue());
-                    } else {
-                        resultMap.setCapability(entry.getKey(), entry.getValue());
-                    }
+    public DesiredCapabilities read(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        if (in.peek() != JsonToken.BEGIN_ARRAY) {
+            throw new JsonSyntaxException("Capabilities array is expected but was " + in.peek() + " at " + in.getPath());
+        }
+        DesiredCapabilities capabilities = new DesiredCapabilities();
+        in.beginArray();
+        if (in.hasNext()) {
+            in.beginObject();
+            while (in.hasNext()) {
+                String name = in.nextName();
+                if (IGNORED_CAPABILITIES.contains(name)) {
+                    in.skipValue();
+                } else if (in.peek() == JsonToken.NUMBER) {
+                    capabilities.setCapability(name, readNumber(in, true));
+                } else {
+                    capabilities.setCapability(name, readValue(in));
                 }
             }
-        } catch (JsonProcessingException e) {
-            throw new JsonParseException(e);
+            in.endObject();
+        }
+        while (in.hasNext()) {
+            in.skipValue();
         }
-        return resultMap;
+        in.endArray();
+        return capabilities;
     }
 
+    /**
+     * Writes capabilities as node configuration capabilities array.
+     *
+     * @param out          Writer.
+     * @param capabilities Capabilities or {@code null}.
+     * @throws IOException If writing failed.
+     */
+    @Override
+    public void write(JsonWriter out, DesiredCapabilities capabilities) throws IOException {
+        if (capabilities == null) {
+            out.nullValue();
+            return;
+        }
+        out.beginArray();
+        writeValue(out, capabilities.asMap());
+        out.endArray();
+    }
+
+    /**
+     * Reads any Json value. Objects are read into maps, arrays into lists.
+     *
+     * @param in Reader positioned at value.
+     * @return Value.
+     * @throws IOException If reading failed.
+     */
+    private static Object readValue(JsonReader in) throws IOException {
+        switch (in.peek()) {
+            case BEGIN_OBJECT:
+                Map<String, Object> map = new LinkedHashMap<>();
+                in.beginObject();
+                while (in.hasNext()) {
+                    map.put(in.nextName(), readValue(in));
+                }
+                in.endObject();
+                return map;
+            case BEGIN_ARRAY:
+                List<Object> list = new ArrayList<>();
+                in.beginArray();
+                while (in.hasNext()) {
+                    list.add(readValue(in));
+                }
+                in.endArray();
+                return list;
+            case NUMBER:
+                return readNumber(in, false);
+            case BOOLEAN:
+                return in.nextBoolean();
+            case NULL:
+                in.nextNull();
+                return null;
+            default:
+                return in.nextString();
+        }
+    }
+
+    /**
+     * Reads number as the narrowest of {@link Integer}, {@link Long} and {@link BigInteger},
+     * fractional numbers are read as {@link Double}.
+     *
+     * @param in       Reader positioned at number.
+     * @param truncate Truncate fractional number to integer.
+     * @return Number.
+     * @throws IOException If reading failed.
+     */
+    private static Object readNumber(JsonReader in, boolean truncate) throws IOException {
+        String number = in.nextString();
+        if (number.indexOf('.') >= 0 || number.indexOf('e') >= 0 || number.indexOf('E') >= 0) {
+            double value = Double.parseDouble(number);
+            return truncate ? (Object) (int) value : (Object) value;
+        }
+        try {
+            long value = Long.parseLong(number);
+            return value == (int) value ? (Object) (int) value : (Object) value;
+        } catch (NumberFormatException e) {
+            return new BigInteger(number);
+        }
+    }
+
+    /**
+     * Writes any value. Maps are written as objects, collections as arrays, other values as strings.
+     *
+     * @param out   Writer.
+     * @param value Value.
+     * @throws IOException If writing failed.
+     */
+    private static void writeValue(JsonWriter out, Object value) throws IOException {
+        if (value == null) {
+            out.nullValue();
+        } else if (value instanceof Map) {
+            out.beginObject();
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                out.name(String.valueOf(entry.getKey()));
+                writeValue(out, entry.getValue());
+            }
+            out.endObject();
+        } else if (value instanceof Collection) {
+            out.beginArray();
+            for (Object element : (Collection<?>) value) {
+                writeValue(out, element);
+            }
+            out.endArray();
+        } else if (value instanceof Number) {
+            out.value((Number) value);
+        } else if (value instanceof Boolean) {
+            out.value((Boolean) value);
+        } else {
+            out.value(value.toString());
+        }
+    }
 }
@@ -1,12 +1,52 @@
 package ru.vasilev.selenile.device;
 
 import ru.vasilev.selenile.config.NodeConfig;
+import ru.vasilev.selenile.config.SelenileProperties;
+import ru.vasilev.selenile.process.ProcessResult;
+import ru.vasilev.selenile.process.ProcessSupervisor;
+import ru.vasilev.selenile.process.SupervisedProcess;
 
-import java.io.IOException;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 public class AndroidDevice extends Device {
+    /**
+     * Timeout of device state request in seconds.
+     */
+    private static final long STATE_TIMEOUT = 10;
+
+    /**
+     * Timeout of adb commands in seconds.
+     */
+    private static final long COMMAND_TIMEOUT = 60;
+
+    /**
+     * Path to adb. Set by system property {@code adbpath}, adb is taken from PATH by default.
+     */
+    private static final String ADB = SelenileProperties.getString("adbpath", "adb");
+
+    /**
+     * Path to emulator. Set by system property {@code emulatorpath}, emulator is taken from PATH by default.
+     */
+    private static final String EMULATOR = SelenileProperties.getString("emulatorpath", "emulator");
+
+    /**
+     * Name of emulator snapshot loaded on recovery. Set by system property {@code emulatorsnapshot}.
+     */
+    private static final String SNAPSHOT = SelenileProperties.getString("emulatorsnapshot", "default_boot");
+
+    /**
+     * Emulator process started by this device or {@code null}.
+     */
+    private volatile SupervisedProcess emulator;
 
     /**
      * Creating android emulator using node configuration.
@@ -40,50 +80,124 @@ public class AndroidDevice extends Device {
     }
 
     /**
-     * Executes a command in Windows command prompt.
+     * Runs adb command for device and waits for its result.
      *
-     * @param command Command for executing.
+     * @param timeout   Maximum time of command in seconds.
+     * @param arguments Command arguments after device serial.
+     * @return Command result.
      */
-    protected static void sendCommand(String command) {
-        try {
-            Runtime.getRuntime()
-                   .exec(command);
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
+    protected ProcessResult adb(long timeout, String... arguments) {
+        List<String> command = new ArrayList<>(Arrays.asList(ADB, "-s", getId()));
+        command.addAll(Arrays.asList(arguments));
+        return ProcessSupervisor.execute(command, timeout, TimeUnit.SECONDS);
     }
 
     /**
-     * Stops emulator.
+     * Checks whether emulator is online with {@code adb get-state}.
+     *
+     * @return Is device responsive.
      */
     @Override
-    public void stopEmulator() {
-        String shutdownCommand = "adb -s %emulator emu kill";
-        sendCommand(shutdownCommand.replace("%emulator", getPort()));
-        killProcessOnPort(getPort());
+    public boolean isResponsive() {
+        ProcessResult result = adb(STATE_TIMEOUT, "get-state");
+        return result.isSuccess() && "device".equals(result.getOutput()
+                                                           .trim());
     }
 
     /**
-     * Runs emulator.
+     * Checks whether Android finished boot with {@code getprop sys.boot_completed}.
+     *
+     * @return Is device ready.
      */
     @Override
-    public void startEmulator() {
-        String bootCommand = "cmd /c %LOCALAPPDATA%\\Android\\Sdk\\emulator\\emulator -avd"
-                + " %name -port %port -netfast -no-audio -no-snapshot-load ^>^> %file_restart.log";
-        sendCommand(bootCommand.replace("%name", deviceName)
-                               .replace("%port", getPort())
-                               .replace("%file", deviceName.toLowerCase()));
+    public boolean isReady() {
+        ProcessResult result = adb(STATE_TIMEOUT, "shell", "getprop", "sys.boot_completed");
+        return result.isSuccess() && "1".equals(result.getOutput()
+                                                      .trim());
+    }
+
+    /**
+     * Gets recovery tiers device supports. Data clearing needs {@code appPackage} capability.
+     *
+     * @return Supported tiers.
+     */
+    @Override
+    public Set<RecoveryTier> getRecoveryTiers() {
+        return getCapabilities().getCapability("appPackage") == null
+                ? EnumSet.of(RecoveryTier.SNAPSHOT_RESTORE, RecoveryTier.COLD_BOOT)
+                : EnumSet.allOf(RecoveryTier.class);
     }
 
     /**
-     * Closes processes that use port.
+     * Recovers device with tier: clears application data with {@code pm clear}, loads emulator snapshot
+     * {@code emulatorsnapshot} ({@code default_boot} by default) or restarts emulator without snapshot.
      *
-     * @param port Port that use processes.
+     * @param tier Recovery tier.
+     * @return Is device recovered and ready.
+     */
+    @Override
+    protected boolean recover(RecoveryTier tier) {
+        switch (tier) {
+            case APP_DATA_CLEAR:
+                ProcessResult clear = adb(COMMAND_TIMEOUT, "shell", "pm", "clear",
+                                          getCapabilities().getCapability("appPackage")
+                                                           .toString());
+                return clear.isSuccess() && clear.getOutput()
+                                                 .contains("Success");
+            case SNAPSHOT_RESTORE:
+                ProcessResult load = adb(COMMAND_TIMEOUT, "emu", "avd", "snapshot", "load", SNAPSHOT);
+                return load.isSuccess() && load.getOutput()
+                                               .contains("OK") && waitUntilReady(BOOT_TIMEOUT, TimeUnit.SECONDS);
+            default:
+                return super.recover(tier);
+        }
+    }
+
+    /**
+     * Stops emulator and waits till it is gone.
+     */
+    @Override
+    public void stopEmulator() {
+        ProcessResult kill = adb(COMMAND_TIMEOUT, "emu", "kill");
+        if (!kill.isSuccess()) {
+            LOGGER.warn("Emulator {} kill failed: {} {}", getId(), kill, kill.getErrors());
+        }
+        SupervisedProcess process = emulator;
+        emulator = null;
+        if (process == null) {
+            adb(COMMAND_TIMEOUT, "wait-for-disconnect");
+            return;
+        }
+        try {
+            process.getResult()
+                   .get(COMMAND_TIMEOUT, TimeUnit.SECONDS);
+        } catch (TimeoutException | ExecutionException e) {
+            LOGGER.warn("Emulator {} didn't exit, it is killed", getId());
+            process.destroy();
+        } catch (InterruptedException e) {
+            process.destroy();
+            Thread.currentThread()
+                  .interrupt();
+        }
+    }
+
+    /**
+     * Runs emulator and waits till adb sees it. Boot completion is checked by {@link #isReady()}.
+     * Waiting time is set in seconds by system property {@code emulatorboottimeout}.
      */
-    private static void killProcessOnPort(String port) {
-        String killProcessCommand =
-                "cmd /c for /f \"tokens=5\" %%a in ('netstat -aon ^| find \":%port\""
-                        + " ^| find \"LISTENING\"') do taskkill /f /t /pid %%a";
-        sendCommand(killProcessCommand.replace("%port", port));
+    @Override
+    public void startEmulator() {
+        final String id = getId();
+        SupervisedProcess process = ProcessSupervisor.start(
+                Arrays.asList(EMULATOR, "-avd", deviceName, "-port", getPort(), "-netfast", "-no-audio",
+                              "-no-snapshot-load"), 0, TimeUnit.SECONDS,
+                line -> LOGGER.debug("{}: {}", id, line));
+        process.getResult()
+               .thenAccept(result -> LOGGER.info("Emulator {} exited with code {}", id, result.getExitCode()));
+        emulator = process;
+        ProcessResult online = adb(BOOT_TIMEOUT, "wait-for-device");
+        if (!online.isSuccess()) {
+            LOGGER.warn("Emulator {} isn't online: {} {}", id, online, online.getErrors());
+        }
     }
 }
@@ -4,10 +4,20 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.openqa.selenium.remote.DesiredCapabilities;
 import ru.vasilev.selenile.config.NodeConfig;
+import ru.vasilev.selenile.config.SelenileProperties;
+import ru.vasilev.selenile.metrics.LifecycleEvent;
+import ru.vasilev.selenile.metrics.LifecycleEvents;
+import ru.vasilev.selenile.metrics.PoolMetrics;
 
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 public abstract class Device {
     /**
@@ -15,6 +25,21 @@ public abstract class Device {
      */
     protected static final Logger LOGGER = LogManager.getLogger("MobileDriverParallel");
 
+    /**
+     * Default time in seconds to wait for booting device.
+     */
+    private static final long DEFAULT_BOOT_TIMEOUT = 300;
+
+    /**
+     * Time in seconds to wait for booting device. Set by system property {@code emulatorboottimeout}.
+     */
+    protected static final long BOOT_TIMEOUT = SelenileProperties.getLong("emulatorboottimeout", DEFAULT_BOOT_TIMEOUT);
+
+    /**
+     * Period in milliseconds of readiness checks.
+     */
+    private static final long READY_POLL_INTERVAL = 1000;
+
     /**
      * Device name.
      */
@@ -30,6 +55,16 @@ public abstract class Device {
      */
     protected final DesiredCapabilities capabilities;
 
+    /**
+     * Count of concurrent sessions node of device accepts.
+     */
+    protected final int maxInstances;
+
+    /**
+     * Count of successful recoveries by tier.
+     */
+    private final Map<RecoveryTier, AtomicLong> recoveries = new EnumMap<>(RecoveryTier.class);
+
     /**
      * Creating device using configuration.
      *
@@ -37,10 +72,14 @@ public abstract class Device {
      * @throws MalformedURLException Throws when string connection to Selenium Grid Hub can't be parsed to {@link URL}.
      */
     protected Device(NodeConfig nodeConfig) throws MalformedURLException {
-        capabilities = nodeConfig.getCapabilities();
+        capabilities = nodeConfig.getDriverCapabilities();
+        maxInstances = nodeConfig.getMaxInstances();
         urlHub = nodeConfig.getHubConfiguration();
         deviceName = capabilities.getCapability("deviceName")
                                  .toString();
+        for (RecoveryTier tier : RecoveryTier.values()) {
+            recoveries.put(tier, new AtomicLong());
+        }
     }
 
     /**
@@ -110,18 +149,178 @@ public abstract class Device {
         return capabilities;
     }
 
+    /**
+     * Gets count of concurrent sessions node of device accepts, declared by node capability {@code maxInstances}.
+     *
+     * @return {@code maxInstances}.
+     */
+    public int getMaxInstances() {
+        return maxInstances;
+    }
+
     /**
      * Restarts device.
      */
     public void restartEmulator() {
         String emulatorName = getId();
         LOGGER.info("Device {}:{} restarting", getDeviceName(), emulatorName);
+        long start = System.nanoTime();
+        PoolMetrics.increment(PoolMetrics.EMULATOR_RESTARTS);
         stopEmulator();
         startEmulator();
+        boolean ready = waitUntilReady(BOOT_TIMEOUT, TimeUnit.SECONDS);
+        if (!ready) {
+            LOGGER.warn("Device {}:{} isn't ready after restart", getDeviceName(), emulatorName);
+        }
+        PoolMetrics.EMULATOR_RESTART.record(System.nanoTime() - start);
+        LifecycleEvents.record(LifecycleEvent.Type.EMULATOR_RESTART, this, System.nanoTime() - start,
+                               ready ? "ready" : "not ready");
         LOGGER.info("Device {}:{} restarted ", getDeviceName(), emulatorName);
     }
 
 
+    /**
+     * Recovers device after failed session creation. The first tier is chosen by failure kind,
+     * every next failure of the same session creation escalates to a more expensive tier.
+     * Unsupported and failed tiers are skipped to the next one, unresponsive device is cold booted at once.
+     *
+     * @param failure  Session creation failure.
+     * @param previous Tier used after previous failure of the same session creation or {@code null}.
+     * @return The last tried tier.
+     */
+    public RecoveryTier recover(Throwable failure, RecoveryTier previous) {
+        RecoveryTier first = RecoveryTier.forFailure(failure);
+        if (previous != null && previous.compareTo(first) >= 0) {
+            first = previous.next();
+        }
+        if (first != RecoveryTier.COLD_BOOT && !isResponsive()) {
+            first = RecoveryTier.COLD_BOOT;
+        }
+        Set<RecoveryTier> supported = getRecoveryTiers();
+        RecoveryTier tier = first;
+        while (true) {
+            if (supported.contains(tier) && tryRecover(tier)) {
+                recoveries.get(tier)
+                          .incrementAndGet();
+                return tier;
+            }
+            if (tier == RecoveryTier.COLD_BOOT) {
+                LOGGER.error("Device {} isn't recovered", deviceName);
+                return tier;
+            }
+            tier = tier.next();
+        }
+    }
+
+    /**
+     * Gets recovery tiers device supports.
+     *
+     * @return Supported tiers.
+     */
+    public Set<RecoveryTier> getRecoveryTiers() {
+        return EnumSet.of(RecoveryTier.COLD_BOOT);
+    }
+
+    /**
+     * Recovers device with tier. Only {@link RecoveryTier#COLD_BOOT} is supported by default.
+     *
+     * @param tier Recovery tier.
+     * @return Is device recovered and ready.
+     */
+    protected boolean recover(RecoveryTier tier) {
+        restartEmulator();
+        return isReady();
+    }
+
+    /**
+     * Gets count of successful recoveries by tier.
+     *
+     * @return Recoveries by tier.
+     */
+    public Map<RecoveryTier, Long> getRecoveryStats() {
+        Map<RecoveryTier, Long> stats = new EnumMap<>(RecoveryTier.class);
+        recoveries.forEach((tier, count) -> stats.put(tier, count.get()));
+        return stats;
+    }
+
+    /**
+     * Recovers device with tier and logs result.
+     *
+     * @param tier Recovery tier.
+     * @return Is device recovered.
+     */
+    private boolean tryRecover(RecoveryTier tier) {
+        LOGGER.info("Device {} recovery: {}", deviceName, tier);
+        final long start = System.nanoTime();
+        boolean recovered;
+        try {
+            recovered = recover(tier);
+        } catch (RuntimeException e) {
+            LOGGER.warn("Device {} recovery {} error {}", deviceName, tier, e.getMessage());
+            recovered = false;
+        }
+        LOGGER.info("Device {} recovery {} {} in {} ms", deviceName, tier, recovered ? "succeeded" : "failed",
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        return recovered;
+    }
+
+    /**
+     * Checks whether device answers. Used by background health checks, hub is checked separately.
+     *
+     * @return Is device responsive.
+     */
+    public boolean isResponsive() {
+        return true;
+    }
+
+    /**
+     * Checks whether device finished boot and can take sessions.
+     *
+     * @return Is device ready.
+     */
+    public boolean isReady() {
+        return true;
+    }
+
+    /**
+     * Waits till device finishes boot.
+     *
+     * @param timeout Maximum time to wait.
+     * @param unit    Time unit of {@code timeout}.
+     * @return Is device ready.
+     */
+    public boolean waitUntilReady(long timeout, TimeUnit unit) {
+        final long deadline = System.nanoTime() + unit.toNanos(timeout);
+        try {
+            while (!isReady()) {
+                if (System.nanoTime() - deadline >= 0) {
+                    return false;
+                }
+                Thread.sleep(READY_POLL_INTERVAL);
+            }
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread()
+                  .interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * Boots device unless it is ready yet and waits till boot finishes.
+     *
+     * @param timeout Maximum time to wait.
+     * @param unit    Time unit of {@code timeout}.
+     * @return Is device ready.
+     */
+    public boolean prewarm(long timeout, TimeUnit unit) {
+        if (isReady()) {
+            return true;
+        }
+        startEmulator();
+        return waitUntilReady(timeout, unit);
+    }
+
     /**
      * Stops emulator.
      */
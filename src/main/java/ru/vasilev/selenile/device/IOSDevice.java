@@ -1,16 +1,22 @@
 package ru.vasilev.selenile.device;
 
 import ru.vasilev.selenile.config.NodeConfig;
+import ru.vasilev.selenile.process.ProcessResult;
+import ru.vasilev.selenile.process.ProcessSupervisor;
 
-import java.io.BufferedReader;
-import java.io.IOException;
-import java.io.InputStreamReader;
 import java.net.MalformedURLException;
 import java.net.URL;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 
 public class IOSDevice extends Device {
+    /**
+     * Timeout of simctl commands in seconds.
+     */
+    private static final long COMMAND_TIMEOUT = 120;
 
     /**
      * Creating iOS emulator using node configuration.
@@ -24,28 +30,70 @@ public class IOSDevice extends Device {
 
 
     /**
-     * Gets Device ID.
+     * Gets Device ID. Simulators list is shared by all devices and cached. If cached list lacks device,
+     * e.g. simulator is created after list is loaded, list is requested again once.
      *
      * @return Device ID.
      */
     @Override
     protected String getId() {
-        String deviceId = macProcessXcrunSimctl("list", line -> {
-            Pattern pattern = Pattern.compile(".*" + deviceName + " *\\(([^)]*).*");
-            Matcher matcher = pattern.matcher(line);
-            if (matcher.find()) {
-                return matcher.group(1);
-            }
-            return "";
-        });
-        if (deviceId.equals("")) {
-            throw new IllegalStateException(
-                    "Can't find device {} in devices list." + deviceId);
+        String deviceId = SimctlDeviceResolver.resolve(deviceName);
+        if (deviceId == null) {
+            SimctlDeviceResolver.invalidate();
+            deviceId = SimctlDeviceResolver.resolve(deviceName);
+        }
+        if (deviceId == null) {
+            throw new IllegalStateException("Can't find device " + deviceName + " in devices list.");
         }
-        LOGGER.info("Emulator ID {}:{}", deviceName, deviceId);
         return deviceId;
     }
 
+    /**
+     * Waits till simulator finishes boot with {@code xcrun simctl bootstatus}.
+     *
+     * @param timeout Maximum time to wait.
+     * @param unit    Time unit of {@code timeout}.
+     * @return Is device ready.
+     */
+    @Override
+    public boolean waitUntilReady(long timeout, TimeUnit unit) {
+        return bootStatus(timeout, unit);
+    }
+
+    /**
+     * Boots simulator unless it is booted yet and waits till boot finishes
+     * with {@code xcrun simctl bootstatus -b}.
+     *
+     * @param timeout Maximum time to wait.
+     * @param unit    Time unit of {@code timeout}.
+     * @return Is device ready.
+     */
+    @Override
+    public boolean prewarm(long timeout, TimeUnit unit) {
+        boolean ready = bootStatus(timeout, unit, "-b");
+        SimctlDeviceResolver.invalidate();
+        return ready;
+    }
+
+    /**
+     * Waits for simulator boot.
+     *
+     * @param timeout Maximum time to wait.
+     * @param unit    Time unit of {@code timeout}.
+     * @param options Additional {@code bootstatus} options.
+     * @return Has simulator finished boot in time.
+     */
+    private boolean bootStatus(long timeout, TimeUnit unit, String... options) {
+        List<String> command = new ArrayList<>(
+                Arrays.asList(SimctlDeviceResolver.XCRUN, "simctl", "bootstatus", getId()));
+        command.addAll(Arrays.asList(options));
+        ProcessResult result = ProcessSupervisor.execute(command, timeout, unit);
+        if (!result.isSuccess()) {
+            LOGGER.warn("Simulator {} boot status: {} {}", deviceName, result, result.getErrors());
+        }
+        return result.isSuccess();
+    }
+
     /**
      * Stops emulator.
      */
@@ -54,7 +102,7 @@ public class IOSDevice extends Device {
         macProcessXcrunSimctl("shutdown", line -> {
             LOGGER.info(line);
             return "";
-        });
+        }, getId());
         eraseIosEmulator();
     }
 
@@ -65,7 +113,8 @@ public class IOSDevice extends Device {
         macProcessXcrunSimctl("erase", line -> {
             LOGGER.info(line);
             return "";
-        });
+        }, getId());
+        SimctlDeviceResolver.invalidate();
     }
 
     /**
@@ -76,35 +125,33 @@ public class IOSDevice extends Device {
         macProcessXcrunSimctl("boot", line -> {
             LOGGER.info(line);
             return "";
-        });
+        }, getId());
+        SimctlDeviceResolver.invalidate();
     }
 
     /**
-     * Executes {@code xcrun simctl [command]} in terminal on OSX.
+     * Executes {@code xcrun simctl [command] [arguments]} and waits for its result.
      *
      * @param command       Command to run with {@code xcrun simctl}.
-     * @param processString String handler for command result.
+     * @param processString String handler for output lines containing device name.
+     * @param arguments     Command arguments.
      * @return String handler result.
      */
-    private String macProcessXcrunSimctl(String command, IOSProcess processString) {
-        ProcessBuilder processBuilder = new ProcessBuilder();
-        processBuilder.command("xcrun", "simctl", command);
-        String deviceId = "";
-        try {
-            Process process = processBuilder.start();
-            BufferedReader reader =
-                    new BufferedReader(new InputStreamReader(process.getInputStream()));
-            String line;
-            while ((line = reader.readLine()) != null) {
-                if (line.contains(deviceName)) {
-                    deviceId = processString.processBuffer(line);
-                }
+    private String macProcessXcrunSimctl(String command, IOSProcess processString, String... arguments) {
+        List<String> simctlCommand = new ArrayList<>(Arrays.asList(SimctlDeviceResolver.XCRUN, "simctl", command));
+        simctlCommand.addAll(Arrays.asList(arguments));
+        AtomicReference<String> deviceId = new AtomicReference<>("");
+        ProcessResult result = ProcessSupervisor.start(simctlCommand, COMMAND_TIMEOUT, TimeUnit.SECONDS, line -> {
+            if (line.contains(deviceName)) {
+                deviceId.set(processString.processBuffer(line));
             }
-            int exitCode = process.waitFor();
-            LOGGER.info("Exited with error code : {}", exitCode);
-        } catch (IOException | InterruptedException e) {
-            e.printStackTrace();
+        })
+                                                .getResult()
+                                                .join();
+        LOGGER.info("Exited with error code : {}", result.getExitCode());
+        if (!result.isSuccess()) {
+            LOGGER.warn("xcrun simctl {} failed: {}", command, result.getErrors());
         }
-        return deviceId;
+        return deviceId.get();
     }
 }
@@ -0,0 +1,62 @@
+package ru.vasilev.selenile.device;
+
+import org.openqa.selenium.remote.UnreachableBrowserException;
+
+import java.util.regex.Pattern;
+
+public enum RecoveryTier {
+    /**
+     * Application data is cleared, device keeps running.
+     */
+    APP_DATA_CLEAR,
+
+    /**
+     * Device state is restored from emulator snapshot.
+     */
+    SNAPSHOT_RESTORE,
+
+    /**
+     * Emulator is killed and booted without snapshot.
+     */
+    COLD_BOOT;
+
+    /**
+     * Messages of failures caused by device rather than by application under test.
+     */
+    private static final Pattern DEVICE_FAILURE = Pattern.compile(
+            "offline|not found|could not find a connected|socket hang up|ECONNREFUSED|ECONNRESET"
+                    + "|instrumentation|uiautomator|adb|system_server|not responding",
+            Pattern.CASE_INSENSITIVE);
+
+    /**
+     * Chooses the cheapest tier able to fix failure. Application failures start with data clearing,
+     * device and connection failures start with snapshot restoring.
+     *
+     * @param failure Session creation failure.
+     * @return The first tier to try.
+     */
+    public static RecoveryTier forFailure(Throwable failure) {
+        for (Throwable cause = failure; cause != null; cause = cause.getCause()) {
+            if (cause instanceof UnreachableBrowserException) {
+                return SNAPSHOT_RESTORE;
+            }
+            if (cause.getMessage() != null && DEVICE_FAILURE.matcher(cause.getMessage())
+                                                            .find()) {
+                return SNAPSHOT_RESTORE;
+            }
+            if (cause.getCause() == cause) {
+                break;
+            }
+        }
+        return APP_DATA_CLEAR;
+    }
+
+    /**
+     * Gets the next more expensive tier.
+     *
+     * @return Next tier, {@link #COLD_BOOT} for the last one.
+     */
+    public RecoveryTier next() {
+        return this == COLD_BOOT ? COLD_BOOT : values()[ordinal() + 1];
+    }
+}
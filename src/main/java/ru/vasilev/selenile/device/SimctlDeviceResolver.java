@@ -0,0 +1,167 @@
+package ru.vasilev.selenile.device;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import ru.vasilev.selenile.config.SelenileProperties;
+import ru.vasilev.selenile.process.ProcessResult;
+import ru.vasilev.selenile.process.ProcessSupervisor;
+
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+public abstract class SimctlDeviceResolver {
+    /**
+     * Multi thread driver logger.
+     */
+    protected static final Logger LOGGER = LogManager.getLogger("MobileDriverParallel");
+
+    /**
+     * Default time in seconds simulators list is cached.
+     */
+    private static final long DEFAULT_CACHE_TTL = 60;
+
+    /**
+     * Timeout of simulators list request in seconds.
+     */
+    private static final long LIST_TIMEOUT = 60;
+
+    /**
+     * Path to xcrun. Set by system property {@code xcrunpath}, xcrun is taken from PATH by default.
+     */
+    static final String XCRUN = SelenileProperties.getString("xcrunpath", "xcrun");
+
+    /**
+     * Time in nanoseconds simulators list is cached. Set in seconds by system property {@code simctlcachettl}.
+     */
+    private static final long CACHE_TTL = TimeUnit.SECONDS.toNanos(
+            SelenileProperties.getLong("simctlcachettl", DEFAULT_CACHE_TTL));
+
+    /**
+     * Simulator UDIDs by name.
+     */
+    private static volatile Map<String, String> udids = Collections.emptyMap();
+
+    /**
+     * Time of the last successful list request in nanoseconds, {@code 0} if cache is empty.
+     */
+    private static volatile long loadedAt = 0;
+
+    /**
+     * Private constructor.
+     */
+    private SimctlDeviceResolver() {
+    }
+
+    /**
+     * Gets UDID of simulator. Simulators list is requested with {@code xcrun simctl list -j devices}
+     * once per {@code simctlcachettl} seconds and shared by all devices.
+     *
+     * @param name Simulator name.
+     * @return Simulator UDID or {@code null} if there is no such simulator.
+     */
+    public static String resolve(String name) {
+        Map<String, String> current = udids;
+        if (!isFresh()) {
+            current = refresh();
+        }
+        return current.get(name);
+    }
+
+    /**
+     * Drops cached simulators list, so the next resolving requests it again.
+     */
+    public static void invalidate() {
+        loadedAt = 0;
+    }
+
+    /**
+     * Parses output of {@code xcrun simctl list -j devices}. If several runtimes have simulator with the same
+     * name, available simulator is preferred, then the first one.
+     *
+     * @param reader JSON output.
+     * @return Simulator UDIDs by name.
+     * @throws JsonParseException If output isn't simctl JSON.
+     */
+    public static Map<String, String> parse(Reader reader) {
+        JsonElement root = JsonParser.parseReader(reader);
+        if (!root.isJsonObject() || !root.getAsJsonObject()
+                                         .has("devices")) {
+            throw new JsonParseException("No devices in simctl output");
+        }
+        Map<String, String> result = new HashMap<>();
+        Map<String, Boolean> available = new HashMap<>();
+        for (Map.Entry<String, JsonElement> runtime : root.getAsJsonObject()
+                                                          .getAsJsonObject("devices")
+                                                          .entrySet()) {
+            for (JsonElement element : runtime.getValue()
+                                              .getAsJsonArray()) {
+                JsonObject simulator = element.getAsJsonObject();
+                if (!simulator.has("name") || !simulator.has("udid")) {
+                    continue;
+                }
+                String name = simulator.get("name")
+                                       .getAsString();
+                boolean isAvailable = !simulator.has("isAvailable") || simulator.get("isAvailable")
+                                                                                .getAsBoolean();
+                Boolean known = available.get(name);
+                if (known == null || !known && isAvailable) {
+                    result.put(name, simulator.get("udid")
+                                              .getAsString());
+                    available.put(name, isAvailable);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Checks whether cached list may be used.
+     *
+     * @return Is cache fresh.
+     */
+    private static boolean isFresh() {
+        long loaded = loadedAt;
+        return loaded != 0 && System.nanoTime() - loaded < CACHE_TTL;
+    }
+
+    /**
+     * Requests simulators list unless another thread has just done it.
+     * Cached list is kept if request fails.
+     *
+     * @return Simulator UDIDs by name.
+     */
+    private static synchronized Map<String, String> refresh() {
+        if (isFresh()) {
+            return udids;
+        }
+        StringBuffer output = new StringBuffer();
+        ProcessResult result = ProcessSupervisor.start(Arrays.asList(XCRUN, "simctl", "list", "-j", "devices"),
+                                                       LIST_TIMEOUT, TimeUnit.SECONDS,
+                                                       line -> output.append(line)
+                                                                     .append('\n'),
+                                                       line -> LOGGER.debug("simctl: {}", line))
+                                                .getResult()
+                                                .join();
+        if (!result.isSuccess()) {
+            LOGGER.error("Simulators list request failed: {} {}", result, result.getErrors());
+            return udids;
+        }
+        try {
+            udids = Collections.unmodifiableMap(parse(new StringReader(output.toString())));
+            loadedAt = System.nanoTime();
+            LOGGER.info("Simulators list is loaded, {} simulators", udids.size());
+        } catch (JsonParseException | IllegalStateException e) {
+            LOGGER.error("Simulators list parsing error {}", e.getMessage());
+        }
+        return udids;
+    }
+}
@@ -0,0 +1,173 @@
+package ru.vasilev.selenile.driver;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import ru.vasilev.selenile.metrics.PoolMetrics;
+
+import java.util.concurrent.TimeUnit;
+
+public final class CircuitBreaker {
+    /**
+     * Multi thread driver logger.
+     */
+    private static final Logger LOGGER = LogManager.getLogger("MobileDriverParallel");
+
+    /**
+     * Breaker name: device or hub it guards.
+     */
+    private final String name;
+
+    /**
+     * Count of consecutive failures opening breaker.
+     */
+    private final int failureThreshold;
+
+    /**
+     * Time in nanoseconds breaker stays open before a trial request.
+     */
+    private final long openNanos;
+
+    /**
+     * Breaker state.
+     */
+    private State state = State.CLOSED;
+
+    /**
+     * Count of consecutive failures.
+     */
+    private int failures;
+
+    /**
+     * Time of the last opening or trial request in nanoseconds.
+     */
+    private long openedAt;
+
+    /**
+     * Creates closed breaker.
+     *
+     * @param name             Breaker name: device or hub it guards.
+     * @param failureThreshold Count of consecutive failures opening breaker.
+     * @param openDuration     Time breaker stays open before a trial request.
+     * @param unit             Time unit of {@code openDuration}.
+     */
+    public CircuitBreaker(String name, int failureThreshold, long openDuration, TimeUnit unit) {
+        if (failureThreshold < 1) {
+            throw new IllegalArgumentException("Wrong circuit breaker failure threshold: " + failureThreshold);
+        }
+        this.name = name;
+        this.failureThreshold = failureThreshold;
+        this.openNanos = unit.toNanos(openDuration);
+    }
+
+    /**
+     * Checks whether request may be made. Open breaker lets one trial request through when open time is over,
+     * other requests are rejected until trial result is reported. Trial without result for open time
+     * is considered lost, and the next trial is allowed.
+     *
+     * @return Is request allowed.
+     */
+    public synchronized boolean allowRequest() {
+        final long now = System.nanoTime();
+        if (state != State.CLOSED && now - openedAt >= openNanos) {
+            state = State.HALF_OPEN;
+            openedAt = now;
+            LOGGER.info("Circuit breaker of {} is half-open, trial request is allowed", name);
+            return true;
+        }
+        return state == State.CLOSED;
+    }
+
+    /**
+     * Reports successful request. Breaker is closed.
+     */
+    public synchronized void onSuccess() {
+        if (state != State.CLOSED) {
+            LOGGER.info("Circuit breaker of {} is closed", name);
+        }
+        state = State.CLOSED;
+        failures = 0;
+    }
+
+    /**
+     * Reports failed request. Breaker is opened by failed trial request or by too many consecutive failures.
+     *
+     * @return Is breaker open.
+     */
+    public synchronized boolean onFailure() {
+        failures++;
+        if (state == State.HALF_OPEN || state == State.CLOSED && failures >= failureThreshold) {
+            state = State.OPEN;
+            openedAt = System.nanoTime();
+            PoolMetrics.increment(PoolMetrics.BREAKER_OPENS);
+            LOGGER.warn("Circuit breaker of {} is open after {} failures", name, failures);
+        }
+        return state == State.OPEN;
+    }
+
+    /**
+     * Gets breaker state.
+     *
+     * @return Breaker state.
+     */
+    public synchronized State getState() {
+        return state;
+    }
+
+    /**
+     * Gets count of consecutive failures.
+     *
+     * @return Count of failures.
+     */
+    public synchronized int getFailures() {
+        return failures;
+    }
+
+    /**
+     * Gets time left until trial request, or until the next one if trial result isn't reported yet.
+     *
+     * @param unit Time unit of result.
+     * @return Time left or 0 if breaker is closed.
+     */
+    public synchronized long getRemainingOpenTime(TimeUnit unit) {
+        if (state == State.CLOSED) {
+            return 0;
+        }
+        return unit.convert(Math.max(0, openNanos - (System.nanoTime() - openedAt)), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Gets breaker name.
+     *
+     * @return Device or hub breaker guards.
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Gets string of the breaker state.
+     *
+     * @return String of the breaker state.
+     */
+    @Override
+    public synchronized String toString() {
+        return String.format("CircuitBreaker{name='%s', state=%s, failures=%d}", name, state, failures);
+    }
+
+    public enum State {
+        /**
+         * Requests are allowed.
+         */
+        CLOSED,
+
+        /**
+         * Requests are rejected.
+         */
+        OPEN,
+
+        /**
+         * Trial request is made, other requests are rejected.
+         */
+        HALF_OPEN
+    }
+}
@@ -0,0 +1,108 @@
+package ru.vasilev.selenile.driver;
+
+import ru.vasilev.selenile.config.SelenileProperties;
+import ru.vasilev.selenile.device.Device;
+
+import java.net.URL;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+public abstract class CircuitBreakers {
+    /**
+     * Default count of consecutive session creation failures opening device breaker.
+     */
+    private static final int DEFAULT_DEVICE_FAILURES = 3;
+
+    /**
+     * Default count of consecutive session creation failures opening hub breaker.
+     */
+    private static final int DEFAULT_HUB_FAILURES = 10;
+
+    /**
+     * Default time in seconds breaker stays open.
+     */
+    private static final long DEFAULT_OPEN_DURATION = 60;
+
+    /**
+     * Count of consecutive session creation failures opening device breaker.
+     * Set by system property {@code breakerfailures}.
+     */
+    private static final int DEVICE_FAILURES = SelenileProperties.getInt("breakerfailures", DEFAULT_DEVICE_FAILURES);
+
+    /**
+     * Count of consecutive session creation failures on devices of hub opening hub breaker.
+     * Set by system property {@code hubbreakerfailures}.
+     */
+    private static final int HUB_FAILURES = SelenileProperties.getInt("hubbreakerfailures", DEFAULT_HUB_FAILURES);
+
+    /**
+     * Time in seconds breaker stays open. Set by system property {@code breakeropen}.
+     */
+    private static final long OPEN_DURATION = SelenileProperties.getLong("breakeropen", DEFAULT_OPEN_DURATION);
+
+    /**
+     * Breakers by device.
+     */
+    private static final ConcurrentHashMap<Device, CircuitBreaker> DEVICES = new ConcurrentHashMap<>();
+
+    /**
+     * Breakers by hub URL string.
+     */
+    private static final ConcurrentHashMap<String, CircuitBreaker> HUBS = new ConcurrentHashMap<>();
+
+    /**
+     * Private constructor.
+     */
+    private CircuitBreakers() {
+    }
+
+    /**
+     * Gets breaker guarding session creation on device.
+     *
+     * @param device Device.
+     * @return Device breaker.
+     */
+    public static CircuitBreaker forDevice(Device device) {
+        return DEVICES.computeIfAbsent(device, key -> new CircuitBreaker(
+                key.getDeviceName() + "@" + key.getUrlHub(), DEVICE_FAILURES, OPEN_DURATION, TimeUnit.SECONDS));
+    }
+
+    /**
+     * Gets breaker guarding session creation on hub.
+     *
+     * @param hub Selenium Grid Hub URL.
+     * @return Hub breaker.
+     */
+    public static CircuitBreaker forHub(URL hub) {
+        return HUBS.computeIfAbsent(hub.toString(), key -> new CircuitBreaker(key, HUB_FAILURES, OPEN_DURATION,
+                                                                              TimeUnit.SECONDS));
+    }
+
+    /**
+     * Gets states of all breakers.
+     *
+     * @return Breaker state and count of consecutive failures by breaker name.
+     */
+    public static Map<String, String> getStates() {
+        Map<String, String> states = new TreeMap<>();
+        for (CircuitBreaker breaker : HUBS.values()) {
+            states.put(breaker.getName(), describe(breaker));
+        }
+        for (CircuitBreaker breaker : DEVICES.values()) {
+            states.put(breaker.getName(), describe(breaker));
+        }
+        return states;
+    }
+
+    /**
+     * Describes breaker state.
+     *
+     * @param breaker Breaker.
+     * @return Breaker state and count of consecutive failures.
+     */
+    private static String describe(CircuitBreaker breaker) {
+        return String.format("%s, %d failures", breaker.getState(), breaker.getFailures());
+    }
+}
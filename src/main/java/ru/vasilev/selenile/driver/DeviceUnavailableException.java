@@ -0,0 +1,48 @@
+package ru.vasilev.selenile.driver;
+
+import org.openqa.selenium.WebDriverException;
+import ru.vasilev.selenile.device.Device;
+
+public class DeviceUnavailableException extends WebDriverException {
+    /**
+     * Device session can't be created on.
+     */
+    private final transient Device device;
+
+    /**
+     * Open breaker rejecting device.
+     */
+    private final transient CircuitBreaker breaker;
+
+    /**
+     * Creates exception.
+     *
+     * @param device  Device session can't be created on.
+     * @param breaker Open breaker rejecting device.
+     * @param cause   The last session creation failure or {@code null}.
+     */
+    public DeviceUnavailableException(Device device, CircuitBreaker breaker, Throwable cause) {
+        super(String.format("Device %s is unavailable, circuit breaker of %s is open", device.getDeviceName(),
+                            breaker.getName()), cause);
+        this.device = device;
+        this.breaker = breaker;
+    }
+
+    /**
+     * Gets device session can't be created on.
+     *
+     * @return Device.
+     */
+    public Device getDevice() {
+        return device;
+    }
+
+    /**
+     * Gets open breaker rejecting device.
+     *
+     * @return Breaker.
+     */
+    public CircuitBreaker getBreaker() {
+        return breaker;
+    }
+}
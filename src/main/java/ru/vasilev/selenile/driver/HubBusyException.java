@@ -0,0 +1,33 @@
+package ru.vasilev.selenile.driver;
+
+import org.openqa.selenium.WebDriverException;
+
+import java.net.URL;
+
+public class HubBusyException extends WebDriverException {
+    /**
+     * Hub session creation turn wasn't got on.
+     */
+    private final transient URL hub;
+
+    /**
+     * Creates exception.
+     *
+     * @param hub     Hub session creation turn wasn't got on.
+     * @param limit   Count of sessions created on hub at the same time.
+     * @param timeout Time in seconds turn was waited for.
+     */
+    public HubBusyException(URL hub, int limit, long timeout) {
+        super(String.format("Hub %s is busy creating %d sessions during %d seconds", hub, limit, timeout));
+        this.hub = hub;
+    }
+
+    /**
+     * Gets hub session creation turn wasn't got on.
+     *
+     * @return Hub URL.
+     */
+    public URL getHub() {
+        return hub;
+    }
+}
@@ -0,0 +1,150 @@
+package ru.vasilev.selenile.driver;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.openqa.selenium.WebDriverException;
+import ru.vasilev.selenile.DevicePool;
+import ru.vasilev.selenile.config.SelenileProperties;
+import ru.vasilev.selenile.metrics.PoolMetrics;
+
+import java.net.URL;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+public abstract class HubSessionThrottle {
+    /**
+     * Multi thread driver logger.
+     */
+    protected static final Logger LOGGER = LogManager.getLogger("MobileDriverParallel");
+
+    /**
+     * Default count of sessions created on one hub at the same time.
+     */
+    private static final int DEFAULT_LIMIT = 4;
+
+    /**
+     * Default time in seconds to wait for session creation turn.
+     */
+    private static final long DEFAULT_WAIT_TIMEOUT = 600;
+
+    /**
+     * Maximum count of sessions created on one hub at the same time. Set by system property
+     * {@code hubsessionlimit}, not positive value turns throttling off. Hub whose pooled devices accept fewer
+     * sessions in total, by their {@code maxInstances}, gets only so many turns: more creations can't run
+     * on its nodes at once anyway.
+     */
+    private static final int LIMIT = SelenileProperties.getInt("hubsessionlimit", DEFAULT_LIMIT);
+
+    /**
+     * Time in seconds to wait for session creation turn. Set by system property {@code hubsessionwait}.
+     */
+    private static final long WAIT_TIMEOUT = SelenileProperties.getLong("hubsessionwait", DEFAULT_WAIT_TIMEOUT);
+
+    /**
+     * Session creation permits by hub URL. Permits are fair, so creations queued on hub start in arrival order.
+     */
+    private static final ConcurrentHashMap<String, HubPermits> PERMITS = new ConcurrentHashMap<>();
+
+    /**
+     * Private constructor.
+     */
+    private HubSessionThrottle() {
+    }
+
+    /**
+     * Waits for turn to create session on hub. Every successful call has to be followed by {@link #release(URL)}.
+     *
+     * @param hub Selenium Grid Hub URL.
+     * @throws HubBusyException   If turn wasn't got in time.
+     * @throws WebDriverException If waiting was interrupted.
+     */
+    public static void acquire(URL hub) {
+        if (LIMIT <= 0) {
+            return;
+        }
+        final HubPermits permits = getPermits(hub);
+        final int limit = permits.resize(Math.min(LIMIT, Math.max(1, DevicePool.getHubCapacity(hub))));
+        if (permits.tryAcquire()) {
+            return;
+        }
+        LOGGER.debug("Session creation on hub {} is queued, {} are waiting", hub, permits.getQueueLength());
+        final long start = System.nanoTime();
+        try {
+            if (!permits.tryAcquire(WAIT_TIMEOUT, TimeUnit.SECONDS)) {
+                PoolMetrics.increment(PoolMetrics.HUB_SESSION_TIMEOUTS);
+                throw new HubBusyException(hub, limit, WAIT_TIMEOUT);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread()
+                  .interrupt();
+            throw new WebDriverException("Waiting for session creation on hub " + hub + " was interrupted", e);
+        } finally {
+            PoolMetrics.HUB_SESSION_WAIT.record(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Gives turn to the next session creation queued on hub.
+     *
+     * @param hub Selenium Grid Hub URL.
+     */
+    public static void release(URL hub) {
+        if (LIMIT > 0) {
+            getPermits(hub).release();
+        }
+    }
+
+    /**
+     * Gets count of session creations waiting for turn on hub.
+     *
+     * @param hub Selenium Grid Hub URL.
+     * @return Count of queued session creations.
+     */
+    public static int getQueueLength(URL hub) {
+        Semaphore permits = PERMITS.get(hub.toString());
+        return permits == null ? 0 : permits.getQueueLength();
+    }
+
+    /**
+     * Gets session creation permits of hub.
+     *
+     * @param hub Selenium Grid Hub URL.
+     * @return Permits of hub.
+     */
+    private static HubPermits getPermits(URL hub) {
+        return PERMITS.computeIfAbsent(hub.toString(), key -> new HubPermits());
+    }
+
+    private static final class HubPermits extends Semaphore {
+        /**
+         * Current count of permits.
+         */
+        private int limit;
+
+        /**
+         * Creates permits of hub without devices.
+         */
+        private HubPermits() {
+            super(1, true);
+            limit = 1;
+        }
+
+        /**
+         * Changes count of permits when devices of hub are added or removed. Taken permits stay valid,
+         * reduced count takes effect as they are released.
+         *
+         * @param newLimit New count of permits.
+         * @return New count of permits.
+         */
+        private synchronized int resize(int newLimit) {
+            if (newLimit > limit) {
+                release(newLimit - limit);
+            } else if (newLimit < limit) {
+                reducePermits(limit - newLimit);
+            }
+            limit = newLimit;
+            return newLimit;
+        }
+    }
+}
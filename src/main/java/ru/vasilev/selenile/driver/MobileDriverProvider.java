@@ -5,20 +5,31 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.openqa.selenium.WebDriverException;
 import org.openqa.selenium.remote.DesiredCapabilities;
+import ru.vasilev.selenile.DaemonThreadFactory;
+import ru.vasilev.selenile.DeviceLease;
 import ru.vasilev.selenile.DevicePool;
-import ru.vasilev.selenile.DevicesQueue;
+import ru.vasilev.selenile.LeasePriority;
+import ru.vasilev.selenile.LeaseRequest;
 import ru.vasilev.selenile.config.MobileSystemPlatform;
+import ru.vasilev.selenile.config.SelenileProperties;
 import ru.vasilev.selenile.device.AndroidDevice;
 import ru.vasilev.selenile.device.Device;
 import ru.vasilev.selenile.device.IOSDevice;
+import ru.vasilev.selenile.device.RecoveryTier;
 import ru.vasilev.selenile.driver.mobile.AndroidDriverParallel;
 import ru.vasilev.selenile.driver.mobile.CustomIOSDriverParallel;
 import ru.vasilev.selenile.driver.mobile.MobileDriverParallel;
+import ru.vasilev.selenile.metrics.LifecycleEvent;
+import ru.vasilev.selenile.metrics.LifecycleEvents;
+import ru.vasilev.selenile.metrics.PoolMetrics;
 
 import javax.annotation.CheckReturnValue;
 import javax.annotation.Nonnull;
-import java.time.LocalDateTime;
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 public class MobileDriverProvider {
     /**
@@ -26,13 +37,68 @@ public class MobileDriverProvider {
      */
     protected static final Logger LOGGER = LogManager.getLogger("MobileDriverParallel");
 
+    /**
+     * Default time in seconds to wait for a free device.
+     */
+    private static final long DEFAULT_DEVICE_WAIT_TIMEOUT = 600;
+
+    /**
+     * Executor creating drivers for {@link #createDriverAsync(DesiredCapabilities)}.
+     * Session creation is mostly waiting for hub, so every request gets its own thread.
+     */
+    private static final ExecutorService DRIVER_CREATORS = Executors.newCachedThreadPool(
+            new DaemonThreadFactory("driver-creator"));
+
+    /**
+     * Default maximum count of session creation attempts on one device.
+     */
+    private static final int DEFAULT_SESSION_ATTEMPTS = 5;
+
+    /**
+     * Default delay in milliseconds before the second session creation attempt.
+     */
+    private static final long DEFAULT_RETRY_DELAY = 1000;
+
+    /**
+     * Default maximum delay in milliseconds between session creation attempts.
+     */
+    private static final long DEFAULT_RETRY_MAX_DELAY = 30000;
+
+    /**
+     * Retries of session creation. Set by system properties {@code sessionattempts},
+     * {@code sessionretrydelay} and {@code sessionretrymaxdelay} (milliseconds).
+     */
+    private static final RetryPolicy RETRY_POLICY = new RetryPolicy(
+            SelenileProperties.getInt("sessionattempts", DEFAULT_SESSION_ATTEMPTS),
+            SelenileProperties.getLong("sessionretrydelay", DEFAULT_RETRY_DELAY),
+            SelenileProperties.getLong("sessionretrymaxdelay", DEFAULT_RETRY_MAX_DELAY));
+
+    /**
+     * Minimum time in milliseconds device is suspended, so devices of hub being tried by another session
+     * aren't leased again and again.
+     */
+    private static final long MIN_SUSPENSION = 5000;
+
+    /**
+     * Priority class of device requests. Set by system property {@code leasepriority}, {@code normal} by default.
+     */
+    private static final LeasePriority LEASE_PRIORITY = getLeasePriority();
+
+    /**
+     * Time in seconds device is needed within or zero if requests have no deadline.
+     * Set by system property {@code leasedeadline}.
+     */
+    private static final long LEASE_DEADLINE = SelenileProperties.getLong("leasedeadline", 0);
+
     /**
      * Mobile platform type.
      */
-    private static MobileSystemPlatform type = null;
+    private static volatile MobileSystemPlatform type = null;
 
     /**
-     * Creates driver for device controlling.
+     * Creates driver for device controlling. Device is chosen by capabilities pooled devices declare.
+     * Device lease is attached to current thread, so {@link ru.vasilev.selenile.DevicesQueue#getDevice()}
+     * returns its device until driver quits.
      *
      * @param capabilities Device connection parameters.
      * @return AppiumDriver got from pool.
@@ -40,68 +106,322 @@ public class MobileDriverProvider {
     @CheckReturnValue
     @Nonnull
     public AppiumDriver createDriver(DesiredCapabilities capabilities) {
-        DevicesQueue.addDevice(DevicePool.deviceRequest());
-        LocalDateTime getDeviceTime = LocalDateTime.now();
-        int count = 0;
-        while (DevicesQueue.getDevice() == null) {
-            if (getDeviceTime.plusMinutes(10)
-                             .isBefore(LocalDateTime.now())) {
-                throw new WebDriverException("Device loading during 10 minutes failed!");
+        return openSession(createRequest(capabilities), true);
+    }
+
+    /**
+     * Creates driver for device controlling with request's priority class and deadline instead of ones
+     * set by system properties. Device is chosen by {@code capabilities}, capabilities of request are ignored.
+     * Device lease is attached to current thread.
+     *
+     * @param capabilities Device connection parameters.
+     * @param request      Device request.
+     * @return AppiumDriver got from pool.
+     */
+    @CheckReturnValue
+    @Nonnull
+    public AppiumDriver createDriver(DesiredCapabilities capabilities, LeaseRequest request) {
+        return openSession(createRequest(capabilities, request), true);
+    }
+
+    /**
+     * Creates driver for device controlling in background. Sessions requested at the same time are created
+     * concurrently. Device lease of the driver is available through {@link MobileDriverParallel#getLease()}
+     * and can be bound to tasks on any thread.
+     *
+     * @param capabilities Device connection parameters.
+     * @return Future completed with AppiumDriver got from pool.
+     */
+    @CheckReturnValue
+    @Nonnull
+    public CompletableFuture<AppiumDriver> createDriverAsync(DesiredCapabilities capabilities) {
+        final LeaseRequest request = createRequest(capabilities);
+        return CompletableFuture.supplyAsync(() -> openSession(request, false), DRIVER_CREATORS);
+    }
+
+    /**
+     * Creates driver for device controlling in background with request's priority class and deadline,
+     * see {@link #createDriver(DesiredCapabilities, LeaseRequest)}.
+     *
+     * @param capabilities Device connection parameters.
+     * @param request      Device request.
+     * @return Future completed with AppiumDriver got from pool.
+     */
+    @CheckReturnValue
+    @Nonnull
+    public CompletableFuture<AppiumDriver> createDriverAsync(DesiredCapabilities capabilities, LeaseRequest request) {
+        final LeaseRequest leaseRequest = createRequest(capabilities, request);
+        return CompletableFuture.supplyAsync(() -> openSession(leaseRequest, false), DRIVER_CREATORS);
+    }
+
+    /**
+     * Creates device request of calling test. Priority class is set by system property {@code leasepriority}
+     * ({@code normal} by default), deadline in seconds by {@code leasedeadline} (no deadline by default).
+     *
+     * @param capabilities Device connection parameters.
+     * @return Device request.
+     */
+    private static LeaseRequest createRequest(DesiredCapabilities capabilities) {
+        LeaseRequest request = new LeaseRequest(capabilities).withRequester(DevicePool.getRequester())
+                                                             .withPriority(LEASE_PRIORITY);
+        return LEASE_DEADLINE > 0 ? request.withDeadline(LEASE_DEADLINE, TimeUnit.SECONDS) : request;
+    }
+
+    /**
+     * Creates device request of calling test from given one. Requester is found if request has none.
+     *
+     * @param capabilities Device connection parameters.
+     * @param request      Device request.
+     * @return Device request.
+     */
+    private static LeaseRequest createRequest(DesiredCapabilities capabilities, LeaseRequest request) {
+        Objects.requireNonNull(request, "Device request is null");
+        LeaseRequest leaseRequest = request.withCapabilities(capabilities);
+        return leaseRequest.getRequester() == null ? leaseRequest.withRequester(DevicePool.getRequester())
+                                                   : leaseRequest;
+    }
+
+    /**
+     * Leases device and opens its session. Device whose circuit breaker opens is suspended,
+     * and session is opened on another device until device waiting timeout is over.
+     *
+     * @param request Device request made on thread calling provider.
+     * @param attach  Attach lease to current thread.
+     * @return Driver for device controlling.
+     */
+    private AppiumDriver openSession(LeaseRequest request, boolean attach) {
+        final long timeout = getDeviceWaitTimeout();
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(timeout);
+        while (true) {
+            final DeviceLease lease = leaseDevice(request, timeout, deadline);
+            if (attach) {
+                lease.attach();
+            }
+            try {
+                return openSession(lease);
+            } catch (DeviceUnavailableException e) {
+                LOGGER.warn("{}, trying another device", e.getMessage());
             }
-            LOGGER.error("Can't find available device. Trying №{}. Next try after 10 seconds.", count++);
-            sleep(10000);
-            DevicesQueue.addDevice(DevicePool.deviceRequest());
         }
-        final Device device = DevicesQueue.getDevice();
-        LOGGER.info("Got device {}", device.getDeviceName());
-        LOGGER.info("Work with {}  from hub {}", device.getDeviceName(), device.getUrlHub());
-        return Objects.requireNonNull(createAppiumDriver(device));
     }
 
     /**
-     * Creates new {@link MobileDriverParallel}.
+     * Waits for a free device matching request.
+     *
+     * @param request  Device request made on thread calling provider.
+     * @param timeout  Device waiting timeout in seconds.
+     * @param deadline End of device waiting in nanoseconds.
+     * @return Device lease.
+     */
+    private static DeviceLease leaseDevice(LeaseRequest request, long timeout, long deadline) {
+        final long start = System.nanoTime();
+        final DeviceLease lease;
+        try {
+            lease = DevicePool.lease(request, Math.max(0, deadline - start), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread()
+                  .interrupt();
+            throw new WebDriverException("Waiting for device was interrupted", e);
+        }
+        if (lease == null && request.hasDeadline() && request.getTimeLeft(TimeUnit.NANOSECONDS) > 0) {
+            throw new WebDriverException(String.format("Device request was rejected after %d ms, its deadline "
+                                                               + "can't be met! Requested capabilities: %s",
+                                                       TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start),
+                                                       request.getCapabilities()));
+        }
+        if (lease == null) {
+            LifecycleEvents.dump("No device is got during " + timeout + " seconds");
+            throw new WebDriverException(String.format("Device loading during %d seconds failed! Requested capabilities: %s",
+                                                       timeout, request.getCapabilities()));
+        }
+        LOGGER.debug("Got device {}", lease.getDevice()
+                                          .getDeviceName());
+        return lease;
+    }
+
+    /**
+     * Gets warm session of device or creates new one. Closes lease if session can't be created,
+     * suspends device while its circuit breaker is open.
+     *
+     * @param lease Device lease.
+     * @return Driver for device controlling.
+     */
+    private AppiumDriver openSession(DeviceLease lease) {
+        final Device device = lease.getDevice();
+        LOGGER.debug("Work with {}  from hub {}", device.getDeviceName(), device.getUrlHub());
+        MobileDriverParallel<?> warmDriver = SessionPool.take(lease);
+        if (warmDriver != null) {
+            PoolMetrics.increment(PoolMetrics.SESSION_REUSES);
+            return warmDriver;
+        }
+        try {
+            MobileDriverParallel<?> driver = Objects.requireNonNull(createAppiumDriver(device));
+            driver.setLease(lease);
+            return driver;
+        } catch (DeviceUnavailableException e) {
+            DevicePool.suspend(lease, Math.max(MIN_SUSPENSION, e.getBreaker()
+                                                                .getRemainingOpenTime(TimeUnit.MILLISECONDS)),
+                               TimeUnit.MILLISECONDS);
+            throw e;
+        } catch (RuntimeException e) {
+            lease.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Creates new {@link MobileDriverParallel}. Drivers for different devices are created concurrently,
+     * but no more than {@code hubsessionlimit} on one hub, the rest are queued, see {@link HubSessionThrottle}.
+     * Turn not got in time fails creation at once, see {@link #awaitHubTurn(Device, CircuitBreaker)}.
+     * Session creation and device recoveries are isolated by device lock, which isn't held while waiting
+     * for hub turn or between attempts; recoveries don't hold hub turn. Every failed attempt is followed
+     * by recovery of tier chosen by failure kind, repeated failures escalate to more expensive tiers.
+     * Attempts are separated by exponential backoff with jitter, see {@link RetryPolicy}.
+     * Failures are reported to circuit breakers of device and hub, see {@link CircuitBreakers}:
+     * when either breaker is open, session isn't created on device.
      *
      * @param device Device whose parameters gives to new driver.
      * @return New {@link MobileDriverParallel}.
+     * @throws DeviceUnavailableException If circuit breaker of device or its hub is open.
      */
-    private synchronized <D extends Device> MobileDriverParallel<D> createAppiumDriver(D device) {
-        LOGGER.info("Trying create driver for {}", device.getDeviceName());
-        int count = 0;
-        while (count < 5) {
+    private <D extends Device> MobileDriverParallel<D> createAppiumDriver(D device) {
+        final CircuitBreaker deviceBreaker = CircuitBreakers.forDevice(device);
+        final CircuitBreaker hubBreaker = CircuitBreakers.forHub(device.getUrlHub());
+        LOGGER.debug("Trying create driver for {}", device.getDeviceName());
+        int failures = 0;
+        RecoveryTier tier = null;
+        WebDriverException failure = null;
+        while (true) {
+            if (!deviceBreaker.allowRequest()) {
+                throw new DeviceUnavailableException(device, deviceBreaker, failure);
+            }
+            if (!hubBreaker.allowRequest()) {
+                throw new DeviceUnavailableException(device, hubBreaker, failure);
+            }
+            awaitHubTurn(device, hubBreaker);
+            long start = System.nanoTime();
             try {
-                MobileDriverParallel driver;
-                switch (type) {
-                    case IOS:
-                        driver = new CustomIOSDriverParallel((IOSDevice) device);
-                        break;
-                    case ANDROID:
-                        driver = new AndroidDriverParallel((AndroidDevice) device);
-                        break;
-                    default:
-                        throw new IllegalArgumentException("Wrong mobile platform type");
+                MobileDriverParallel<D> driver;
+                try {
+                    driver = newDriver(device);
+                } finally {
+                    HubSessionThrottle.release(device.getUrlHub());
                 }
-                LOGGER.info("Got driver for {}", device.getDeviceName());
+                PoolMetrics.SESSION_CREATION.record(System.nanoTime() - start);
+                LifecycleEvents.record(LifecycleEvent.Type.SESSION_CREATE, device, System.nanoTime() - start,
+                                       "created");
+                hubBreaker.onSuccess();
+                deviceBreaker.onSuccess();
+                LOGGER.debug("Got driver for {}", device.getDeviceName());
                 return driver;
             } catch (WebDriverException e) {
-                if (++count == 5) {
+                LifecycleEvents.record(LifecycleEvent.Type.SESSION_CREATE, device, System.nanoTime() - start,
+                                       "failed: " + e.getClass()
+                                                     .getSimpleName());
+                failure = e;
+                boolean hubOpen = hubBreaker.onFailure();
+                boolean deviceOpen = deviceBreaker.onFailure();
+                if (hubOpen || deviceOpen) {
+                    throw new DeviceUnavailableException(device, hubOpen ? hubBreaker : deviceBreaker, e);
+                }
+                if (!RETRY_POLICY.canRetry(++failures)) {
+                    LifecycleEvents.dump("Session of " + device.getDeviceName() + " isn't created");
                     throw e;
                 }
-                device.restartEmulator();
+                PoolMetrics.increment(PoolMetrics.SESSION_RETRIES);
+                synchronized (device) {
+                    tier = device.recover(e, tier);
+                }
+                backoff(failures, e);
+            }
+        }
+    }
+
+    /**
+     * Creates session on device. Device lock is held only while session is created, so that health checks
+     * and boots of device don't interfere with it, but waiting for hub turn and backoff don't block them.
+     *
+     * @param device Device whose parameters gives to new driver.
+     * @return New {@link MobileDriverParallel}.
+     */
+    @SuppressWarnings("unchecked")
+    private <D extends Device> MobileDriverParallel<D> newDriver(D device) {
+        synchronized (device) {
+            switch (getMobileSystemType()) {
+                case IOS:
+                    return (MobileDriverParallel<D>) new CustomIOSDriverParallel((IOSDevice) device);
+                case ANDROID:
+                    return (MobileDriverParallel<D>) new AndroidDriverParallel((AndroidDevice) device);
+                default:
+                    throw new IllegalArgumentException("Wrong mobile platform type");
+            }
+        }
+    }
+
+    /**
+     * Waits for turn to create session on hub of device. Turn not got in time counts as hub failure,
+     * device isn't blamed for it. Attempt isn't retried: the next one would wait for the same busy hub again.
+     *
+     * @param device     Device session is created on.
+     * @param hubBreaker Circuit breaker of device hub.
+     * @throws DeviceUnavailableException If turn wasn't got in time and hub breaker opens.
+     * @throws HubBusyException           If turn wasn't got in time.
+     */
+    private static void awaitHubTurn(Device device, CircuitBreaker hubBreaker) {
+        final long start = System.nanoTime();
+        try {
+            HubSessionThrottle.acquire(device.getUrlHub());
+        } catch (HubBusyException e) {
+            LifecycleEvents.record(LifecycleEvent.Type.SESSION_CREATE, device, System.nanoTime() - start,
+                                   "failed: hub is busy");
+            if (hubBreaker.onFailure()) {
+                throw new DeviceUnavailableException(device, hubBreaker, e);
             }
+            LifecycleEvents.dump("Session of " + device.getDeviceName() + " isn't created, " + e.getMessage());
+            throw e;
         }
-        throw new IllegalArgumentException("Can't create mobile driver.");
     }
 
     /**
-     * Stops thread for {@code ms} milliseconds.
+     * Waits before the next session creation attempt.
      *
-     * @param ms Count milliseconds to stop thread.
+     * @param failures Count of failed attempts.
+     * @param failure  The last failure.
+     * @throws WebDriverException If current thread was interrupted while waiting.
      */
-    private void sleep(long ms) {
+    private static void backoff(int failures, WebDriverException failure) {
         try {
-            Thread.sleep(ms);
+            RETRY_POLICY.backoff(failures);
         } catch (InterruptedException e) {
-            e.printStackTrace();
+            Thread.currentThread()
+                  .interrupt();
+            failure.addSuppressed(e);
+            throw failure;
+        }
+    }
+
+    /**
+     * Gets time in seconds to wait for a free device from system property {@code devicewaittimeout}.
+     *
+     * @return Time in seconds to wait for a free device.
+     */
+    public static long getDeviceWaitTimeout() {
+        return SelenileProperties.getLong("devicewaittimeout", DEFAULT_DEVICE_WAIT_TIMEOUT);
+    }
+
+    /**
+     * Gets priority class of device requests from system property {@code leasepriority}. Wrong class is reported
+     * and replaced by {@code normal}, so misconfigured provider still works.
+     *
+     * @return Priority class of device requests.
+     */
+    private static LeasePriority getLeasePriority() {
+        final String priority = SelenileProperties.getString("leasepriority", "normal");
+        try {
+            return LeasePriority.valueOf(priority.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            LOGGER.warn("Wrong lease priority {}, normal is used instead", priority);
+            return LeasePriority.NORMAL;
         }
     }
 
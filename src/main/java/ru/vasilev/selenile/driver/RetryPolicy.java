@@ -0,0 +1,73 @@
+package ru.vasilev.selenile.driver;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+public final class RetryPolicy {
+    /**
+     * Maximum count of attempts.
+     */
+    private final int maxAttempts;
+
+    /**
+     * Delay in milliseconds after the first failed attempt.
+     */
+    private final long baseDelay;
+
+    /**
+     * Maximum delay in milliseconds.
+     */
+    private final long maxDelay;
+
+    /**
+     * Creates policy with exponential backoff.
+     *
+     * @param maxAttempts Maximum count of attempts.
+     * @param baseDelay   Delay in milliseconds after the first failed attempt.
+     * @param maxDelay    Maximum delay in milliseconds.
+     */
+    public RetryPolicy(int maxAttempts, long baseDelay, long maxDelay) {
+        if (maxAttempts < 1 || baseDelay < 0 || maxDelay < baseDelay) {
+            throw new IllegalArgumentException(String.format("Wrong retry policy: %d attempts, delay %d-%d ms",
+                                                             maxAttempts, baseDelay, maxDelay));
+        }
+        this.maxAttempts = maxAttempts;
+        this.baseDelay = baseDelay;
+        this.maxDelay = maxDelay;
+    }
+
+    /**
+     * Checks whether one more attempt is allowed.
+     *
+     * @param failedAttempts Count of failed attempts.
+     * @return Can operation be retried.
+     */
+    public boolean canRetry(int failedAttempts) {
+        return failedAttempts < maxAttempts;
+    }
+
+    /**
+     * Gets delay before the next attempt. Delay doubles after every failure up to maximum, its random half
+     * spreads retries of concurrent callers, so they don't hit the same hub at once.
+     *
+     * @param failedAttempts Count of failed attempts.
+     * @return Delay in milliseconds.
+     */
+    public long getDelay(int failedAttempts) {
+        int shift = Math.min(Math.max(0, failedAttempts - 1), 30);
+        long delay = Math.min(maxDelay, baseDelay << shift);
+        long half = delay / 2;
+        return half + ThreadLocalRandom.current()
+                                       .nextLong(delay - half + 1);
+    }
+
+    /**
+     * Sleeps before the next attempt.
+     *
+     * @param failedAttempts Count of failed attempts.
+     * @throws InterruptedException If current thread was interrupted while sleeping.
+     */
+    public void backoff(int failedAttempts) throws InterruptedException {
+        TimeUnit.MILLISECONDS.sleep(getDelay(failedAttempts));
+    }
+}
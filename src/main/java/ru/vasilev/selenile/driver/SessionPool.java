@@ -0,0 +1,161 @@
+package ru.vasilev.selenile.driver;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.openqa.selenium.WebDriverException;
+import ru.vasilev.selenile.DeviceLease;
+import ru.vasilev.selenile.config.SelenileProperties;
+import ru.vasilev.selenile.device.Device;
+import ru.vasilev.selenile.driver.mobile.MobileDriverParallel;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+public abstract class SessionPool {
+    /**
+     * Multi thread driver logger.
+     */
+    protected static final Logger LOGGER = LogManager.getLogger("MobileDriverParallel");
+
+    /**
+     * Default maximum session age in seconds.
+     */
+    private static final long DEFAULT_MAX_AGE = 1800;
+
+    /**
+     * Default maximum count of session reuses.
+     */
+    private static final int DEFAULT_MAX_REUSE = 20;
+
+    /**
+     * Is session reuse turned on. Set by system property {@code sessionreuse}.
+     */
+    private static final boolean ENABLED = SelenileProperties.getBoolean("sessionreuse", false);
+
+    /**
+     * Maximum session age in nanoseconds. Set in seconds by system property {@code sessionmaxage}.
+     */
+    private static final long MAX_AGE = TimeUnit.SECONDS.toNanos(
+            SelenileProperties.getLong("sessionmaxage", DEFAULT_MAX_AGE));
+
+    /**
+     * Maximum count of session reuses. Set by system property {@code sessionmaxreuse}.
+     */
+    private static final int MAX_REUSE = SelenileProperties.getInt("sessionmaxreuse", DEFAULT_MAX_REUSE);
+
+    /**
+     * Warm sessions of free devices.
+     */
+    private static final ConcurrentHashMap<Device, MobileDriverParallel<?>> SESSIONS = new ConcurrentHashMap<>();
+
+    static {
+        if (ENABLED) {
+            Runtime.getRuntime()
+                   .addShutdownHook(new Thread(SessionPool::clear, "session-pool-shutdown"));
+        }
+    }
+
+    /**
+     * Private constructor.
+     */
+    private SessionPool() {
+    }
+
+    /**
+     * Checks whether session reuse is turned on.
+     *
+     * @return Is session reuse turned on.
+     */
+    public static boolean isEnabled() {
+        return ENABLED;
+    }
+
+    /**
+     * Resets application and keeps session for the next lease of its device.
+     * Session isn't kept if reuse is turned off, session is too old or used too many times.
+     *
+     * @param driver Driver whose session is finished by test.
+     * @return {@code true} if session is kept, otherwise caller has to close it.
+     */
+    public static boolean offer(MobileDriverParallel<?> driver) {
+        if (!ENABLED || isExpired(driver)) {
+            return false;
+        }
+        try {
+            driver.resetApp();
+        } catch (WebDriverException e) {
+            LOGGER.warn("Application reset on {} failed, session is closed: {}", driver.getDevice()
+                                                                                 .getDeviceName(), e.getMessage());
+            return false;
+        }
+        MobileDriverParallel<?> previous = SESSIONS.put(driver.getDevice(), driver);
+        if (previous != null && previous != driver) {
+            previous.terminate();
+        }
+        LOGGER.debug("Session of {} is kept for reuse", driver.getDevice()
+                                                           .getDeviceName());
+        return true;
+    }
+
+    /**
+     * Takes warm session of device. Session is checked to be alive before reuse.
+     *
+     * @param lease Lease of device.
+     * @return Warm session or {@code null} if device has no live session.
+     */
+    public static MobileDriverParallel<?> take(DeviceLease lease) {
+        if (!ENABLED) {
+            return null;
+        }
+        Device device = lease.getDevice();
+        MobileDriverParallel<?> driver = SESSIONS.remove(device);
+        if (driver == null) {
+            return null;
+        }
+        if (isExpired(driver)) {
+            driver.terminate();
+            return null;
+        }
+        try {
+            driver.getSessionDetails();
+        } catch (WebDriverException e) {
+            LOGGER.warn("Warm session of {} is lost: {}", device.getDeviceName(), e.getMessage());
+            driver.terminate();
+            return null;
+        }
+        driver.reopen(lease);
+        LOGGER.debug("Reuse session of {}, use {}", device.getDeviceName(), driver.getUseCount());
+        return driver;
+    }
+
+    /**
+     * Closes warm session of device.
+     *
+     * @param device Device whose session has to be closed.
+     */
+    public static void evict(Device device) {
+        MobileDriverParallel<?> driver = SESSIONS.remove(device);
+        if (driver != null) {
+            driver.terminate();
+        }
+    }
+
+    /**
+     * Closes all warm sessions.
+     */
+    public static void clear() {
+        for (Device device : SESSIONS.keySet()) {
+            evict(device);
+        }
+    }
+
+    /**
+     * Checks whether session is too old or used too many times.
+     *
+     * @param driver Driver for checking.
+     * @return Can't session be reused anymore.
+     */
+    private static boolean isExpired(MobileDriverParallel<?> driver) {
+        return driver.getAgeNanos() >= MAX_AGE || driver.getUseCount() > MAX_REUSE;
+    }
+}
@@ -2,24 +2,47 @@ package ru.vasilev.selenile.driver.mobile;
 
 import io.appium.java_client.AppiumDriver;
 import io.appium.java_client.MobileElement;
+import ru.vasilev.selenile.DeviceLease;
 import ru.vasilev.selenile.DevicePool;
 import ru.vasilev.selenile.device.Device;
+import ru.vasilev.selenile.driver.SessionPool;
 
 import java.util.Objects;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public abstract class MobileDriverParallel<D extends Device> extends AppiumDriver<MobileElement> {
 
     /**
-     *
+     * Is session finished by test.
      */
     private final AtomicBoolean hasQuit = new AtomicBoolean(false);
 
+    /**
+     * Is session kept in session pool after test finished it.
+     */
+    private volatile boolean kept = false;
+
+    /**
+     * Session creation time in nanoseconds.
+     */
+    private final long createdAt = System.nanoTime();
+
+    /**
+     * Count of tests used session.
+     */
+    private final AtomicInteger useCount = new AtomicInteger(1);
+
     /**
      * Device whose parameters use the driver.
      */
     protected D device;
 
+    /**
+     * Lease of device held by current test.
+     */
+    private volatile DeviceLease lease;
+
     /**
      * Creates driver for device control.
      *
@@ -32,13 +55,90 @@ public abstract class MobileDriverParallel<D extends Device> extends AppiumDrive
 
     /**
      * Closes session. Release device.
+     * If session reuse is turned on, session is kept for the next lease of device instead of closing.
      */
     @Override
     public void quit() {
-        if (!hasQuit.get() && Objects.nonNull(device)) {
-            DevicePool.freeDevice(device);
-            hasQuit.set(true);
+        if (hasQuit.compareAndSet(false, true) && Objects.nonNull(device)) {
+            kept = SessionPool.offer(this);
+            DeviceLease current = lease;
+            if (current != null) {
+                current.close();
+            } else {
+                DevicePool.freeDevice(device);
+            }
         }
+        if (!kept) {
+            super.quit();
+        }
+    }
+
+    /**
+     * Closes session without returning it to session pool. Device isn't released.
+     */
+    public void terminate() {
+        hasQuit.set(true);
+        kept = false;
         super.quit();
     }
+
+    /**
+     * Prepares warm session for the next test.
+     *
+     * @param lease Lease of device held by the next test.
+     */
+    public void reopen(DeviceLease lease) {
+        setLease(lease);
+        useCount.incrementAndGet();
+        kept = false;
+        hasQuit.set(false);
+    }
+
+    /**
+     * Gets device whose parameters use the driver.
+     *
+     * @return {@code device}.
+     */
+    public D getDevice() {
+        return device;
+    }
+
+    /**
+     * Gets lease of device held by current test.
+     *
+     * @return Device lease or {@code null} if driver was created without lease.
+     */
+    public DeviceLease getLease() {
+        return lease;
+    }
+
+    /**
+     * Sets lease of device closed when test quits driver. Session is terminated if pool reclaims expired lease.
+     *
+     * @param lease Device lease.
+     */
+    public void setLease(DeviceLease lease) {
+        this.lease = lease;
+        if (lease != null) {
+            lease.onReclaim(this::terminate);
+        }
+    }
+
+    /**
+     * Gets time since session creation.
+     *
+     * @return Session age in nanoseconds.
+     */
+    public long getAgeNanos() {
+        return System.nanoTime() - createdAt;
+    }
+
+    /**
+     * Gets count of tests used session including current one.
+     *
+     * @return Count of session uses.
+     */
+    public int getUseCount() {
+        return useCount.get();
+    }
 }
@@ -0,0 +1,121 @@
+package ru.vasilev.selenile.metrics;
+
+import java.util.Collections;
+import java.util.Map;
+
+public class DeviceStats {
+    /**
+     * Device name.
+     */
+    private final String deviceName;
+
+    /**
+     * Selenium Grid Hub URL.
+     */
+    private final String hub;
+
+    /**
+     * Device state in pool.
+     */
+    private final String state;
+
+    /**
+     * Count of device leases.
+     */
+    private final long leaseCount;
+
+    /**
+     * Share of time device was leased since it was added into pool.
+     */
+    private final double utilization;
+
+    /**
+     * Count of successful recoveries by recovery tier name.
+     */
+    private final Map<String, Long> recoveries;
+
+    /**
+     * Creates device statistics.
+     *
+     * @param deviceName  Device name.
+     * @param hub         Selenium Grid Hub URL.
+     * @param state       Device state in pool.
+     * @param leaseCount  Count of device leases.
+     * @param utilization Share of time device was leased since it was added into pool.
+     * @param recoveries  Count of successful recoveries by recovery tier name.
+     */
+    public DeviceStats(String deviceName, String hub, String state, long leaseCount, double utilization,
+                       Map<String, Long> recoveries) {
+        this.deviceName = deviceName;
+        this.hub = hub;
+        this.state = state;
+        this.leaseCount = leaseCount;
+        this.utilization = utilization;
+        this.recoveries = Collections.unmodifiableMap(recoveries);
+    }
+
+    /**
+     * Gets device name.
+     *
+     * @return {@code deviceName}.
+     */
+    public String getDeviceName() {
+        return deviceName;
+    }
+
+    /**
+     * Gets Selenium Grid Hub URL.
+     *
+     * @return {@code hub}.
+     */
+    public String getHub() {
+        return hub;
+    }
+
+    /**
+     * Gets device state in pool.
+     *
+     * @return {@code state}.
+     */
+    public String getState() {
+        return state;
+    }
+
+    /**
+     * Gets count of device leases.
+     *
+     * @return {@code leaseCount}.
+     */
+    public long getLeaseCount() {
+        return leaseCount;
+    }
+
+    /**
+     * Gets share of time device was leased since it was added into pool.
+     *
+     * @return Utilization from 0 to 1.
+     */
+    public double getUtilization() {
+        return utilization;
+    }
+
+    /**
+     * Gets count of successful recoveries by recovery tier name.
+     *
+     * @return {@code recoveries}.
+     */
+    public Map<String, Long> getRecoveries() {
+        return recoveries;
+    }
+
+    /**
+     * Gets string of the device statistics.
+     *
+     * @return String of the device statistics.
+     */
+    @Override
+    public String toString() {
+        return String.format("DeviceStats{deviceName='%s', hub='%s', state=%s, leases=%d, utilization=%.2f, "
+                                     + "recoveries=%s}", deviceName, hub, state, leaseCount, utilization, recoveries);
+    }
+}
@@ -0,0 +1,135 @@
+package ru.vasilev.selenile.metrics;
+
+import java.util.Arrays;
+
+public class HistogramSnapshot {
+    /**
+     * Histogram name.
+     */
+    private final String name;
+
+    /**
+     * Counts of recorded values by bucket.
+     */
+    private final long[] buckets;
+
+    /**
+     * Count of recorded values.
+     */
+    private final long count;
+
+    /**
+     * Sum of recorded values in microseconds.
+     */
+    private final long sum;
+
+    /**
+     * Maximum recorded value in microseconds.
+     */
+    private final long max;
+
+    /**
+     * Creates snapshot.
+     *
+     * @param name    Histogram name.
+     * @param buckets Counts of recorded values by bucket.
+     * @param count   Count of recorded values.
+     * @param sum     Sum of recorded values in microseconds.
+     * @param max     Maximum recorded value in microseconds.
+     */
+    HistogramSnapshot(String name, long[] buckets, long count, long sum, long max) {
+        this.name = name;
+        this.buckets = buckets;
+        this.count = count;
+        this.sum = sum;
+        this.max = max;
+    }
+
+    /**
+     * Gets histogram name.
+     *
+     * @return Histogram name.
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Gets count of recorded values.
+     *
+     * @return Count of recorded values.
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Gets mean of recorded values.
+     *
+     * @return Mean in milliseconds.
+     */
+    public double getMeanMillis() {
+        return count == 0 ? 0 : sum / 1000.0 / count;
+    }
+
+    /**
+     * Gets maximum recorded value.
+     *
+     * @return Maximum in milliseconds.
+     */
+    public double getMaxMillis() {
+        return max / 1000.0;
+    }
+
+    /**
+     * Gets upper bound of percentile.
+     *
+     * @param percentile Percentile from 0 to 100.
+     * @return Upper bound of bucket holding percentile in milliseconds.
+     */
+    public double getPercentileMillis(double percentile) {
+        if (count == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(count * percentile / 100.0);
+        long seen = 0;
+        for (int i = 0; i < buckets.length; i++) {
+            seen += buckets[i];
+            if (seen >= Math.max(1, rank)) {
+                return Math.min(getBucketUpperBoundMicros(i), max) / 1000.0;
+            }
+        }
+        return getMaxMillis();
+    }
+
+    /**
+     * Gets counts of recorded values by bucket.
+     *
+     * @return Bucket counts, bucket upper bounds are given by {@link #getBucketUpperBoundMicros(int)}.
+     */
+    public long[] getBuckets() {
+        return Arrays.copyOf(buckets, buckets.length);
+    }
+
+    /**
+     * Gets upper bound of bucket.
+     *
+     * @param bucket Bucket number.
+     * @return Maximum value of bucket in microseconds.
+     */
+    public static long getBucketUpperBoundMicros(int bucket) {
+        return bucket == 0 ? 0 : (1L << bucket) - 1;
+    }
+
+    /**
+     * Gets string of the histogram summary.
+     *
+     * @return String of the histogram summary.
+     */
+    @Override
+    public String toString() {
+        return String.format("%s{count=%d, mean=%.1fms, p50=%.1fms, p99=%.1fms, max=%.1fms}",
+                             name, count, getMeanMillis(), getPercentileMillis(50), getPercentileMillis(99),
+                             getMaxMillis());
+    }
+}
@@ -0,0 +1,82 @@
+package ru.vasilev.selenile.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+public class LatencyHistogram {
+    /**
+     * Count of buckets. Bucket {@code i} holds values from {@code 2^(i-1)} to {@code 2^i - 1} microseconds.
+     */
+    static final int BUCKETS = 40;
+
+    /**
+     * Histogram name.
+     */
+    private final String name;
+
+    /**
+     * Counts of recorded values by bucket.
+     */
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+
+    /**
+     * Count of recorded values.
+     */
+    private final LongAdder count = new LongAdder();
+
+    /**
+     * Sum of recorded values in microseconds.
+     */
+    private final LongAdder sum = new LongAdder();
+
+    /**
+     * Maximum recorded value in microseconds.
+     */
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Creates empty histogram.
+     *
+     * @param name Histogram name.
+     */
+    public LatencyHistogram(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Records duration.
+     *
+     * @param nanos Duration in nanoseconds.
+     */
+    public void record(long nanos) {
+        long micros = Math.max(0, nanos / 1000);
+        int bucket = Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(micros));
+        buckets.incrementAndGet(bucket);
+        count.increment();
+        sum.add(micros);
+        max.accumulateAndGet(micros, Math::max);
+    }
+
+    /**
+     * Gets histogram name.
+     *
+     * @return Histogram name.
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Gets current histogram state.
+     *
+     * @return Histogram snapshot.
+     */
+    public HistogramSnapshot snapshot() {
+        long[] counts = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = buckets.get(i);
+        }
+        return new HistogramSnapshot(name, counts, count.sum(), sum.sum(), max.get());
+    }
+}
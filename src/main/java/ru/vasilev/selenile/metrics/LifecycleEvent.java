@@ -0,0 +1,180 @@
+package ru.vasilev.selenile.metrics;
+
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+public final class LifecycleEvent {
+    /**
+     * Event number in recording order.
+     */
+    private final long sequence;
+
+    /**
+     * Event time.
+     */
+    private final long timestamp;
+
+    /**
+     * Event type.
+     */
+    private final Type type;
+
+    /**
+     * Device name.
+     */
+    private final String deviceName;
+
+    /**
+     * Selenium Grid Hub URL.
+     */
+    private final String hub;
+
+    /**
+     * Name of thread recorded event.
+     */
+    private final String thread;
+
+    /**
+     * Duration of event in nanoseconds, 0 if event is instant.
+     */
+    private final long duration;
+
+    /**
+     * Event details: requester, outcome or reason, may be {@code null}.
+     */
+    private final String detail;
+
+    /**
+     * Creates event of current thread.
+     *
+     * @param sequence   Event number in recording order.
+     * @param type       Event type.
+     * @param deviceName Device name.
+     * @param hub        Selenium Grid Hub URL.
+     * @param duration   Duration of event in nanoseconds, 0 if event is instant.
+     * @param detail     Event details, may be {@code null}.
+     */
+    LifecycleEvent(long sequence, Type type, String deviceName, String hub, long duration, String detail) {
+        this.sequence = sequence;
+        this.timestamp = System.currentTimeMillis();
+        this.type = type;
+        this.deviceName = deviceName;
+        this.hub = hub;
+        this.thread = Thread.currentThread()
+                            .getName();
+        this.duration = duration;
+        this.detail = detail;
+    }
+
+    /**
+     * Gets event number in recording order.
+     *
+     * @return {@code sequence}.
+     */
+    public long getSequence() {
+        return sequence;
+    }
+
+    /**
+     * Gets event time.
+     *
+     * @return Event time.
+     */
+    public Instant getTimestamp() {
+        return Instant.ofEpochMilli(timestamp);
+    }
+
+    /**
+     * Gets event type.
+     *
+     * @return {@code type}.
+     */
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * Gets device name.
+     *
+     * @return {@code deviceName}.
+     */
+    public String getDeviceName() {
+        return deviceName;
+    }
+
+    /**
+     * Gets Selenium Grid Hub URL.
+     *
+     * @return {@code hub}.
+     */
+    public String getHub() {
+        return hub;
+    }
+
+    /**
+     * Gets name of thread recorded event.
+     *
+     * @return {@code thread}.
+     */
+    public String getThread() {
+        return thread;
+    }
+
+    /**
+     * Gets duration of event.
+     *
+     * @param unit Time unit of result.
+     * @return Duration, 0 if event is instant.
+     */
+    public long getDuration(TimeUnit unit) {
+        return unit.convert(duration, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Gets event details.
+     *
+     * @return {@code detail} or {@code null}.
+     */
+    public String getDetail() {
+        return detail;
+    }
+
+    /**
+     * Gets string of the event for timeline dumps.
+     *
+     * @return String of the event.
+     */
+    @Override
+    public String toString() {
+        return String.format("%s %s %s@%s [%s]%s%s", getTimestamp(), type, deviceName, hub, thread,
+                             duration > 0 ? " " + TimeUnit.NANOSECONDS.toMillis(duration) + " ms" : "",
+                             detail == null ? "" : " " + detail);
+    }
+
+    public enum Type {
+        /**
+         * Device is leased.
+         */
+        LEASE_ACQUIRE,
+
+        /**
+         * Device is returned into pool.
+         */
+        LEASE_RELEASE,
+
+        /**
+         * Appium session creation is finished.
+         */
+        SESSION_CREATE,
+
+        /**
+         * Emulator is restarted.
+         */
+        EMULATOR_RESTART,
+
+        /**
+         * Device is taken out of leasing.
+         */
+        QUARANTINE
+    }
+}
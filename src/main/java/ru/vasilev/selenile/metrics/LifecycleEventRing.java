@@ -0,0 +1,85 @@
+package ru.vasilev.selenile.metrics;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+public final class LifecycleEventRing {
+    /**
+     * Event slots. Slot of event is its sequence modulo capacity, so new events overwrite the oldest ones.
+     */
+    private final AtomicReferenceArray<LifecycleEvent> events;
+
+    /**
+     * Mask of slot index, capacity is a power of two.
+     */
+    private final int mask;
+
+    /**
+     * Sequence of the next event.
+     */
+    private final AtomicLong sequence = new AtomicLong();
+
+    /**
+     * Creates ring.
+     *
+     * @param capacity Count of kept events, rounded up to a power of two.
+     */
+    public LifecycleEventRing(int capacity) {
+        if (capacity < 1 || capacity > 1 << 30) {
+            throw new IllegalArgumentException("Wrong lifecycle event ring capacity: " + capacity);
+        }
+        int size = Integer.highestOneBit(capacity);
+        if (size < capacity) {
+            size <<= 1;
+        }
+        events = new AtomicReferenceArray<>(size);
+        mask = size - 1;
+    }
+
+    /**
+     * Records event. Recording is lock-free: writer takes sequence and stores event into its slot.
+     *
+     * @param type       Event type.
+     * @param deviceName Device name.
+     * @param hub        Selenium Grid Hub URL.
+     * @param duration   Duration of event in nanoseconds, 0 if event is instant.
+     * @param detail     Event details, may be {@code null}.
+     * @return Recorded event.
+     */
+    public LifecycleEvent add(LifecycleEvent.Type type, String deviceName, String hub, long duration, String detail) {
+        final long number = sequence.getAndIncrement();
+        final LifecycleEvent event = new LifecycleEvent(number, type, deviceName, hub, duration, detail);
+        events.set((int) number & mask, event);
+        return event;
+    }
+
+    /**
+     * Gets recent events in recording order. Events recorded during the call may be missed.
+     *
+     * @return Recent events, the oldest first.
+     */
+    public List<LifecycleEvent> snapshot() {
+        final long oldest = sequence.get() - events.length();
+        List<LifecycleEvent> recent = new ArrayList<>(events.length());
+        for (int i = 0; i < events.length(); i++) {
+            LifecycleEvent event = events.get(i);
+            if (event != null && event.getSequence() >= oldest) {
+                recent.add(event);
+            }
+        }
+        recent.sort(Comparator.comparingLong(LifecycleEvent::getSequence));
+        return recent;
+    }
+
+    /**
+     * Gets count of kept events.
+     *
+     * @return Ring capacity.
+     */
+    public int capacity() {
+        return events.length();
+    }
+}
@@ -0,0 +1,119 @@
+package ru.vasilev.selenile.metrics;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import ru.vasilev.selenile.config.SelenileProperties;
+import ru.vasilev.selenile.device.Device;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+public abstract class LifecycleEvents {
+    /**
+     * Multi thread driver logger.
+     */
+    protected static final Logger LOGGER = LogManager.getLogger("MobileDriverParallel");
+
+    /**
+     * Default count of recent events kept in memory.
+     */
+    private static final int DEFAULT_CAPACITY = 1024;
+
+    /**
+     * Recent lifecycle events. Size is set by system property {@code lifecycleevents}.
+     */
+    private static final LifecycleEventRing RING = new LifecycleEventRing(
+            Math.max(1, SelenileProperties.getInt("lifecycleevents", DEFAULT_CAPACITY)));
+
+    /**
+     * Class name of Flight Recorder event writer.
+     */
+    private static final String FLIGHT_RECORDER_WRITER = "ru.vasilev.selenile.metrics.jfr.JfrEventWriter";
+
+    /**
+     * Writer committing Flight Recorder events or {@code null} if they aren't committed: Flight Recorder
+     * isn't available in JVM or system property {@code flightrecorder} is false.
+     */
+    private static final Consumer<LifecycleEvent> FLIGHT_RECORDER =
+            SelenileProperties.getBoolean("flightrecorder", true) ? createFlightRecorderWriter() : null;
+
+    /**
+     * Private constructor.
+     */
+    private LifecycleEvents() {
+    }
+
+    /**
+     * Records lifecycle event of device into recent events and Flight Recorder.
+     *
+     * @param type     Event type.
+     * @param device   Device.
+     * @param duration Duration of event in nanoseconds, 0 if event is instant.
+     * @param detail   Event details: requester, outcome or reason, may be {@code null}.
+     */
+    public static void record(LifecycleEvent.Type type, Device device, long duration, String detail) {
+        LifecycleEvent event = RING.add(type, device.getDeviceName(), device.getUrlHub()
+                                                                            .toString(), duration, detail);
+        if (FLIGHT_RECORDER != null) {
+            FLIGHT_RECORDER.accept(event);
+        }
+    }
+
+    /**
+     * Gets recent lifecycle events.
+     *
+     * @return Recent events, the oldest first.
+     */
+    public static List<LifecycleEvent> getRecent() {
+        return RING.snapshot();
+    }
+
+    /**
+     * Logs recent lifecycle events, e.g. when test failed to get a device or session.
+     *
+     * @param reason Reason of dump.
+     */
+    public static void dump(String reason) {
+        List<LifecycleEvent> events = RING.snapshot();
+        StringBuilder timeline = new StringBuilder();
+        for (LifecycleEvent event : events) {
+            timeline.append(System.lineSeparator())
+                    .append('\t')
+                    .append(event);
+        }
+        LOGGER.warn("{}. The last {} lifecycle events:{}", reason, events.size(), timeline);
+    }
+
+    /**
+     * Checks whether Flight Recorder events are committed.
+     *
+     * @return Is Flight Recorder used.
+     */
+    public static boolean isFlightRecorderEnabled() {
+        return FLIGHT_RECORDER != null;
+    }
+
+    /**
+     * Creates Flight Recorder event writer if Flight Recorder can be used in current JVM. Writer and event
+     * classes need JDK 11, so they are loaded by reflection only after Flight Recorder is found.
+     *
+     * @return Writer or {@code null} if Flight Recorder isn't available.
+     */
+    @SuppressWarnings("unchecked")
+    private static Consumer<LifecycleEvent> createFlightRecorderWriter() {
+        try {
+            if (!(Boolean) Class.forName("jdk.jfr.FlightRecorder")
+                                .getMethod("isAvailable")
+                                .invoke(null)) {
+                LOGGER.debug("Flight Recorder isn't available");
+                return null;
+            }
+            return (Consumer<LifecycleEvent>) Class.forName(FLIGHT_RECORDER_WRITER)
+                                                   .getDeclaredConstructor()
+                                                   .newInstance();
+        } catch (ReflectiveOperationException | LinkageError | RuntimeException e) {
+            LOGGER.debug("Flight Recorder isn't available: {}", e.toString());
+            return null;
+        }
+    }
+}
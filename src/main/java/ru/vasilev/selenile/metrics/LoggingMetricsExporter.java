@@ -0,0 +1,28 @@
+package ru.vasilev.selenile.metrics;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+public class LoggingMetricsExporter implements MetricsExporter {
+    /**
+     * Multi thread driver logger.
+     */
+    protected static final Logger LOGGER = LogManager.getLogger("MobileDriverParallel");
+
+    /**
+     * Writes metrics into log.
+     *
+     * @param snapshot Current metrics.
+     */
+    @Override
+    public void export(MetricsSnapshot snapshot) {
+        LOGGER.info("Free devices {}, leased devices {}", snapshot.getFreeDevices(), snapshot.getLeasedDevices());
+        LOGGER.info("Counters {}", snapshot.getCounters());
+        for (HistogramSnapshot histogram : snapshot.getHistograms()) {
+            LOGGER.info("{}", histogram);
+        }
+        for (DeviceStats device : snapshot.getDevices()) {
+            LOGGER.info("{}", device);
+        }
+    }
+}
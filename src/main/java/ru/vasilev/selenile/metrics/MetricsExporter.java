@@ -0,0 +1,10 @@
+package ru.vasilev.selenile.metrics;
+
+public interface MetricsExporter {
+    /**
+     * Sends metrics to monitoring system.
+     *
+     * @param snapshot Current metrics.
+     */
+    void export(MetricsSnapshot snapshot);
+}
@@ -0,0 +1,115 @@
+package ru.vasilev.selenile.metrics;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+public class MetricsSnapshot {
+    /**
+     * Snapshot time in milliseconds since epoch.
+     */
+    private final long timestamp;
+
+    /**
+     * Latency histograms.
+     */
+    private final List<HistogramSnapshot> histograms;
+
+    /**
+     * Event counters by name.
+     */
+    private final Map<String, Long> counters;
+
+    /**
+     * Count of free devices by hub.
+     */
+    private final Map<String, Integer> freeDevices;
+
+    /**
+     * Count of leased devices by hub.
+     */
+    private final Map<String, Integer> leasedDevices;
+
+    /**
+     * Statistics of pooled devices.
+     */
+    private final List<DeviceStats> devices;
+
+    /**
+     * Creates snapshot.
+     *
+     * @param timestamp     Snapshot time in milliseconds since epoch.
+     * @param histograms    Latency histograms.
+     * @param counters      Event counters by name.
+     * @param freeDevices   Count of free devices by hub.
+     * @param leasedDevices Count of leased devices by hub.
+     * @param devices       Statistics of pooled devices.
+     */
+    public MetricsSnapshot(long timestamp,
+                           List<HistogramSnapshot> histograms,
+                           Map<String, Long> counters,
+                           Map<String, Integer> freeDevices,
+                           Map<String, Integer> leasedDevices,
+                           List<DeviceStats> devices) {
+        this.timestamp = timestamp;
+        this.histograms = Collections.unmodifiableList(histograms);
+        this.counters = Collections.unmodifiableMap(counters);
+        this.freeDevices = Collections.unmodifiableMap(freeDevices);
+        this.leasedDevices = Collections.unmodifiableMap(leasedDevices);
+        this.devices = Collections.unmodifiableList(devices);
+    }
+
+    /**
+     * Gets snapshot time.
+     *
+     * @return Milliseconds since epoch.
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    /**
+     * Gets latency histograms.
+     *
+     * @return {@code histograms}.
+     */
+    public List<HistogramSnapshot> getHistograms() {
+        return histograms;
+    }
+
+    /**
+     * Gets event counters by name.
+     *
+     * @return {@code counters}.
+     */
+    public Map<String, Long> getCounters() {
+        return counters;
+    }
+
+    /**
+     * Gets count of free devices by hub.
+     *
+     * @return {@code freeDevices}.
+     */
+    public Map<String, Integer> getFreeDevices() {
+        return freeDevices;
+    }
+
+    /**
+     * Gets count of leased devices by hub.
+     *
+     * @return {@code leasedDevices}.
+     */
+    public Map<String, Integer> getLeasedDevices() {
+        return leasedDevices;
+    }
+
+    /**
+     * Gets statistics of pooled devices.
+     *
+     * @return {@code devices}.
+     */
+    public List<DeviceStats> getDevices() {
+        return devices;
+    }
+}
@@ -0,0 +1,393 @@
+package ru.vasilev.selenile.metrics;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import ru.vasilev.selenile.DaemonThreadFactory;
+import ru.vasilev.selenile.DeviceLease;
+import ru.vasilev.selenile.DevicePool;
+import ru.vasilev.selenile.config.SelenileProperties;
+import ru.vasilev.selenile.driver.CircuitBreakers;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+public abstract class PoolMetrics {
+    /**
+     * Multi thread driver logger.
+     */
+    protected static final Logger LOGGER = LogManager.getLogger("MobileDriverParallel");
+
+    /**
+     * JMX name of pool metrics.
+     */
+    public static final String OBJECT_NAME = "ru.vasilev.selenile:type=PoolMetrics";
+
+    /**
+     * Count of device requests finished without device.
+     */
+    public static final String LEASE_TIMEOUTS = "leaseTimeouts";
+
+    /**
+     * Count of device requests rejected because their deadlines can't be met.
+     */
+    public static final String LEASE_REJECTIONS = "leaseRejections";
+
+    /**
+     * Count of failed session creation attempts followed by retry.
+     */
+    public static final String SESSION_RETRIES = "sessionRetries";
+
+    /**
+     * Count of warm sessions given to tests.
+     */
+    public static final String SESSION_REUSES = "sessionReuses";
+
+    /**
+     * Count of emulator restarts.
+     */
+    public static final String EMULATOR_RESTARTS = "emulatorRestarts";
+
+    /**
+     * Count of devices quarantined by health checks.
+     */
+    public static final String QUARANTINES = "quarantines";
+
+    /**
+     * Count of devices suspended while their circuit breakers are open.
+     */
+    public static final String SUSPENSIONS = "suspensions";
+
+    /**
+     * Count of session creations that didn't get hub turn in time.
+     */
+    public static final String HUB_SESSION_TIMEOUTS = "hubSessionTimeouts";
+
+    /**
+     * Count of circuit breaker openings.
+     */
+    public static final String BREAKER_OPENS = "breakerOpens";
+
+    /**
+     * Count of expired leases reclaimed from their holders.
+     */
+    public static final String LEASES_RECLAIMED = "leasesReclaimed";
+
+    /**
+     * Time threads wait for a device.
+     */
+    public static final LatencyHistogram LEASE_WAIT = new LatencyHistogram("leaseWait");
+
+    /**
+     * Time devices are leased by tests.
+     */
+    public static final LatencyHistogram LEASE_DURATION = new LatencyHistogram("leaseDuration");
+
+    /**
+     * Time of successful Appium session creation.
+     */
+    public static final LatencyHistogram SESSION_CREATION = new LatencyHistogram("sessionCreation");
+
+    /**
+     * Time session creations wait for their turn on busy hub.
+     */
+    public static final LatencyHistogram HUB_SESSION_WAIT = new LatencyHistogram("hubSessionWait");
+
+    /**
+     * Time of emulator restart.
+     */
+    public static final LatencyHistogram EMULATOR_RESTART = new LatencyHistogram("emulatorRestart");
+
+    /**
+     * Time of device boot during pre-warm.
+     */
+    public static final LatencyHistogram DEVICE_BOOT = new LatencyHistogram("deviceBoot");
+
+    /**
+     * Default period of metrics export in seconds.
+     */
+    private static final long DEFAULT_EXPORT_INTERVAL = 60;
+
+    /**
+     * Event counters by name.
+     */
+    private static final ConcurrentHashMap<String, LongAdder> COUNTERS = new ConcurrentHashMap<>();
+
+    /**
+     * Registered exporters.
+     */
+    private static final CopyOnWriteArrayList<MetricsExporter> EXPORTERS = new CopyOnWriteArrayList<>();
+
+    /**
+     * Exporting scheduler, started with the first exporter.
+     */
+    private static ScheduledExecutorService scheduler;
+
+    static {
+        registerMBean();
+    }
+
+    /**
+     * Private constructor.
+     */
+    private PoolMetrics() {
+    }
+
+    /**
+     * Increments event counter.
+     *
+     * @param counter Counter name.
+     */
+    public static void increment(String counter) {
+        COUNTERS.computeIfAbsent(counter, name -> new LongAdder())
+                .increment();
+    }
+
+    /**
+     * Gets event counter value.
+     *
+     * @param counter Counter name.
+     * @return Count of events.
+     */
+    public static long getCounter(String counter) {
+        LongAdder adder = COUNTERS.get(counter);
+        return adder == null ? 0 : adder.sum();
+    }
+
+    /**
+     * Gets all histograms.
+     *
+     * @return Latency histograms.
+     */
+    public static List<LatencyHistogram> getHistograms() {
+        return Arrays.asList(LEASE_WAIT, LEASE_DURATION, SESSION_CREATION, HUB_SESSION_WAIT, EMULATOR_RESTART,
+                             DEVICE_BOOT);
+    }
+
+    /**
+     * Gets current metrics.
+     *
+     * @return Metrics snapshot.
+     */
+    public static MetricsSnapshot snapshot() {
+        List<HistogramSnapshot> histograms = new ArrayList<>();
+        for (LatencyHistogram histogram : getHistograms()) {
+            histograms.add(histogram.snapshot());
+        }
+        Map<String, Long> counters = new TreeMap<>();
+        COUNTERS.forEach((name, adder) -> counters.put(name, adder.sum()));
+        List<DeviceStats> devices = DevicePool.getDeviceStats();
+        Map<String, Integer> freeDevices = new TreeMap<>();
+        Map<String, Integer> leasedDevices = new TreeMap<>();
+        for (DeviceStats device : devices) {
+            freeDevices.merge(device.getHub(), "free".equals(device.getState()) ? 1 : 0, Integer::sum);
+            leasedDevices.merge(device.getHub(), "leased".equals(device.getState()) ? 1 : 0, Integer::sum);
+        }
+        return new MetricsSnapshot(System.currentTimeMillis(), histograms, counters, freeDevices, leasedDevices,
+                                   devices);
+    }
+
+    /**
+     * Adds exporter. Metrics are exported every {@code metricsexportinterval} seconds (60 by default).
+     *
+     * @param exporter Metrics exporter.
+     */
+    public static synchronized void addExporter(MetricsExporter exporter) {
+        EXPORTERS.add(exporter);
+        if (scheduler == null) {
+            long interval = SelenileProperties.getLong("metricsexportinterval", DEFAULT_EXPORT_INTERVAL);
+            scheduler = Executors.newSingleThreadScheduledExecutor(new DaemonThreadFactory("metrics-exporter"));
+            scheduler.scheduleAtFixedRate(PoolMetrics::export, interval, interval, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * Removes exporter.
+     *
+     * @param exporter Metrics exporter.
+     */
+    public static void removeExporter(MetricsExporter exporter) {
+        EXPORTERS.remove(exporter);
+    }
+
+    /**
+     * Exports current metrics with all registered exporters.
+     */
+    public static void export() {
+        if (EXPORTERS.isEmpty()) {
+            return;
+        }
+        MetricsSnapshot snapshot = snapshot();
+        for (MetricsExporter exporter : EXPORTERS) {
+            try {
+                exporter.export(snapshot);
+            } catch (RuntimeException e) {
+                LOGGER.error("Metrics exporting error {}", exporter, e);
+            }
+        }
+    }
+
+    /**
+     * Registers pool metrics in platform MBean server.
+     */
+    private static void registerMBean() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if (!server.isRegistered(name)) {
+                server.registerMBean(new View(), name);
+            }
+        } catch (JMException e) {
+            LOGGER.warn("Pool metrics MBean registration error {}", e.getMessage());
+        }
+    }
+
+    private static class View implements PoolMetricsMXBean {
+        /**
+         * Gets count of free devices by hub.
+         *
+         * @return Count of free devices by hub.
+         */
+        @Override
+        public Map<String, Integer> getFreeDevices() {
+            return snapshot().getFreeDevices();
+        }
+
+        /**
+         * Gets count of leased devices by hub.
+         *
+         * @return Count of leased devices by hub.
+         */
+        @Override
+        public Map<String, Integer> getLeasedDevices() {
+            return snapshot().getLeasedDevices();
+        }
+
+        /**
+         * Gets share of time every device was leased.
+         *
+         * @return Utilization from 0 to 1 by device name and hub.
+         */
+        @Override
+        public Map<String, Double> getDeviceUtilization() {
+            Map<String, Double> utilization = new TreeMap<>();
+            for (DeviceStats device : DevicePool.getDeviceStats()) {
+                utilization.put(device.getDeviceName() + "@" + device.getHub(), device.getUtilization());
+            }
+            return utilization;
+        }
+
+        /**
+         * Gets count of successful device recoveries.
+         *
+         * @return Recoveries by device name, hub and recovery tier.
+         */
+        @Override
+        public Map<String, Long> getRecoveries() {
+            Map<String, Long> recoveries = new TreeMap<>();
+            for (DeviceStats device : DevicePool.getDeviceStats()) {
+                device.getRecoveries()
+                      .forEach((tier, count) -> recoveries.put(
+                              device.getDeviceName() + "@" + device.getHub() + "/" + tier, count));
+            }
+            return recoveries;
+        }
+
+        /**
+         * Gets open device leases.
+         *
+         * @return Lease description by device name and hub.
+         */
+        @Override
+        public Map<String, String> getOpenLeases() {
+            Map<String, String> leases = new TreeMap<>();
+            for (DeviceLease lease : DevicePool.getOpenLeases()) {
+                leases.put(lease.getDevice()
+                                .getDeviceName() + "@" + lease.getDevice()
+                                                              .getUrlHub(), lease.describe());
+            }
+            return leases;
+        }
+
+        /**
+         * Gets circuit breaker states.
+         *
+         * @return Breaker state by device or hub.
+         */
+        @Override
+        public Map<String, String> getCircuitBreakers() {
+            return CircuitBreakers.getStates();
+        }
+
+        /**
+         * Gets recent lifecycle events of devices.
+         *
+         * @return Events, the oldest first.
+         */
+        @Override
+        public List<String> getLifecycleEvents() {
+            List<String> events = new ArrayList<>();
+            for (LifecycleEvent event : LifecycleEvents.getRecent()) {
+                events.add(event.toString());
+            }
+            return events;
+        }
+
+        /**
+         * Gets event counters.
+         *
+         * @return Counters by name.
+         */
+        @Override
+        public Map<String, Long> getCounters() {
+            Map<String, Long> counters = new TreeMap<>();
+            COUNTERS.forEach((name, adder) -> counters.put(name, adder.sum()));
+            return counters;
+        }
+
+        /**
+         * Gets summaries of latency histograms.
+         *
+         * @return Histogram summary by histogram name.
+         */
+        @Override
+        public Map<String, String> getHistograms() {
+            Map<String, String> histograms = new TreeMap<>();
+            for (LatencyHistogram histogram : PoolMetrics.getHistograms()) {
+                histograms.put(histogram.getName(), histogram.snapshot()
+                                                             .toString());
+            }
+            return histograms;
+        }
+
+        /**
+         * Gets 99th percentile of device waiting time.
+         *
+         * @return Waiting time in milliseconds.
+         */
+        @Override
+        public double getLeaseWaitP99Millis() {
+            return LEASE_WAIT.snapshot()
+                             .getPercentileMillis(99);
+        }
+
+        /**
+         * Gets 99th percentile of session creation time.
+         *
+         * @return Session creation time in milliseconds.
+         */
+        @Override
+        public double getSessionCreationP99Millis() {
+            return SESSION_CREATION.snapshot()
+                                   .getPercentileMillis(99);
+        }
+    }
+}
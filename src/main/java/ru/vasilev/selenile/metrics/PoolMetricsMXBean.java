@@ -0,0 +1,83 @@
+package ru.vasilev.selenile.metrics;
+
+import java.util.List;
+import java.util.Map;
+
+public interface PoolMetricsMXBean {
+    /**
+     * Gets count of free devices by hub.
+     *
+     * @return Count of free devices by hub.
+     */
+    Map<String, Integer> getFreeDevices();
+
+    /**
+     * Gets count of leased devices by hub.
+     *
+     * @return Count of leased devices by hub.
+     */
+    Map<String, Integer> getLeasedDevices();
+
+    /**
+     * Gets share of time every device was leased.
+     *
+     * @return Utilization from 0 to 1 by device name and hub.
+     */
+    Map<String, Double> getDeviceUtilization();
+
+    /**
+     * Gets count of successful device recoveries.
+     *
+     * @return Recoveries by device name, hub and recovery tier.
+     */
+    Map<String, Long> getRecoveries();
+
+    /**
+     * Gets open device leases.
+     *
+     * @return Lease description by device name and hub.
+     */
+    Map<String, String> getOpenLeases();
+
+    /**
+     * Gets circuit breaker states.
+     *
+     * @return Breaker state by device or hub.
+     */
+    Map<String, String> getCircuitBreakers();
+
+    /**
+     * Gets recent lifecycle events of devices.
+     *
+     * @return Events, the oldest first.
+     */
+    List<String> getLifecycleEvents();
+
+    /**
+     * Gets event counters.
+     *
+     * @return Counters by name.
+     */
+    Map<String, Long> getCounters();
+
+    /**
+     * Gets summaries of latency histograms.
+     *
+     * @return Histogram summary by histogram name.
+     */
+    Map<String, String> getHistograms();
+
+    /**
+     * Gets 99th percentile of device waiting time.
+     *
+     * @return Waiting time in milliseconds.
+     */
+    double getLeaseWaitP99Millis();
+
+    /**
+     * Gets 99th percentile of session creation time.
+     *
+     * @return Session creation time in milliseconds.
+     */
+    double getSessionCreationP99Millis();
+}
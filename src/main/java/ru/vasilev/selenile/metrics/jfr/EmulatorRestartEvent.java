@@ -0,0 +1,11 @@
+package ru.vasilev.selenile.metrics.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("ru.vasilev.selenile.EmulatorRestart")
+@Label("Emulator Restart")
+@Description("Emulator is restarted")
+final class EmulatorRestartEvent extends SelenileEvent {
+}
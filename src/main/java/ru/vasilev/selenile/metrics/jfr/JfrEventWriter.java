@@ -0,0 +1,56 @@
+package ru.vasilev.selenile.metrics.jfr;
+
+import ru.vasilev.selenile.metrics.LifecycleEvent;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+public final class JfrEventWriter implements Consumer<LifecycleEvent> {
+    /**
+     * Creates writer. Class is compiled for JDK 11 and is created by reflection only if Flight Recorder
+     * is available, see {@link ru.vasilev.selenile.metrics.LifecycleEvents}.
+     */
+    public JfrEventWriter() {
+    }
+
+    /**
+     * Commits Flight Recorder event of lifecycle event. Event is skipped while its type isn't recorded.
+     *
+     * @param event Lifecycle event.
+     */
+    @Override
+    public void accept(LifecycleEvent event) {
+        SelenileEvent jfrEvent = create(event.getType());
+        if (!jfrEvent.isEnabled()) {
+            return;
+        }
+        jfrEvent.device = event.getDeviceName();
+        jfrEvent.hub = event.getHub();
+        jfrEvent.operationDuration = event.getDuration(TimeUnit.NANOSECONDS);
+        jfrEvent.detail = event.getDetail();
+        jfrEvent.commit();
+    }
+
+    /**
+     * Creates Flight Recorder event of type.
+     *
+     * @param type Lifecycle event type.
+     * @return Flight Recorder event.
+     */
+    private static SelenileEvent create(LifecycleEvent.Type type) {
+        switch (type) {
+            case LEASE_ACQUIRE:
+                return new LeaseAcquireEvent();
+            case LEASE_RELEASE:
+                return new LeaseReleaseEvent();
+            case SESSION_CREATE:
+                return new SessionCreateEvent();
+            case EMULATOR_RESTART:
+                return new EmulatorRestartEvent();
+            case QUARANTINE:
+                return new QuarantineEvent();
+            default:
+                throw new IllegalArgumentException("Unknown lifecycle event type " + type);
+        }
+    }
+}
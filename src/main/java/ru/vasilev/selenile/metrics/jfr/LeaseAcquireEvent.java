@@ -0,0 +1,11 @@
+package ru.vasilev.selenile.metrics.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("ru.vasilev.selenile.LeaseAcquire")
+@Label("Lease Acquire")
+@Description("Device is leased")
+final class LeaseAcquireEvent extends SelenileEvent {
+}
@@ -0,0 +1,11 @@
+package ru.vasilev.selenile.metrics.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("ru.vasilev.selenile.LeaseRelease")
+@Label("Lease Release")
+@Description("Device is returned into pool")
+final class LeaseReleaseEvent extends SelenileEvent {
+}
@@ -0,0 +1,11 @@
+package ru.vasilev.selenile.metrics.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("ru.vasilev.selenile.Quarantine")
+@Label("Quarantine")
+@Description("Device is taken out of leasing")
+final class QuarantineEvent extends SelenileEvent {
+}
@@ -0,0 +1,36 @@
+package ru.vasilev.selenile.metrics.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+@Category({"Selenile", "Device Pool"})
+@StackTrace(false)
+abstract class SelenileEvent extends Event {
+    /**
+     * Device name.
+     */
+    @Label("Device")
+    String device;
+
+    /**
+     * Selenium Grid Hub URL.
+     */
+    @Label("Hub")
+    String hub;
+
+    /**
+     * Duration of pool operation, 0 if it is instant.
+     */
+    @Label("Operation Duration")
+    @Timespan(Timespan.NANOSECONDS)
+    long operationDuration;
+
+    /**
+     * Event details: requester, outcome or reason.
+     */
+    @Label("Detail")
+    String detail;
+}
@@ -0,0 +1,11 @@
+package ru.vasilev.selenile.metrics.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("ru.vasilev.selenile.SessionCreate")
+@Label("Session Create")
+@Description("Appium session creation is finished")
+final class SessionCreateEvent extends SelenileEvent {
+}
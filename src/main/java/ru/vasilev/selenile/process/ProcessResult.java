@@ -0,0 +1,147 @@
+package ru.vasilev.selenile.process;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+public class ProcessResult {
+    /**
+     * Exit code of process that couldn't be started.
+     */
+    public static final int NOT_STARTED = -1;
+
+    /**
+     * Executed command.
+     */
+    private final List<String> command;
+
+    /**
+     * Process exit code.
+     */
+    private final int exitCode;
+
+    /**
+     * Was process destroyed on timeout.
+     */
+    private final boolean timedOut;
+
+    /**
+     * Last lines of standard output.
+     */
+    private final String output;
+
+    /**
+     * Last lines of error output.
+     */
+    private final String errors;
+
+    /**
+     * Time from process start to its exit in nanoseconds.
+     */
+    private final long durationNanos;
+
+    /**
+     * Creates process result.
+     *
+     * @param command       Executed command.
+     * @param exitCode      Process exit code.
+     * @param timedOut      Was process destroyed on timeout.
+     * @param output        Last lines of standard output.
+     * @param errors        Last lines of error output.
+     * @param durationNanos Time from process start to its exit in nanoseconds.
+     */
+    public ProcessResult(List<String> command, int exitCode, boolean timedOut, String output, String errors,
+                         long durationNanos) {
+        this.command = Collections.unmodifiableList(command);
+        this.exitCode = exitCode;
+        this.timedOut = timedOut;
+        this.output = output;
+        this.errors = errors;
+        this.durationNanos = durationNanos;
+    }
+
+    /**
+     * Creates result of process that couldn't be started.
+     *
+     * @param command Command.
+     * @param cause   Start error.
+     * @return Failed result.
+     */
+    static ProcessResult notStarted(List<String> command, Exception cause) {
+        return new ProcessResult(command, NOT_STARTED, false, "", String.valueOf(cause.getMessage()), 0);
+    }
+
+    /**
+     * Gets executed command.
+     *
+     * @return {@code command}.
+     */
+    public List<String> getCommand() {
+        return command;
+    }
+
+    /**
+     * Gets process exit code.
+     *
+     * @return {@code exitCode}, {@link #NOT_STARTED} if process couldn't be started.
+     */
+    public int getExitCode() {
+        return exitCode;
+    }
+
+    /**
+     * Checks whether process was destroyed on timeout.
+     *
+     * @return {@code timedOut}.
+     */
+    public boolean isTimedOut() {
+        return timedOut;
+    }
+
+    /**
+     * Checks whether process finished in time with zero exit code.
+     *
+     * @return Is process successful.
+     */
+    public boolean isSuccess() {
+        return exitCode == 0 && !timedOut;
+    }
+
+    /**
+     * Gets last lines of standard output.
+     *
+     * @return {@code output}.
+     */
+    public String getOutput() {
+        return output;
+    }
+
+    /**
+     * Gets last lines of error output.
+     *
+     * @return {@code errors}.
+     */
+    public String getErrors() {
+        return errors;
+    }
+
+    /**
+     * Gets time from process start to its exit.
+     *
+     * @return Duration in milliseconds.
+     */
+    public long getDurationMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(durationNanos);
+    }
+
+    /**
+     * Gets string of the process result.
+     *
+     * @return String of the process result.
+     */
+    @Override
+    public String toString() {
+        return String.format("ProcessResult{command=%s, exitCode=%d, timedOut=%s, duration=%dms}",
+                             command, exitCode, timedOut, getDurationMillis());
+    }
+}
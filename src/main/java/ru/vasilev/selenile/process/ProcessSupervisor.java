@@ -0,0 +1,286 @@
+package ru.vasilev.selenile.process;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import ru.vasilev.selenile.DaemonThreadFactory;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+
+public abstract class ProcessSupervisor {
+    /**
+     * Multi thread driver logger.
+     */
+    protected static final Logger LOGGER = LogManager.getLogger("MobileDriverParallel");
+
+    /**
+     * Count of last output lines kept in result.
+     */
+    private static final int OUTPUT_LINES = 200;
+
+    /**
+     * Time in seconds given to process to exit after termination request, and to output to be drained after exit.
+     */
+    private static final long GRACE_PERIOD = 5;
+
+    /**
+     * Threads draining process output and waiting for process exit.
+     */
+    private static final ExecutorService SUPERVISORS = Executors.newCachedThreadPool(
+            new DaemonThreadFactory("process-supervisor"));
+
+    /**
+     * {@code Process.toHandle()} of Java 9 and later or {@code null}.
+     */
+    private static final Method TO_HANDLE = findMethod("java.lang.Process", "toHandle");
+
+    /**
+     * {@code ProcessHandle.destroy()} of Java 9 and later or {@code null}.
+     */
+    private static final Method DESTROY_HANDLE = findMethod("java.lang.ProcessHandle", "destroy");
+
+    /**
+     * Private constructor.
+     */
+    private ProcessSupervisor() {
+    }
+
+    /**
+     * Runs command. Output is drained in background, process is killed if it runs longer than {@code timeout}.
+     *
+     * @param command Command with arguments.
+     * @param timeout Maximum time of running, not positive means no limit.
+     * @param unit    Time unit of {@code timeout}.
+     * @return Future completed with process result.
+     */
+    public static CompletableFuture<ProcessResult> run(List<String> command, long timeout, TimeUnit unit) {
+        return start(command, timeout, unit, line -> {
+        }).getResult();
+    }
+
+    /**
+     * Runs command and waits for its result.
+     *
+     * @param command Command with arguments.
+     * @param timeout Maximum time of running, not positive means no limit.
+     * @param unit    Time unit of {@code timeout}.
+     * @return Process result.
+     */
+    public static ProcessResult execute(List<String> command, long timeout, TimeUnit unit) {
+        return run(command, timeout, unit).join();
+    }
+
+    /**
+     * Starts command. Lines of standard and error output are passed to {@code listener} as soon as they are read,
+     * listener may be called from two threads at once. Process is killed if it runs longer than {@code timeout}.
+     * Command that can't be started gives result with {@link ProcessResult#NOT_STARTED} exit code.
+     *
+     * @param command  Command with arguments.
+     * @param timeout  Maximum time of running, not positive means no limit.
+     * @param unit     Time unit of {@code timeout}.
+     * @param listener Handler of output lines.
+     * @return Handle of started process.
+     */
+    public static SupervisedProcess start(List<String> command, long timeout, TimeUnit unit,
+                                          Consumer<String> listener) {
+        return start(command, timeout, unit, listener, listener);
+    }
+
+    /**
+     * Starts command. Lines of standard and error output are passed to separate listeners as soon as they are read.
+     * Process is killed if it runs longer than {@code timeout}.
+     *
+     * @param command        Command with arguments.
+     * @param timeout        Maximum time of running, not positive means no limit.
+     * @param unit           Time unit of {@code timeout}.
+     * @param outputListener Handler of standard output lines.
+     * @param errorListener  Handler of error output lines.
+     * @return Handle of started process.
+     */
+    public static SupervisedProcess start(List<String> command, long timeout, TimeUnit unit,
+                                          Consumer<String> outputListener, Consumer<String> errorListener) {
+        final List<String> commandCopy = new ArrayList<>(command);
+        final long start = System.nanoTime();
+        final Process process;
+        try {
+            process = new ProcessBuilder(commandCopy).start();
+            process.getOutputStream()
+                   .close();
+        } catch (IOException e) {
+            LOGGER.warn("Can't start {}: {}", commandCopy, e.getMessage());
+            return new SupervisedProcess(null, CompletableFuture.completedFuture(
+                    ProcessResult.notStarted(commandCopy, e)));
+        }
+        final OutputTail output = new OutputTail();
+        final OutputTail errors = new OutputTail();
+        final CompletableFuture<Void> draining = CompletableFuture.allOf(
+                CompletableFuture.runAsync(() -> drain(process.getInputStream(), output, outputListener), SUPERVISORS),
+                CompletableFuture.runAsync(() -> drain(process.getErrorStream(), errors, errorListener), SUPERVISORS));
+        final CompletableFuture<ProcessResult> result = CompletableFuture.supplyAsync(() -> {
+            boolean timedOut = await(process, timeout, unit);
+            awaitDraining(draining);
+            return new ProcessResult(commandCopy, process.exitValue(), timedOut, output.toString(),
+                                     errors.toString(), System.nanoTime() - start);
+        }, SUPERVISORS);
+        result.whenComplete((processResult, e) -> {
+            if (result.isCancelled()) {
+                process.destroyForcibly();
+            }
+        });
+        return new SupervisedProcess(process, result);
+    }
+
+    /**
+     * Waits for process exit. Process running longer than {@code timeout} is asked to terminate
+     * and killed if it doesn't exit during grace period.
+     *
+     * @param process Running process.
+     * @param timeout Maximum time of running, not positive means no limit.
+     * @param unit    Time unit of {@code timeout}.
+     * @return Was process destroyed on timeout.
+     */
+    private static boolean await(Process process, long timeout, TimeUnit unit) {
+        try {
+            if (timeout <= 0) {
+                process.waitFor();
+                return false;
+            }
+            if (process.waitFor(timeout, unit)) {
+                return false;
+            }
+            LOGGER.warn("Process is running longer than {} {}, it is destroyed", timeout, unit.toString()
+                                                                                            .toLowerCase());
+            terminate(process);
+            if (!process.waitFor(GRACE_PERIOD, TimeUnit.SECONDS)) {
+                process.destroyForcibly()
+                       .waitFor();
+            }
+            return true;
+        } catch (InterruptedException e) {
+            process.destroyForcibly();
+            Thread.currentThread()
+                  .interrupt();
+            throw new CompletionException(e);
+        }
+    }
+
+    /**
+     * Asks process to terminate. {@link Process#destroy()} closes process output at once, so lines process writes
+     * while terminating would be lost; process handle sends the same signal and keeps output open.
+     * Process is destroyed directly where handles aren't available.
+     *
+     * @param process Running process.
+     */
+    private static void terminate(Process process) {
+        if (TO_HANDLE != null && DESTROY_HANDLE != null) {
+            try {
+                DESTROY_HANDLE.invoke(TO_HANDLE.invoke(process));
+                return;
+            } catch (ReflectiveOperationException | RuntimeException e) {
+                LOGGER.debug("Process can't be terminated by its handle: {}", e.toString());
+            }
+        }
+        process.destroy();
+    }
+
+    /**
+     * Finds public method without parameters.
+     *
+     * @param className  Class name.
+     * @param methodName Method name.
+     * @return Method or {@code null} if JVM hasn't it.
+     */
+    private static Method findMethod(String className, String methodName) {
+        try {
+            return Class.forName(className)
+                        .getMethod(methodName);
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return null;
+        }
+    }
+
+    /**
+     * Waits for output draining. Child processes may keep output open after process exit,
+     * so waiting is limited by grace period.
+     *
+     * @param draining Output draining future.
+     */
+    private static void awaitDraining(CompletableFuture<Void> draining) {
+        try {
+            draining.get(GRACE_PERIOD, TimeUnit.SECONDS);
+        } catch (TimeoutException | ExecutionException e) {
+            LOGGER.debug("Process output isn't drained: {}", e.toString());
+        } catch (InterruptedException e) {
+            Thread.currentThread()
+                  .interrupt();
+        }
+    }
+
+    /**
+     * Reads stream line by line till its end. Output is decoded as UTF-8 whatever platform charset is,
+     * tools like simctl and adb write UTF-8.
+     *
+     * @param stream   Process output.
+     * @param tail     Keeper of last lines.
+     * @param listener Handler of lines.
+     */
+    private static void drain(InputStream stream, OutputTail tail, Consumer<String> listener) {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(stream, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                tail.add(line);
+                try {
+                    listener.accept(line);
+                } catch (RuntimeException e) {
+                    LOGGER.error("Process output handling error", e);
+                }
+            }
+        } catch (IOException e) {
+            LOGGER.debug("Process output reading is stopped: {}", e.getMessage());
+        }
+    }
+
+    private static final class OutputTail {
+        /**
+         * Last lines.
+         */
+        private final ArrayDeque<String> lines = new ArrayDeque<>();
+
+        /**
+         * Adds line, the oldest line is dropped if there are too many of them.
+         *
+         * @param line Output line.
+         */
+        synchronized void add(String line) {
+            if (lines.size() == OUTPUT_LINES) {
+                lines.pollFirst();
+            }
+            lines.addLast(line);
+        }
+
+        /**
+         * Gets last lines.
+         *
+         * @return Lines separated by line feed.
+         */
+        @Override
+        public synchronized String toString() {
+            return String.join("\n", lines);
+        }
+    }
+}
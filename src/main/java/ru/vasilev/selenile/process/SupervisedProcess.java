@@ -0,0 +1,54 @@
+package ru.vasilev.selenile.process;
+
+import java.util.concurrent.CompletableFuture;
+
+public class SupervisedProcess {
+    /**
+     * Running process or {@code null} if it couldn't be started.
+     */
+    private final Process process;
+
+    /**
+     * Future completed when process exits and its output is drained.
+     */
+    private final CompletableFuture<ProcessResult> result;
+
+    /**
+     * Creates handle of supervised process.
+     *
+     * @param process Running process or {@code null} if it couldn't be started.
+     * @param result  Future completed when process exits and its output is drained.
+     */
+    SupervisedProcess(Process process, CompletableFuture<ProcessResult> result) {
+        this.process = process;
+        this.result = result;
+    }
+
+    /**
+     * Gets future completed when process exits and its output is drained.
+     * Cancelling the future kills the process.
+     *
+     * @return Process result future.
+     */
+    public CompletableFuture<ProcessResult> getResult() {
+        return result;
+    }
+
+    /**
+     * Checks whether process is running.
+     *
+     * @return Is process alive.
+     */
+    public boolean isAlive() {
+        return process != null && process.isAlive();
+    }
+
+    /**
+     * Kills process.
+     */
+    public void destroy() {
+        if (process != null) {
+            process.destroyForcibly();
+        }
+    }
+}
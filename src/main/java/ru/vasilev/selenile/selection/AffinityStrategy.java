@@ -0,0 +1,63 @@
+package ru.vasilev.selenile.selection;
+
+import ru.vasilev.selenile.device.Device;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+public class AffinityStrategy implements DeviceSelectionStrategy {
+    /**
+     * Strategy used when requester's device isn't free.
+     */
+    private final DeviceSelectionStrategy fallback = new LeastRecentlyUsedStrategy();
+
+    /**
+     * The last device of every requester.
+     */
+    private final ConcurrentHashMap<String, Device> lastDevices = new ConcurrentHashMap<>();
+
+    /**
+     * Chooses device requester used the last time, so application installed by its previous test can be reused.
+     * Device idle for the longest time is chosen if that device isn't free.
+     *
+     * @param candidates Free devices matching request in free queue order, not empty.
+     * @param requester  Class requesting device or {@code null} if it is unknown.
+     * @return Device of requester or device idle for the longest time.
+     */
+    @Override
+    public DeviceCandidate select(List<DeviceCandidate> candidates, String requester) {
+        Device lastDevice = requester == null ? null : lastDevices.get(requester);
+        if (lastDevice != null) {
+            for (DeviceCandidate candidate : candidates) {
+                if (candidate.getDevice()
+                             .equals(lastDevice)) {
+                    return candidate;
+                }
+            }
+        }
+        return fallback.select(candidates, requester);
+    }
+
+    /**
+     * Remembers device of requester.
+     *
+     * @param device    Leased device.
+     * @param requester Class requested device or {@code null} if it is unknown.
+     */
+    @Override
+    public void onLeased(Device device, String requester) {
+        if (requester != null) {
+            lastDevices.put(requester, device);
+        }
+    }
+
+    /**
+     * Checks whether strategy uses requester.
+     *
+     * @return Always {@code true}.
+     */
+    @Override
+    public boolean needsRequester() {
+        return true;
+    }
+}
@@ -0,0 +1,90 @@
+package ru.vasilev.selenile.selection;
+
+import ru.vasilev.selenile.device.Device;
+
+import java.util.concurrent.TimeUnit;
+
+public final class DeviceCandidate {
+    /**
+     * Free device.
+     */
+    private final Device device;
+
+    /**
+     * Time since device release or adding into pool in nanoseconds.
+     */
+    private final long idleNanos;
+
+    /**
+     * Count of device leases.
+     */
+    private final long leaseCount;
+
+    /**
+     * Count of leased devices of device hub.
+     */
+    private final int hubLeases;
+
+    /**
+     * Creates candidate.
+     *
+     * @param device     Free device.
+     * @param idleNanos  Time since device release or adding into pool in nanoseconds.
+     * @param leaseCount Count of device leases.
+     * @param hubLeases  Count of leased devices of device hub.
+     */
+    public DeviceCandidate(Device device, long idleNanos, long leaseCount, int hubLeases) {
+        this.device = device;
+        this.idleNanos = idleNanos;
+        this.leaseCount = leaseCount;
+        this.hubLeases = hubLeases;
+    }
+
+    /**
+     * Gets free device.
+     *
+     * @return {@code device}.
+     */
+    public Device getDevice() {
+        return device;
+    }
+
+    /**
+     * Gets time since device release or adding into pool.
+     *
+     * @return {@code idleNanos}.
+     */
+    public long getIdleNanos() {
+        return idleNanos;
+    }
+
+    /**
+     * Gets count of device leases.
+     *
+     * @return {@code leaseCount}.
+     */
+    public long getLeaseCount() {
+        return leaseCount;
+    }
+
+    /**
+     * Gets count of leased devices of device hub.
+     *
+     * @return {@code hubLeases}.
+     */
+    public int getHubLeases() {
+        return hubLeases;
+    }
+
+    /**
+     * Gets string of the candidate.
+     *
+     * @return String of the candidate.
+     */
+    @Override
+    public String toString() {
+        return String.format("DeviceCandidate{device='%s', idle=%dms, leases=%d, hubLeases=%d}",
+                             device.getDeviceName(), TimeUnit.NANOSECONDS.toMillis(idleNanos), leaseCount,
+                             hubLeases);
+    }
+}
@@ -0,0 +1,34 @@
+package ru.vasilev.selenile.selection;
+
+import ru.vasilev.selenile.device.Device;
+
+import java.util.List;
+
+public interface DeviceSelectionStrategy {
+    /**
+     * Chooses device for request among free devices.
+     *
+     * @param candidates Free devices matching request in free queue order, not empty.
+     * @param requester  Class requesting device or {@code null} if it is unknown.
+     * @return One of {@code candidates}.
+     */
+    DeviceCandidate select(List<DeviceCandidate> candidates, String requester);
+
+    /**
+     * Handles device leasing.
+     *
+     * @param device    Leased device.
+     * @param requester Class requested device or {@code null} if it is unknown.
+     */
+    default void onLeased(Device device, String requester) {
+    }
+
+    /**
+     * Checks whether strategy uses requester. Requester is found by stack walking, so it is skipped if not needed.
+     *
+     * @return Does strategy need requester.
+     */
+    default boolean needsRequester() {
+        return false;
+    }
+}
@@ -0,0 +1,25 @@
+package ru.vasilev.selenile.selection;
+
+import java.util.List;
+
+public class LeastLoadedHubStrategy implements DeviceSelectionStrategy {
+    /**
+     * Chooses device of hub with the fewest leased devices. Device idle for the longest time wins a tie.
+     *
+     * @param candidates Free devices matching request in free queue order, not empty.
+     * @param requester  Class requesting device or {@code null} if it is unknown.
+     * @return Device of the least loaded hub.
+     */
+    @Override
+    public DeviceCandidate select(List<DeviceCandidate> candidates, String requester) {
+        DeviceCandidate chosen = candidates.get(0);
+        for (DeviceCandidate candidate : candidates) {
+            if (candidate.getHubLeases() < chosen.getHubLeases()
+                    || candidate.getHubLeases() == chosen.getHubLeases()
+                    && candidate.getIdleNanos() > chosen.getIdleNanos()) {
+                chosen = candidate;
+            }
+        }
+        return chosen;
+    }
+}
@@ -0,0 +1,23 @@
+package ru.vasilev.selenile.selection;
+
+import java.util.List;
+
+public class LeastRecentlyUsedStrategy implements DeviceSelectionStrategy {
+    /**
+     * Chooses device idle for the longest time, so wear is spread over all devices.
+     *
+     * @param candidates Free devices matching request in free queue order, not empty.
+     * @param requester  Class requesting device or {@code null} if it is unknown.
+     * @return Device idle for the longest time.
+     */
+    @Override
+    public DeviceCandidate select(List<DeviceCandidate> candidates, String requester) {
+        DeviceCandidate chosen = candidates.get(0);
+        for (DeviceCandidate candidate : candidates) {
+            if (candidate.getIdleNanos() > chosen.getIdleNanos()) {
+                chosen = candidate;
+            }
+        }
+        return chosen;
+    }
+}
@@ -0,0 +1,114 @@
+package ru.vasilev.selenile;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class DeviceGroupTest {
+    /**
+     * Aging period long enough not to pass during a test.
+     */
+    private static final long LONG_AGING = TimeUnit.MINUTES.toNanos(10);
+
+    /**
+     * Group without devices, so waiters stay queued.
+     */
+    private final DeviceGroup group = new DeviceGroup(Collections.emptyMap());
+
+    /**
+     * Waiters registered by test.
+     */
+    private final List<CompletableFuture<List<DeviceLease>>> added = new ArrayList<>();
+
+    /**
+     * Removes waiters registered by test.
+     */
+    @AfterEach
+    void removeWaiters() {
+        added.forEach(group::removeWaiter);
+    }
+
+    @Test
+    void higherClassIsServedFirst() {
+        addWaiter("low", LeasePriority.LOW, null, LONG_AGING);
+        addWaiter("normal", LeasePriority.NORMAL, null, LONG_AGING);
+        addWaiter("high", LeasePriority.HIGH, null, LONG_AGING);
+        assertEquals(Arrays.asList("high", "normal", "low"), waiterOrder());
+    }
+
+    @Test
+    void agedLowerClassOutranksNewHigherClass() throws InterruptedException {
+        final long aging = TimeUnit.MILLISECONDS.toNanos(50);
+        addWaiter("low", LeasePriority.LOW, null, aging);
+        TimeUnit.NANOSECONDS.sleep(3 * aging);
+        addWaiter("high", LeasePriority.HIGH, null, aging);
+        addWaiter("normal", LeasePriority.NORMAL, null, aging);
+        assertEquals(Arrays.asList("low", "high", "normal"), waiterOrder());
+    }
+
+    @Test
+    void deadlineOrdersWithinClass() {
+        addWaiter("none", LeasePriority.NORMAL, null, LONG_AGING);
+        addWaiter("later", LeasePriority.NORMAL, 5L, LONG_AGING);
+        addWaiter("sooner", LeasePriority.NORMAL, 1L, LONG_AGING);
+        assertEquals(Arrays.asList("sooner", "later", "none"), waiterOrder());
+    }
+
+    @Test
+    void deadlineBeyondAgingPeriodIsIgnored() {
+        final long aging = TimeUnit.SECONDS.toNanos(10);
+        addWaiter("first", LeasePriority.NORMAL, null, aging);
+        addWaiter("second", LeasePriority.NORMAL, 60L, aging);
+        assertEquals(Arrays.asList("first", "second"), waiterOrder());
+    }
+
+    @Test
+    void deadlineDoesNotOutrankHigherClass() {
+        addWaiter("normal", LeasePriority.NORMAL, null, LONG_AGING);
+        addWaiter("high", LeasePriority.HIGH, null, LONG_AGING);
+        addWaiter("low-due", LeasePriority.LOW, 0L, LONG_AGING);
+        addWaiter("normal-due", LeasePriority.NORMAL, 0L, LONG_AGING);
+        addWaiter("high-due", LeasePriority.HIGH, 1L, LONG_AGING);
+        assertEquals(Arrays.asList("high-due", "high", "normal-due", "normal", "low-due"), waiterOrder());
+    }
+
+    /**
+     * Registers waiter for one device.
+     *
+     * @param requester  Requester naming waiter.
+     * @param priority   Priority class.
+     * @param deadline   Time in seconds device is needed within or {@code null} if request has no deadline.
+     * @param agingNanos Aging period in nanoseconds.
+     */
+    private void addWaiter(String requester, LeasePriority priority, Long deadline, long agingNanos) {
+        LeaseRequest request = new LeaseRequest(null).withRequester(requester)
+                                                     .withPriority(priority);
+        if (deadline != null) {
+            request = request.withDeadline(deadline, TimeUnit.SECONDS);
+        }
+        added.add(group.addWaiter(request, 1, agingNanos));
+    }
+
+    /**
+     * Gets requesters of waiters in serving order.
+     *
+     * @return Requesters.
+     */
+    private List<String> waiterOrder() {
+        List<String> order = new ArrayList<>();
+        for (Iterator<DeviceGroup.Waiter> waiters = group.iterateWaiters(); waiters.hasNext(); ) {
+            order.add(waiters.next()
+                             .getRequester());
+        }
+        return order;
+    }
+}
@@ -0,0 +1,168 @@
+package ru.vasilev.selenile;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+class DeviceHealthCheckerTest {
+    /**
+     * Probe timeout in milliseconds.
+     */
+    private static final int TIMEOUT = 500;
+
+    /**
+     * Time in milliseconds background restart is waited for.
+     */
+    private static final long RESTART_TIMEOUT = 5000;
+
+    /**
+     * Stub hub.
+     */
+    private HttpServer server;
+
+    /**
+     * Code answered by stub hub.
+     */
+    private volatile int code = 200;
+
+    /**
+     * Pooled device of stub hub.
+     */
+    private TestDevice device;
+
+    /**
+     * Checker of pooled devices.
+     */
+    private DeviceHealthChecker checker;
+
+    /**
+     * Starts stub hub answering {@code /wd/hub/status}, adds its device into pool and creates checker.
+     *
+     * @throws IOException If server can't be started.
+     */
+    @BeforeEach
+    void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/wd/hub/status", exchange -> {
+            try {
+                byte[] response = "{\"value\": {\"ready\": true}}".getBytes(StandardCharsets.UTF_8);
+                exchange.sendResponseHeaders(code, response.length);
+                try (OutputStream output = exchange.getResponseBody()) {
+                    output.write(response);
+                }
+            } finally {
+                exchange.close();
+            }
+        });
+        server.start();
+        device = new TestDevice("health-device", server.getAddress()
+                                                       .getHostString(), server.getAddress()
+                                                                               .getPort());
+        assertTrue(DevicePool.addDevice(device));
+        checker = new DeviceHealthChecker(new HubStatusProbe(TIMEOUT), 1);
+    }
+
+    /**
+     * Stops checker and stub hub, removes device from pool.
+     */
+    @AfterEach
+    void stopServer() {
+        checker.close();
+        DevicePool.removeDevice(device);
+        server.stop(0);
+    }
+
+    @Test
+    void healthyFreeDeviceStaysInPool() {
+        checker.check();
+        assertTrue(slot().isFree());
+        assertEquals(0, device.getRestarts());
+    }
+
+    @Test
+    void unhealthyFreeDeviceIsQuarantinedAndRestarted() throws InterruptedException {
+        device.setResponsive(false);
+        checker.check();
+        assertTrue(slot().isQuarantined());
+        awaitRestart();
+    }
+
+    @Test
+    void deviceOfUnhealthyHubIsQuarantinedWithoutRestart() {
+        code = 503;
+        checker.check();
+        assertTrue(slot().isQuarantined());
+        assertEquals(0, device.getRestarts());
+    }
+
+    @Test
+    void healthyQuarantinedDeviceIsRestored() throws InterruptedException {
+        device.setResponsive(false);
+        checker.check();
+        assertTrue(slot().isQuarantined());
+        awaitRestart();
+        device.setResponsive(true);
+        final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(RESTART_TIMEOUT);
+        while (slot().isQuarantined() && System.nanoTime() < deadline) {
+            checker.check();
+            Thread.sleep(10);
+        }
+        assertTrue(slot().isFree());
+    }
+
+    @Test
+    void suspendedDeviceIsNotRestored() throws InterruptedException {
+        DeviceLease lease = DevicePool.lease(new LeaseRequest(null), 1, TimeUnit.SECONDS);
+        assertNotNull(lease);
+        DevicePool.suspend(lease, 1, TimeUnit.MINUTES);
+        assertTrue(slot().isSuspended());
+        checker.check();
+        assertTrue(slot().isQuarantined());
+        assertFalse(slot().isFree());
+        assertEquals(0, device.getRestarts());
+    }
+
+    /**
+     * Waits for background emulator restart of device.
+     *
+     * @throws InterruptedException If waiting is interrupted.
+     */
+    private void awaitRestart() throws InterruptedException {
+        final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(RESTART_TIMEOUT);
+        while (device.getRestarts() == 0) {
+            if (System.nanoTime() > deadline) {
+                fail("Emulator of " + device.getDeviceName() + " isn't restarted");
+            }
+            Thread.sleep(10);
+        }
+        assertEquals(1, device.getRestarts());
+    }
+
+    /**
+     * Gets pool slot of device.
+     *
+     * @return Device slot.
+     */
+    private DeviceSlot slot() {
+        for (DeviceSlot slot : DevicePool.getSlots()) {
+            if (slot.getDevice() == device) {
+                return slot;
+            }
+        }
+        throw new IllegalStateException("Pool has no device " + device.getDeviceName());
+    }
+}
@@ -0,0 +1,162 @@
+package ru.vasilev.selenile;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HubStatusProbeTest {
+    /**
+     * Probe timeout in milliseconds.
+     */
+    private static final int TIMEOUT = 500;
+
+    /**
+     * Stub hub.
+     */
+    private HttpServer server;
+
+    /**
+     * Released when test is over, so that hanging handler is finished.
+     */
+    private final CountDownLatch finished = new CountDownLatch(1);
+
+    /**
+     * Code answered by stub hub.
+     */
+    private volatile int code = 200;
+
+    /**
+     * Body answered by stub hub.
+     */
+    private volatile String body = "";
+
+    /**
+     * Does stub hub hang instead of answering.
+     */
+    private volatile boolean hanging;
+
+    /**
+     * Starts stub hub answering {@code /wd/hub/status}.
+     *
+     * @throws IOException If server can't be started.
+     */
+    @BeforeEach
+    void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/wd/hub/status", exchange -> {
+            try {
+                if (hanging) {
+                    finished.await(10, TimeUnit.SECONDS);
+                }
+                byte[] response = body.getBytes(StandardCharsets.UTF_8);
+                exchange.sendResponseHeaders(code, response.length == 0 ? -1 : response.length);
+                try (OutputStream output = exchange.getResponseBody()) {
+                    output.write(response);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread()
+                      .interrupt();
+            } finally {
+                exchange.close();
+            }
+        });
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+    }
+
+    /**
+     * Stops stub hub.
+     */
+    @AfterEach
+    void stopServer() {
+        finished.countDown();
+        server.stop(0);
+    }
+
+    @Test
+    void readyHubIsHealthy() throws IOException {
+        body = "{\"value\": {\"ready\": true, \"message\": \"Hub has capacity\"}}";
+        assertTrue(new HubStatusProbe(TIMEOUT).isHealthy(hub()));
+    }
+
+    @Test
+    void hubWithoutReadinessFlagIsHealthy() throws IOException {
+        body = "{\"status\": 0, \"value\": {\"build\": {\"version\": \"3.141.59\"}}}";
+        assertTrue(new HubStatusProbe(TIMEOUT).isHealthy(hub()));
+    }
+
+    @Test
+    void notReadyHubIsUnhealthy() throws IOException {
+        body = "{\"value\": {\"ready\": false, \"message\": \"No nodes\"}}";
+        assertFalse(new HubStatusProbe(TIMEOUT).isHealthy(hub()));
+    }
+
+    @Test
+    void errorResponseIsUnhealthy() throws IOException {
+        code = 503;
+        body = "{\"value\": {\"ready\": true}}";
+        assertFalse(new HubStatusProbe(TIMEOUT).isHealthy(hub()));
+    }
+
+    @Test
+    void malformedBodyIsUnhealthy() throws IOException {
+        body = "{\"value\": {\"ready\": tr";
+        assertFalse(new HubStatusProbe(TIMEOUT).isHealthy(hub()));
+    }
+
+    @Test
+    void wrongReadinessFlagIsUnhealthy() throws IOException {
+        body = "{\"value\": {\"ready\": {\"nodes\": 0}}}";
+        assertFalse(new HubStatusProbe(TIMEOUT).isHealthy(hub()));
+    }
+
+    @Test
+    void bodyOfWrongTypeIsUnhealthy() throws IOException {
+        body = "[true]";
+        assertFalse(new HubStatusProbe(TIMEOUT).isHealthy(hub()));
+    }
+
+    @Test
+    void hangingHubIsUnhealthyAfterTimeout() throws IOException {
+        hanging = true;
+        body = "{\"value\": {\"ready\": true}}";
+        final long start = System.nanoTime();
+        assertFalse(new HubStatusProbe(TIMEOUT).isHealthy(hub()));
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 5000);
+    }
+
+    @Test
+    void statusUrlIsResolvedAgainstHub() throws IOException {
+        assertEquals(new URL("http://localhost:4444/wd/hub/status"),
+                     HubStatusProbe.getStatusUrl(new URL("http://localhost:4444/wd/hub")));
+        assertEquals(new URL("http://localhost:4444/wd/hub/status"),
+                     HubStatusProbe.getStatusUrl(new URL("http://localhost:4444/wd/hub/")));
+    }
+
+    /**
+     * Gets URL of stub hub.
+     *
+     * @return Hub URL.
+     * @throws IOException If URL is wrong.
+     */
+    private URL hub() throws IOException {
+        return new URL("http://" + server.getAddress()
+                                         .getHostString() + ":" + server.getAddress()
+                                                                        .getPort() + "/wd/hub");
+    }
+}
@@ -0,0 +1,86 @@
+package ru.vasilev.selenile;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.openqa.selenium.remote.DesiredCapabilities;
+import ru.vasilev.selenile.selection.DeviceCandidate;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LeaseDispatcherTest {
+    /**
+     * Pooled device.
+     */
+    private TestDevice device;
+
+    /**
+     * Capabilities matching only pooled device.
+     */
+    private DesiredCapabilities capabilities;
+
+    /**
+     * Adds device into pool.
+     *
+     * @throws IOException If device can't be created.
+     */
+    @BeforeEach
+    void addDevice() throws IOException {
+        device = new TestDevice("dispatch-device");
+        assertTrue(DevicePool.addDevice(device));
+        capabilities = new DesiredCapabilities();
+        capabilities.setCapability("deviceName", device.getDeviceName());
+    }
+
+    /**
+     * Restores default strategy and removes device from pool.
+     */
+    @AfterEach
+    void removeDevice() {
+        DevicePool.setSelectionStrategy(null);
+        DevicePool.removeDevice(device);
+    }
+
+    @Test
+    void dispatchWorksAfterFailingStrategy() throws Exception {
+        DeviceLease held = DevicePool.lease(capabilities, 1, TimeUnit.SECONDS);
+        assertNotNull(held);
+        CompletableFuture<DeviceLease> waiting = CompletableFuture.supplyAsync(() -> lease(10));
+        Thread.sleep(200);
+        DevicePool.setSelectionStrategy((candidates, requester) -> new DeviceCandidate(device, 0, 0, 0));
+        held.close();
+        Thread.sleep(200);
+        assertFalse(waiting.isDone());
+        DevicePool.setSelectionStrategy(null);
+        assertNull(lease(0));
+        DeviceLease lease = waiting.get(5, TimeUnit.SECONDS);
+        assertNotNull(lease);
+        assertEquals(device, lease.getDevice());
+        lease.close();
+        DeviceLease next = lease(1);
+        assertNotNull(next);
+        next.close();
+    }
+
+    /**
+     * Leases pooled device.
+     *
+     * @param timeout Time in seconds to wait for device.
+     * @return Lease or {@code null}.
+     */
+    private DeviceLease lease(long timeout) {
+        try {
+            return DevicePool.lease(capabilities, timeout, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package ru.vasilev.selenile;
+
+import org.openqa.selenium.remote.DesiredCapabilities;
+import ru.vasilev.selenile.config.NodeConfig;
+import ru.vasilev.selenile.device.Device;
+
+import java.net.MalformedURLException;
+import java.util.HashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+final class TestDevice extends Device {
+    /**
+     * Does device answer health checks.
+     */
+    private volatile boolean responsive = true;
+
+    /**
+     * Count of emulator restarts.
+     */
+    private final AtomicInteger restarts = new AtomicInteger();
+
+    /**
+     * Creates device of hub on {@code localhost:4444}.
+     *
+     * @param name Device name.
+     * @throws MalformedURLException If hub URL is wrong.
+     */
+    TestDevice(String name) throws MalformedURLException {
+        this(name, "localhost", 4444);
+    }
+
+    /**
+     * Creates device of hub.
+     *
+     * @param name    Device name.
+     * @param hubHost Hub host.
+     * @param hubPort Hub port.
+     * @throws MalformedURLException If hub URL is wrong.
+     */
+    TestDevice(String name, String hubHost, int hubPort) throws MalformedURLException {
+        super(nodeConfig(name, hubHost, hubPort));
+    }
+
+    /**
+     * Creates node configuration of device.
+     *
+     * @param name    Device name.
+     * @param hubHost Hub host.
+     * @param hubPort Hub port.
+     * @return Node configuration.
+     */
+    private static NodeConfig nodeConfig(String name, String hubHost, int hubPort) {
+        DesiredCapabilities capabilities = new DesiredCapabilities();
+        capabilities.setCapability("deviceName", name);
+        HashMap<String, Object> configuration = new HashMap<>();
+        configuration.put("hubProtocol", "http");
+        configuration.put("hubHost", hubHost);
+        configuration.put("hubPort", (double) hubPort);
+        return new NodeConfig(capabilities, configuration);
+    }
+
+    /**
+     * Sets whether device answers health checks.
+     *
+     * @param responsive Does device answer.
+     */
+    void setResponsive(boolean responsive) {
+        this.responsive = responsive;
+    }
+
+    /**
+     * Gets count of emulator restarts.
+     *
+     * @return Count of restarts.
+     */
+    int getRestarts() {
+        return restarts.get();
+    }
+
+    @Override
+    public boolean isResponsive() {
+        return responsive;
+    }
+
+    @Override
+    public void restartEmulator() {
+        restarts.incrementAndGet();
+    }
+
+    @Override
+    public void stopEmulator() {
+    }
+
+    @Override
+    public void startEmulator() {
+    }
+
+    @Override
+    protected String getId() {
+        return getDeviceName();
+    }
+}
@@ -0,0 +1,185 @@
+package ru.vasilev.selenile.device;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.remote.DesiredCapabilities;
+import ru.vasilev.selenile.config.NodeConfig;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeFalse;
+
+class AndroidDeviceTest {
+    /**
+     * Directory of fake adb and emulator scripts and their logs.
+     */
+    @TempDir
+    static Path tools;
+
+    /**
+     * Device under test.
+     */
+    private AndroidDevice device;
+
+    /**
+     * Installs fake adb and emulator before {@link AndroidDevice} is loaded.
+     *
+     * @throws IOException If scripts can't be copied.
+     */
+    @BeforeAll
+    static void installTools() throws IOException {
+        assumeFalse(System.getProperty("os.name")
+                          .toLowerCase()
+                          .startsWith("windows"), "POSIX shell is needed");
+        System.setProperty("adbpath", install("adb").toString());
+        System.setProperty("emulatorpath", install("emulator").toString());
+        System.setProperty("emulatorboottimeout", "10");
+    }
+
+    /**
+     * Creates device and clears logs of previous test.
+     *
+     * @throws IOException If logs can't be deleted.
+     */
+    @BeforeEach
+    void createDevice() throws IOException {
+        for (String file : Arrays.asList("adb.log", "emulator.log", "offline")) {
+            Files.deleteIfExists(tools.resolve(file));
+        }
+        device = new AndroidDevice(nodeConfig(null));
+    }
+
+    /**
+     * Stops fake emulator started by test.
+     *
+     * @throws IOException If offline flag can't be deleted.
+     */
+    @AfterEach
+    void stopEmulator() throws IOException {
+        Files.deleteIfExists(tools.resolve("offline"));
+        if (Files.exists(tools.resolve("emulator.pid"))) {
+            device.stopEmulator();
+        }
+    }
+
+    @Test
+    void onlineDeviceIsResponsiveAndReady() throws IOException {
+        assertTrue(device.isResponsive());
+        assertTrue(device.isReady());
+        assertEquals(Arrays.asList("-s emulator-5554 get-state", "-s emulator-5554 shell getprop sys.boot_completed"),
+                     log("adb.log"));
+    }
+
+    @Test
+    void offlineDeviceIsNotResponsive() throws IOException {
+        Files.createFile(tools.resolve("offline"));
+        assertFalse(device.isResponsive());
+        assertFalse(device.isReady());
+    }
+
+    @Test
+    void appDataIsCleared() throws IOException {
+        device = new AndroidDevice(nodeConfig("com.example.app"));
+        assertTrue(device.recover(RecoveryTier.APP_DATA_CLEAR));
+        assertEquals(Collections.singletonList("-s emulator-5554 shell pm clear com.example.app"), log("adb.log"));
+    }
+
+    @Test
+    void snapshotIsLoaded() throws IOException {
+        assertTrue(device.recover(RecoveryTier.SNAPSHOT_RESTORE));
+        assertEquals(Arrays.asList("-s emulator-5554 emu avd snapshot load default_boot",
+                                   "-s emulator-5554 shell getprop sys.boot_completed"), log("adb.log"));
+    }
+
+    @Test
+    void emulatorIsRestarted() throws IOException {
+        device.restartEmulator();
+        assertTrue(Files.exists(tools.resolve("emulator.pid")));
+        device.restartEmulator();
+        assertEquals(Arrays.asList("-avd Pixel_API_30 -port 5554 -netfast -no-audio -no-snapshot-load",
+                                   "-avd Pixel_API_30 -port 5554 -netfast -no-audio -no-snapshot-load"),
+                     log("emulator.log"));
+        assertEquals(Arrays.asList("-s emulator-5554 emu kill", "-s emulator-5554 wait-for-disconnect",
+                                   "-s emulator-5554 wait-for-device",
+                                   "-s emulator-5554 shell getprop sys.boot_completed",
+                                   "-s emulator-5554 emu kill", "-s emulator-5554 wait-for-device",
+                                   "-s emulator-5554 shell getprop sys.boot_completed"), log("adb.log"));
+        device.stopEmulator();
+        assertFalse(Files.exists(tools.resolve("emulator.pid")));
+    }
+
+    @Test
+    void unresponsiveDeviceIsColdBooted() throws IOException {
+        Files.createFile(tools.resolve("offline"));
+        assertEquals(RecoveryTier.COLD_BOOT, device.recover(new WebDriverException("Session isn't created"), null));
+        assertEquals(1, log("emulator.log").size());
+        assertTrue(device.isReady());
+        assertEquals(1L, device.getRecoveryStats()
+                              .get(RecoveryTier.COLD_BOOT));
+    }
+
+    /**
+     * Copies fake tool into tools directory.
+     *
+     * @param name Tool name.
+     * @return Path of executable tool.
+     * @throws IOException If tool can't be copied.
+     */
+    private static Path install(String name) throws IOException {
+        Path tool = tools.resolve(name);
+        try (InputStream script = AndroidDeviceTest.class.getResourceAsStream("/android/" + name)) {
+            Files.copy(script, tool, StandardCopyOption.REPLACE_EXISTING);
+        }
+        assertTrue(tool.toFile()
+                       .setExecutable(true));
+        return tool;
+    }
+
+    /**
+     * Reads log of fake tool.
+     *
+     * @param name Log name.
+     * @return Logged commands.
+     * @throws IOException If log can't be read.
+     */
+    private static List<String> log(String name) throws IOException {
+        Path log = tools.resolve(name);
+        return Files.exists(log) ? Files.readAllLines(log, StandardCharsets.UTF_8) : Collections.emptyList();
+    }
+
+    /**
+     * Creates configuration of emulator {@code emulator-5554}.
+     *
+     * @param appPackage Application package or {@code null}.
+     * @return Node configuration.
+     */
+    private static NodeConfig nodeConfig(String appPackage) {
+        DesiredCapabilities capabilities = new DesiredCapabilities();
+        capabilities.setCapability("deviceName", "Pixel_API_30");
+        capabilities.setCapability("udid", "emulator-5554");
+        if (appPackage != null) {
+            capabilities.setCapability("appPackage", appPackage);
+        }
+        HashMap<String, Object> configuration = new HashMap<>();
+        configuration.put("hubProtocol", "http");
+        configuration.put("hubHost", "localhost");
+        configuration.put("hubPort", 4444.0);
+        return new NodeConfig(capabilities, configuration);
+    }
+}
@@ -0,0 +1,243 @@
+package ru.vasilev.selenile.device;
+
+import com.google.gson.JsonParseException;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.openqa.selenium.remote.DesiredCapabilities;
+import ru.vasilev.selenile.config.NodeConfig;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeFalse;
+
+class SimctlDeviceResolverTest {
+    /**
+     * Time in seconds simulators list is cached during test.
+     */
+    private static final long CACHE_TTL = 2;
+
+    /**
+     * UDID of available iPhone 13.
+     */
+    private static final String IPHONE_13 = "5A3C2B1E-8D7F-4E6A-B9C0-1D2E3F4A5B6C";
+
+    /**
+     * UDID of the first available iPhone 14.
+     */
+    private static final String IPHONE_14 = "9F8E7D6C-5B4A-4392-8170-6F5E4D3C2B1A";
+
+    /**
+     * Command requesting simulators list.
+     */
+    private static final String LIST = "simctl list -j devices";
+
+    /**
+     * Directory of fake xcrun, its simulators list and log.
+     */
+    @TempDir
+    static Path tools;
+
+    /**
+     * Installs fake xcrun before {@link SimctlDeviceResolver} is loaded.
+     *
+     * @throws IOException If script can't be copied.
+     */
+    @BeforeAll
+    static void installXcrun() throws IOException {
+        assumeFalse(System.getProperty("os.name")
+                          .toLowerCase()
+                          .startsWith("windows"), "POSIX shell is needed");
+        Path xcrun = tools.resolve("xcrun");
+        copy("/simctl/xcrun", xcrun);
+        assertTrue(xcrun.toFile()
+                        .setExecutable(true));
+        System.setProperty("xcrunpath", xcrun.toString());
+        System.setProperty("simctlcachettl", String.valueOf(CACHE_TTL));
+    }
+
+    /**
+     * Restores recorded simulators list, clears log and cache of previous test.
+     *
+     * @throws IOException If list can't be copied.
+     */
+    @BeforeEach
+    void resetList() throws IOException {
+        copy("/simctl/devices.json", tools.resolve("devices.json"));
+        Files.deleteIfExists(tools.resolve("xcrun.log"));
+        SimctlDeviceResolver.invalidate();
+    }
+
+    @Test
+    void recordedListIsParsed() throws IOException {
+        Map<String, String> udids = parseRecorded();
+        assertEquals(3, udids.size());
+        assertEquals("C4D5E6F7-0819-4A2B-BC3D-4E5F60718293", udids.get("iPad Air (5th generation)"));
+    }
+
+    @Test
+    void availableSimulatorIsPreferred() throws IOException {
+        assertEquals(IPHONE_13, parseRecorded().get("iPhone 13"));
+    }
+
+    @Test
+    void firstOfAvailableSimulatorsIsTaken() throws IOException {
+        assertEquals(IPHONE_14, parseRecorded().get("iPhone 14"));
+    }
+
+    @Test
+    void missingSimulatorIsNotParsed() throws IOException {
+        assertNull(parseRecorded().get("iPhone 15"));
+    }
+
+    @Test
+    void outputWithoutDevicesIsRejected() {
+        assertThrows(JsonParseException.class,
+                     () -> SimctlDeviceResolver.parse(new StringReader("{\"runtimes\": []}")));
+    }
+
+    @Test
+    void udidIsResolvedOnceForAllDevices() throws IOException {
+        assertEquals(IPHONE_14, SimctlDeviceResolver.resolve("iPhone 14"));
+        assertEquals(IPHONE_13, SimctlDeviceResolver.resolve("iPhone 13"));
+        assertEquals(Collections.singletonList(LIST), log());
+    }
+
+    @Test
+    void missingSimulatorIsNotResolved() throws IOException {
+        assertNull(SimctlDeviceResolver.resolve("iPhone 15"));
+        assertEquals(Collections.singletonList(LIST), log());
+    }
+
+    @Test
+    void listIsRequestedAgainAfterTtl() throws IOException, InterruptedException {
+        SimctlDeviceResolver.resolve("iPhone 14");
+        Thread.sleep(CACHE_TTL * 1000 + 100);
+        SimctlDeviceResolver.resolve("iPhone 14");
+        assertEquals(Arrays.asList(LIST, LIST), log());
+    }
+
+    @Test
+    void invalidatedListIsReread() throws IOException {
+        assertEquals(IPHONE_14, SimctlDeviceResolver.resolve("iPhone 14"));
+        Files.write(tools.resolve("devices.json"),
+                    ("{\"devices\": {\"com.apple.CoreSimulator.SimRuntime.iOS-16-4\": [{\"name\": \"iPhone 14\", "
+                            + "\"udid\": \"00000000-0000-0000-0000-000000000014\", \"isAvailable\": true}]}}")
+                            .getBytes(StandardCharsets.UTF_8));
+        assertEquals(IPHONE_14, SimctlDeviceResolver.resolve("iPhone 14"));
+        SimctlDeviceResolver.invalidate();
+        assertEquals("00000000-0000-0000-0000-000000000014", SimctlDeviceResolver.resolve("iPhone 14"));
+    }
+
+    @Test
+    void failedRequestKeepsCachedList() throws IOException {
+        assertEquals(IPHONE_14, SimctlDeviceResolver.resolve("iPhone 14"));
+        Files.delete(tools.resolve("devices.json"));
+        SimctlDeviceResolver.invalidate();
+        assertEquals(IPHONE_14, SimctlDeviceResolver.resolve("iPhone 14"));
+        assertEquals(Arrays.asList(LIST, LIST), log());
+    }
+
+    @Test
+    void missingDeviceRereadsListOnce() throws IOException {
+        assertEquals(IPHONE_14, SimctlDeviceResolver.resolve("iPhone 14"));
+        Files.write(tools.resolve("devices.json"),
+                    ("{\"devices\": {\"com.apple.CoreSimulator.SimRuntime.iOS-17-0\": [{\"name\": \"iPhone 15\", "
+                            + "\"udid\": \"00000000-0000-0000-0000-000000000015\", \"isAvailable\": true}]}}")
+                            .getBytes(StandardCharsets.UTF_8));
+        assertEquals("00000000-0000-0000-0000-000000000015", new IOSDevice(nodeConfig("iPhone 15")).getId());
+        assertEquals(Arrays.asList(LIST, LIST), log());
+    }
+
+    @Test
+    void unknownDeviceFailsAfterOneReread() throws IOException {
+        IOSDevice device = new IOSDevice(nodeConfig("iPhone 15"));
+        assertThrows(IllegalStateException.class, device::getId);
+        assertEquals(Arrays.asList(LIST, LIST), log());
+    }
+
+    @Test
+    void bootInvalidatesList() throws IOException {
+        new IOSDevice(nodeConfig("iPhone 14")).startEmulator();
+        SimctlDeviceResolver.resolve("iPhone 14");
+        assertEquals(Arrays.asList(LIST, "simctl boot " + IPHONE_14, LIST), log());
+    }
+
+    @Test
+    void eraseInvalidatesList() throws IOException {
+        new IOSDevice(nodeConfig("iPhone 14")).stopEmulator();
+        SimctlDeviceResolver.resolve("iPhone 14");
+        assertEquals(Arrays.asList(LIST, "simctl shutdown " + IPHONE_14, "simctl erase " + IPHONE_14, LIST), log());
+    }
+
+    /**
+     * Parses recorded output of {@code xcrun simctl list -j devices}.
+     *
+     * @return Simulator UDIDs by name.
+     * @throws IOException If recorded output can't be read.
+     */
+    private static Map<String, String> parseRecorded() throws IOException {
+        try (Reader reader = new InputStreamReader(
+                SimctlDeviceResolverTest.class.getResourceAsStream("/simctl/devices.json"), StandardCharsets.UTF_8)) {
+            return SimctlDeviceResolver.parse(reader);
+        }
+    }
+
+    /**
+     * Copies test resource.
+     *
+     * @param resource Resource name.
+     * @param target   Target file.
+     * @throws IOException If resource can't be copied.
+     */
+    private static void copy(String resource, Path target) throws IOException {
+        try (InputStream source = SimctlDeviceResolverTest.class.getResourceAsStream(resource)) {
+            Files.copy(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Reads commands logged by fake xcrun.
+     *
+     * @return Logged commands.
+     * @throws IOException If log can't be read.
+     */
+    private static List<String> log() throws IOException {
+        Path log = tools.resolve("xcrun.log");
+        return Files.exists(log) ? Files.readAllLines(log, StandardCharsets.UTF_8) : Collections.emptyList();
+    }
+
+    /**
+     * Creates configuration of simulator.
+     *
+     * @param deviceName Simulator name.
+     * @return Node configuration.
+     */
+    private static NodeConfig nodeConfig(String deviceName) {
+        DesiredCapabilities capabilities = new DesiredCapabilities();
+        capabilities.setCapability("deviceName", deviceName);
+        HashMap<String, Object> configuration = new HashMap<>();
+        configuration.put("hubProtocol", "http");
+        configuration.put("hubHost", "localhost");
+        configuration.put("hubPort", 4444.0);
+        return new NodeConfig(capabilities, configuration);
+    }
+}
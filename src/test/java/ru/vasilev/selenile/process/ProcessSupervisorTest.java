@@ -0,0 +1,130 @@
+package ru.vasilev.selenile.process;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeFalse;
+
+class ProcessSupervisorTest {
+    /**
+     * Scripts are run by POSIX shell.
+     */
+    @BeforeAll
+    static void checkShell() {
+        assumeFalse(System.getProperty("os.name")
+                          .toLowerCase()
+                          .startsWith("windows"), "POSIX shell is needed");
+    }
+
+    @Test
+    void exitCodeAndOutputAreReported() {
+        ProcessResult result = ProcessSupervisor.execute(script("echo out; echo err >&2; exit 3"), 10,
+                                                         TimeUnit.SECONDS);
+        assertEquals(3, result.getExitCode());
+        assertFalse(result.isTimedOut());
+        assertFalse(result.isSuccess());
+        assertEquals("out", result.getOutput());
+        assertEquals("err", result.getErrors());
+    }
+
+    @Test
+    void zeroExitCodeIsSuccess() {
+        ProcessResult result = ProcessSupervisor.execute(script("echo done"), 10, TimeUnit.SECONDS);
+        assertTrue(result.isSuccess());
+        assertEquals("done", result.getOutput());
+    }
+
+    @Test
+    void commandThatCantBeStartedIsReported() {
+        ProcessResult result = ProcessSupervisor.execute(Arrays.asList("/nonexistent/selenile-command"), 10,
+                                                         TimeUnit.SECONDS);
+        assertEquals(ProcessResult.NOT_STARTED, result.getExitCode());
+        assertFalse(result.isSuccess());
+    }
+
+    @Test
+    void outputTailKeepsLast200Lines() {
+        ProcessResult result = ProcessSupervisor.execute(
+                script("i=1; while [ $i -le 250 ]; do echo line$i; i=$((i+1)); done"), 10, TimeUnit.SECONDS);
+        String[] lines = result.getOutput()
+                               .split("\n");
+        assertEquals(200, lines.length);
+        assertEquals("line51", lines[0]);
+        assertEquals("line250", lines[199]);
+    }
+
+    @Test
+    void outputIsDecodedAsUtf8() {
+        ProcessResult result = ProcessSupervisor.execute(
+                script("printf '\\320\\277\\321\\200\\320\\270\\n'; "
+                               + "printf '\\320\\277\\321\\200\\320\\270\\n' >&2"), 10, TimeUnit.SECONDS);
+        assertEquals("\u043f\u0440\u0438", result.getOutput());
+        assertEquals("\u043f\u0440\u0438", result.getErrors());
+    }
+
+    @Test
+    void listenerGetsEveryLine() {
+        List<String> lines = new CopyOnWriteArrayList<>();
+        ProcessResult result = ProcessSupervisor.start(script("echo one; echo two >&2; echo three"), 10,
+                                                       TimeUnit.SECONDS, lines::add)
+                                                .getResult()
+                                                .join();
+        assertTrue(result.isSuccess());
+        assertEquals(3, lines.size());
+        assertTrue(lines.containsAll(Arrays.asList("one", "two", "three")));
+    }
+
+    @Test
+    void timedOutProcessIsAskedToTerminate() {
+        ProcessResult result = ProcessSupervisor.execute(
+                script("trap 'kill $pid; echo terminated; exit 143' TERM; "
+                               + "sleep 30 >/dev/null 2>&1 & pid=$!; wait $pid"),
+                500, TimeUnit.MILLISECONDS);
+        assertTrue(result.isTimedOut());
+        assertFalse(result.isSuccess());
+        assertEquals("terminated", result.getOutput());
+        assertTrue(result.getDurationMillis() < 5000, "Process is killed after grace period: " + result);
+    }
+
+    @Test
+    void processIgnoringTerminationIsKilledAfterGracePeriod() {
+        ProcessResult result = ProcessSupervisor.execute(
+                script("trap '' TERM; echo started; sleep 20 >/dev/null 2>&1 & wait"), 500, TimeUnit.MILLISECONDS);
+        assertTrue(result.isTimedOut());
+        assertEquals("started", result.getOutput());
+        assertTrue(result.getDurationMillis() >= 5000, "Process is killed before grace period: " + result);
+        assertTrue(result.getDurationMillis() < 15000, "Process isn't killed after grace period: " + result);
+    }
+
+    @Test
+    void cancellingResultKillsProcess() throws InterruptedException {
+        SupervisedProcess process = ProcessSupervisor.start(script("exec sleep 30"), 0, TimeUnit.SECONDS, line -> {
+        });
+        assertTrue(process.isAlive());
+        process.getResult()
+               .cancel(true);
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (process.isAlive() && System.nanoTime() < deadline) {
+            Thread.sleep(50);
+        }
+        assertFalse(process.isAlive());
+    }
+
+    /**
+     * Creates command running shell script.
+     *
+     * @param script Shell script.
+     * @return Command.
+     */
+    private static List<String> script(String script) {
+        return Arrays.asList("sh", "-c", script);
+    }
+}